@@ -0,0 +1,65 @@
+package bench;
+
+import Models.Product;
+import Models.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart pricing: filling the cart with ShoppingCart.addItem (each add scans the cart for the same
+ * product) and ShoppingCart.calculateTotal on a full cart, at several cart sizes. Half of the
+ * products are below their stock threshold, so both price paths are taken.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartBenchmark {
+
+    @Param({"1", "10", "50", "200"})
+    public int cartSize;
+
+    private Product[] products;
+    private ShoppingCart cart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        products = new Product[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            products[i] = new Product(i + 1, StandInDatabase.productName(i), StandInDatabase.productType(i),
+                    10 + i % 40, i % 2 == 0 ? 5 : 50, 10, (String) null);
+        }
+        cart = ShoppingCart.getInstance();
+        // clearCart() goes through the FX thread, which benchmarks do not have
+        cart.getItems().clear();
+        for (Product product : products) {
+            cart.addItem(product, 1.5);
+        }
+    }
+
+    @Benchmark
+    public double fillCart() {
+        cart.getItems().clear();
+        for (Product product : products) {
+            cart.addItem(product, 1.5);
+        }
+        // Adding every product again merges into the existing lines
+        for (Product product : products) {
+            cart.addItem(product, 0.5);
+        }
+        return cart.calculateTotal();
+    }
+
+    @Benchmark
+    public double calculateTotal() {
+        return cart.calculateTotal();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cart.getItems().clear();
+    }
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import Models.Product;
+import Service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog search filtering on the customer screen: ProductSearchIndex.search with a type
+ * filter only, one word, two words with Turkish letters, and a query typed without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogSearchBenchmark {
+
+    @Param({"100", "2000"})
+    public int products;
+
+    private ProductSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Product> catalog = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            catalog.add(new Product(i + 1, StandInDatabase.productName(i), StandInDatabase.productType(i),
+                    10 + i % 40, 50, 10, (String) null));
+        }
+        index = new ProductSearchIndex();
+        index.sync(catalog);
+    }
+
+    @Benchmark
+    public List<Product> typeOnly() {
+        return index.search("", "FRUIT");
+    }
+
+    @Benchmark
+    public List<Product> oneWord() {
+        return index.search("elma", null);
+    }
+
+    @Benchmark
+    public List<Product> twoWordsWithType() {
+        return index.search("kırmızı çilek", "FRUIT");
+    }
+
+    @Benchmark
+    public List<Product> foldedQuery() {
+        return index.search("yesil uzum", null);
+    }
+}
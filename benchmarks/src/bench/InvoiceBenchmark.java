@@ -0,0 +1,71 @@
+package bench;
+
+import Models.Order;
+import Models.OrderItem;
+import Models.User;
+import Service.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invoice text rendering: OrderService.generateInvoice, the full invoice stored at checkout and
+ * the summary shown in the order history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int lines;
+
+    private final OrderService orderService = new OrderService();
+    private Order order;
+    private User customer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<OrderItem> items = new ArrayList<>(lines);
+        double total = 0;
+        for (int i = 0; i < lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrderId(42);
+            item.setProductId(i + 1);
+            item.setAmountKg(1.25 + i % 3);
+            item.setUnitPrice(17.5 + i);
+            item.setLineTotal(item.getAmountKg() * item.getUnitPrice());
+            total += item.getLineTotal();
+            items.add(item);
+        }
+
+        order = new Order();
+        order.setId(42);
+        order.setCustomerId(7);
+        order.setOrderTime(LocalDateTime.of(2024, 5, 17, 18, 30));
+        order.setCustomerAddressSnapshot("Bağdat Caddesi No: 12, Kadıköy, İstanbul | Delivery: Akşam");
+        order.setLoyaltyDiscountPercent(5);
+        order.setTotalAmount(total * 0.95);
+        order.setItems(items);
+
+        customer = new User("ayse", "", "Ayşe Yılmaz", "05551234567", "ayse@example.com",
+                "Bağdat Caddesi No: 12, Kadıköy, İstanbul", "CUSTOMER");
+        customer.setId(7);
+    }
+
+    @Benchmark
+    public String generateInvoice() {
+        return orderService.generateInvoice(order, customer, "Akşam 18:00 - 20:00");
+    }
+
+    @Benchmark
+    public String generateInvoiceSummary() {
+        return orderService.generateInvoice(order);
+    }
+}
@@ -0,0 +1,67 @@
+package bench;
+
+import Dao.DBOrderDAO;
+import Dao.OrderItemDAO;
+import Models.Order;
+import Models.OrderItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order history reads against the stand-in database: the full history query
+ * (getOrdersByCustomer), one keyset page (getOrderHistoryPage) and the batched line load for
+ * that page (OrderItemDAO).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    static final int CUSTOMER_ID = 1;
+    static final int LINES_PER_ORDER = 5;
+
+    @Param({"100", "2000"})
+    public int orders;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private DBOrderDAO orderDAO;
+    private OrderItemDAO orderItemDAO;
+    private List<Integer> pageIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        StandInDatabase.start();
+        StandInDatabase.insertOrders(CUSTOMER_ID, orders, LINES_PER_ORDER);
+        orderDAO = new DBOrderDAO();
+        orderItemDAO = new OrderItemDAO();
+        pageIds = new ArrayList<>();
+        for (Order order : orderDAO.getOrderHistoryPage(CUSTOMER_ID, null, pageSize)) {
+            pageIds.add(order.getId());
+        }
+    }
+
+    @Benchmark
+    public List<Order> getOrdersByCustomer() {
+        return orderDAO.getOrdersByCustomer(CUSTOMER_ID);
+    }
+
+    @Benchmark
+    public List<Order> getOrderHistoryPage() throws SQLException {
+        return orderDAO.getOrderHistoryPage(CUSTOMER_ID, null, pageSize);
+    }
+
+    @Benchmark
+    public Map<Integer, List<OrderItem>> getItemsOfPage() throws SQLException {
+        return orderItemDAO.getItemsByOrderIds(pageIds);
+    }
+}
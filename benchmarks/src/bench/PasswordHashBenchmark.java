@@ -0,0 +1,33 @@
+package bench;
+
+import Database.DatabaseConnection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DatabaseConnection.hashPassword, run on every login and registration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"8", "64"})
+    public int passwordLength;
+
+    private String password;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        password = "şifre123".repeat(passwordLength / 8 + 1).substring(0, passwordLength);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return DatabaseConnection.hashPassword(password);
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import Dao.DBProductDAO;
+import Models.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog load: DBProductDAO.getAllProducts, i.e. the listing query plus
+ * mapResultSetToProduct per row, against the stand-in database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int products;
+
+    private DBProductDAO productDAO;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        StandInDatabase.start();
+        StandInDatabase.insertProducts(products);
+        productDAO = new DBProductDAO();
+    }
+
+    @Benchmark
+    public List<Product> getAllProducts() {
+        return productDAO.getAllProducts();
+    }
+}
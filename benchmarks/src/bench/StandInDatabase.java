@@ -0,0 +1,125 @@
+package bench;
+
+import Database.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Embedded H2 database in MySQL mode with the tables the benchmarked DAOs read, so they run
+ * their real SQL and row mapping without a MySQL server. Only the columns the DAOs use are
+ * created.
+ */
+final class StandInDatabase {
+
+    static final String[] PRODUCE = {
+            "Elma", "Armut", "Kiraz", "Çilek", "Muz", "Portakal", "Mandalina", "Üzüm", "Şeftali", "Kayısı",
+            "Domates", "Salatalık", "Biber", "Patlıcan", "Kabak", "Havuç", "Soğan", "Patates", "Ispanak", "Marul"
+    };
+    static final String[] VARIETIES = {"Kırmızı", "Yeşil", "Sarı", "Organik", "Yerli", "İthal"};
+
+    private static boolean started;
+
+    private StandInDatabase() {
+    }
+
+    /**
+     * Points Database.DatabaseConnection at the in-memory database and creates the tables. Must
+     * run before anything else touches DatabaseConnection in this JVM.
+     */
+    static synchronized void start() throws SQLException {
+        if (started) {
+            return;
+        }
+        System.setProperty("greengrocer.db.url", "jdbc:h2:mem:greengrocer;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+                "DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS group09_greengrocer");
+        System.setProperty("greengrocer.db.user", "sa");
+        System.setProperty("greengrocer.db.password", "");
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE TABLE group09_greengrocer.product_info (id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "name VARCHAR(100) NOT NULL, type VARCHAR(20) NOT NULL, price_per_kg DOUBLE, stock_kg DOUBLE, " +
+                    "threshold_kg DOUBLE, image_blob BLOB, image_mime VARCHAR(50), image_hash VARCHAR(64), " +
+                    "is_active BOOLEAN DEFAULT TRUE, updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3))");
+            st.execute("CREATE TABLE group09_greengrocer.order_info (id INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "customer_id INT NOT NULL, carrier_id INT, order_time TIMESTAMP NOT NULL, requested_delivery_time TIMESTAMP, " +
+                    "delivered_at TIMESTAMP, status VARCHAR(20), total_amount DOUBLE, customer_address_snapshot VARCHAR(500), " +
+                    "loyalty_discount_percent DOUBLE DEFAULT 0, updated_at TIMESTAMP(3) DEFAULT CURRENT_TIMESTAMP(3))");
+            st.execute("CREATE INDEX idx_order_customer_history ON group09_greengrocer.order_info (customer_id, order_time, id)");
+            st.execute("CREATE TABLE group09_greengrocer.order_item (order_id INT NOT NULL, product_id INT NOT NULL, " +
+                    "amount_kg DOUBLE, unit_price DOUBLE, line_total DOUBLE, PRIMARY KEY (order_id, product_id))");
+        }
+        started = true;
+    }
+
+    static String productName(int index) {
+        return VARIETIES[index / PRODUCE.length % VARIETIES.length] + " " + PRODUCE[index % PRODUCE.length]
+                + (index >= PRODUCE.length * VARIETIES.length ? " " + index : "");
+    }
+
+    static String productType(int index) {
+        return index % PRODUCE.length < 10 ? "FRUIT" : "VEGETABLE";
+    }
+
+    /**
+     * Inserts {@code count} products.
+     */
+    static void insertProducts(int count) throws SQLException {
+        String sql = "INSERT INTO group09_greengrocer.product_info (name, type, price_per_kg, stock_kg, threshold_kg, image_mime, image_hash) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < count; i++) {
+                ps.setString(1, productName(i));
+                ps.setString(2, productType(i));
+                ps.setDouble(3, 10 + i % 40);
+                ps.setDouble(4, 5 + i % 100);
+                ps.setDouble(5, 10);
+                ps.setString(6, "image/png");
+                ps.setString(7, String.format("%064x", i));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Inserts {@code count} orders of one customer, one hour apart, with {@code lines} lines each.
+     */
+    static void insertOrders(int customerId, int count, int lines) throws SQLException {
+        String orderSql = "INSERT INTO group09_greengrocer.order_info (id, customer_id, order_time, status, total_amount, customer_address_snapshot) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+        String itemSql = "INSERT INTO group09_greengrocer.order_item (order_id, product_id, amount_kg, unit_price, line_total) VALUES (?, ?, ?, ?, ?)";
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int firstId = customerId * 1_000_000;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement psOrder = conn.prepareStatement(orderSql);
+             PreparedStatement psItem = conn.prepareStatement(itemSql)) {
+            for (int i = 0; i < count; i++) {
+                int orderId = firstId + i;
+                psOrder.setInt(1, orderId);
+                psOrder.setInt(2, customerId);
+                psOrder.setTimestamp(3, Timestamp.valueOf(start.plusHours(i)));
+                psOrder.setString(4, i % 10 == 0 ? "PLACED" : "DELIVERED");
+                psOrder.setDouble(5, lines * 25.0);
+                psOrder.setString(6, "Kadıköy, İstanbul | Delivery: Akşam");
+                psOrder.addBatch();
+                for (int line = 0; line < lines; line++) {
+                    psItem.setInt(1, orderId);
+                    psItem.setInt(2, line + 1);
+                    psItem.setDouble(3, 1.5);
+                    psItem.setDouble(4, 16.0 + line);
+                    psItem.setDouble(5, 1.5 * (16.0 + line));
+                    psItem.addBatch();
+                }
+            }
+            psOrder.executeBatch();
+            psItem.executeBatch();
+        }
+    }
+}
@@ -25,6 +25,9 @@ public class Group09 extends Application {
         try {
             Utils.SceneManager.getInstance().setPrimaryStage(stage);
 
+            // Loads the owner settings in the background before the cart needs them
+            Service.SettingsService.getInstance();
+
             Utils.SceneManager.switchSceneStatic("/fxml/Login.fxml");
 
             stage.setTitle("Group09 GreenGrocer");
@@ -33,6 +36,20 @@ public class Group09 extends Application {
         }
     }
 
+    /**
+     * Writes any queued orders, stops background database work, writes the last DAO metrics snapshot and releases the pooled connections
+     * when the application window is closed.
+     */
+    @Override
+    public void stop() {
+        Service.OrderWriter.shutdown();
+        Service.InvoiceService.shutdown();
+        Service.SettingsService.shutdown();
+        Service.DbTaskExecutor.shutdown();
+        Dao.DaoMetrics.shutdown();
+        Database.DatabaseConnection.closeConnection();
+    }
+
     /**
      * The main method that serves as the fallback entry point for the application.
      *
@@ -1,6 +1,9 @@
 package Controller;
 
 import Service.AuthService;
+import Service.DbTaskExecutor;
+import Service.LoyaltyLedger;
+import Service.OrderChangeFeed;
 import Utils.SceneManager;
 import Dao.CarrierDAO;
 import Dao.MessageDao;
@@ -8,13 +11,18 @@ import Models.CarrierRating;
 import Models.Message;
 import Models.Order;
 import Models.User;
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller class for the Carrier Module.
@@ -46,25 +54,35 @@ public class CarrierController {
     private MessageDao messageDao = new MessageDao();
     private User currentUser;
 
+    private final ObservableList<Order> availableOrders = FXCollections.observableArrayList();
+    private final ObservableList<Order> activeOrders = FXCollections.observableArrayList();
+    private final ObservableList<Order> completedOrders = FXCollections.observableArrayList();
+
+    private OrderChangeFeed changeFeed;
+    private final PauseTransition pollTimer = new PauseTransition();
+    private boolean polling = true;
+
+    // The refresh currently in flight; polling skips a tick instead of stacking queries
+    private CompletableFuture<?> pendingRefresh;
+
     /**
      * Initializes the controller. Sets up table columns, loads initial data,
-     * and starts a background timeline to refresh order tables every 3 seconds.
+     * and starts polling the order change feed in the background.
      */
     @FXML
     public void initialize() {
         this.currentUser = (User) SceneManager.getData("currentUser");
+        this.changeFeed = new OrderChangeFeed(carrierDAO, currentUser != null ? currentUser.getId() : -1);
 
         setupTableColumns();
+        availableTable.setItems(availableOrders);
+        activeTable.setItems(activeOrders);
+        completedTable.setItems(completedOrders);
+
+        // Each poll schedules the next one, so the interval can follow the feed's backoff
+        pollTimer.setOnFinished(event -> refreshTables());
         refreshTables();
         loadRatings();
-
-        javafx.animation.Timeline timeline = new javafx.animation.Timeline(
-                new javafx.animation.KeyFrame(javafx.util.Duration.seconds(3), event -> {
-                    refreshTables();
-                })
-        );
-        timeline.setCycleCount(javafx.animation.Timeline.INDEFINITE);
-        timeline.play();
     }
 
     /**
@@ -90,37 +108,130 @@ public class CarrierController {
 
     /**
      * Synchronizes the UI tables with the database.
-     * Distributes orders into Available, Active (Assigned), and Completed (Delivered) categories.
+     * Polls the change feed on a background thread and patches the Available, Active (Assigned)
+     * and Completed (Delivered) lists in place on the FX thread, then schedules the next poll.
      */
     private void refreshTables() {
-        availableTable.setItems(FXCollections.observableArrayList(carrierDAO.getAvailableOrders()));
-
-        if (currentUser != null) {
-            activeTable.setItems(FXCollections.observableArrayList(
-                    carrierDAO.getOrdersByCarrier(currentUser.getId(), "ASSIGNED")
-            ));
-            completedTable.setItems(FXCollections.observableArrayList(
-                    carrierDAO.getOrdersByCarrier(currentUser.getId(), "DELIVERED")
-            ));
+        if (pendingRefresh != null && !pendingRefresh.isDone()) {
+            return;
+        }
+        pollTimer.stop();
+
+        CompletableFuture<OrderChangeFeed.Changes> poll = DbTaskExecutor.getInstance().submit(changeFeed::poll);
+        pendingRefresh = poll;
+
+        DbTaskExecutor.deliver(poll, changes -> {
+            applyChanges(changes);
+            scheduleNextPoll();
+        }, e -> {
+            System.err.println("Carrier refresh failed: " + e.getMessage());
+            scheduleNextPoll();
+        });
+    }
+
+    /**
+     * Re-arms the poll timer with the interval chosen by the change feed.
+     */
+    private void scheduleNextPoll() {
+        if (!polling) {
+            return;
         }
+        pollTimer.setDuration(Duration.millis(changeFeed.getPollInterval()));
+        pollTimer.playFromStart();
+    }
+
+    /**
+     * Applies a poll result to the table lists. A full result replaces them; a delta moves each
+     * changed order into the list it now belongs to and out of the others.
+     *
+     * @param changes The poll result.
+     */
+    private void applyChanges(OrderChangeFeed.Changes changes) {
+        if (changes.isFull()) {
+            List<Order> available = new ArrayList<>();
+            List<Order> active = new ArrayList<>();
+            List<Order> completed = new ArrayList<>();
+            for (int i = 0; i < changes.size(); i++) {
+                switch (changes.getTarget(i)) {
+                    case AVAILABLE -> available.add(changes.getOrder(i));
+                    case ACTIVE -> active.add(changes.getOrder(i));
+                    case COMPLETED -> completed.add(changes.getOrder(i));
+                    default -> { }
+                }
+            }
+            availableOrders.setAll(available);
+            activeOrders.setAll(active);
+            completedOrders.setAll(completed);
+            return;
+        }
+
+        for (int i = 0; i < changes.size(); i++) {
+            Order order = changes.getOrder(i);
+            ObservableList<Order> destination = listFor(changes.getTarget(i));
+            for (ObservableList<Order> list : List.of(availableOrders, activeOrders, completedOrders)) {
+                int index = indexOf(list, order.getId());
+                if (index < 0) {
+                    continue;
+                }
+                if (list == destination) {
+                    list.set(index, order); // Updated in place, keeps row position and selection
+                    destination = null;
+                } else {
+                    list.remove(index);
+                }
+            }
+            if (destination != null) {
+                destination.add(order);
+            }
+        }
+    }
+
+    private ObservableList<Order> listFor(OrderChangeFeed.Target target) {
+        switch (target) {
+            case AVAILABLE: return availableOrders;
+            case ACTIVE: return activeOrders;
+            case COMPLETED: return completedOrders;
+            default: return null;
+        }
+    }
+
+    private static int indexOf(List<Order> list, int orderId) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getId() == orderId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Polls right away with the shortest interval, after the carrier changed an order.
+     */
+    private void refreshNow() {
+        changeFeed.resetBackoff();
+        refreshTables();
     }
 
     /**
      * Event handler for picking up an available order.
-     * Attempts to assign the selected order to the current carrier in the database.
+     * Attempts to assign the selected order to the current carrier in the database, in the background.
      */
     @FXML
     private void handlePickUp() {
         Order selected = availableTable.getSelectionModel().getSelectedItem();
         if (selected != null && currentUser != null) {
-            boolean success = carrierDAO.assignOrderToCarrier(selected.getId(), currentUser.getId());
-            if (success) {
-                refreshTables();
-                showAlert("Success", "Order successfully assigned to you.");
-            } else {
-                refreshTables();
-                showAlert("Conflict Error", "This order was just picked up by another carrier!");
-            }
+            int carrierId = currentUser.getId();
+            DbTaskExecutor.deliver(
+                    DbTaskExecutor.getInstance().submit(() -> carrierDAO.assignOrderToCarrier(selected.getId(), carrierId)),
+                    success -> {
+                        refreshNow();
+                        if (success) {
+                            showAlert("Success", "Order successfully assigned to you.");
+                        } else {
+                            showAlert("Conflict Error", "This order was just picked up by another carrier!");
+                        }
+                    },
+                    e -> showAlert("Error", "Could not pick up the order: " + e.getMessage()));
         } else if (selected == null) {
             showAlert("Selection Error", "Please select an order to pick up.");
         }
@@ -128,17 +239,27 @@ public class CarrierController {
 
     /**
      * Event handler for marking an order as delivered.
-     * Updates the order status and records the delivery timestamp in the database.
+     * Updates the order status and records the delivery timestamp in the database, in the background.
      */
     @FXML
     private void handleDeliver() {
         Order selected = activeTable.getSelectionModel().getSelectedItem();
         if (selected != null && currentUser != null) {
-            boolean success = carrierDAO.completeOrder(selected.getId());
-            if (success) {
-                refreshTables();
-                showAlert("Success", "Order marked as delivered.");
-            }
+            DbTaskExecutor.deliver(
+                    DbTaskExecutor.getInstance().submit(() -> {
+                        boolean success = carrierDAO.completeOrder(selected.getId());
+                        if (success) {
+                            LoyaltyLedger.getInstance().orderCompleted(selected.getCustomerId());
+                        }
+                        return success;
+                    }),
+                    success -> {
+                        if (success) {
+                            refreshNow();
+                            showAlert("Success", "Order marked as delivered.");
+                        }
+                    },
+                    e -> showAlert("Error", "Could not mark the order as delivered: " + e.getMessage()));
         } else if (selected == null) {
             showAlert("Selection Error", "Please select an active order to mark as delivered.");
         }
@@ -167,11 +288,13 @@ public class CarrierController {
                     msg.setReceiverId(selected.getCustomerId());
                     msg.setContent(content);
 
-                    if (messageDao.sendMessage(msg)) {
-                        showAlert("Sent", "Message sent to customer.");
-                    } else {
-                        showAlert("Error", "Could not send message.");
-                    }
+                    DbTaskExecutor.deliver(DbTaskExecutor.getInstance().submit(() -> messageDao.sendMessage(msg)), sent -> {
+                        if (sent) {
+                            showAlert("Sent", "Message sent to customer.");
+                        } else {
+                            showAlert("Error", "Could not send message.");
+                        }
+                    }, e -> showAlert("Error", "Could not send message."));
                 }
             });
         } else {
@@ -182,22 +305,33 @@ public class CarrierController {
     /**
      * Loads performance metrics and customer reviews for the current carrier.
      * Calculates the average rating and updates the visual performance label.
+     * The ratings are read in the background.
      */
     private void loadRatings() {
         if (currentUser != null && ratingListView != null) {
-            List<CarrierRating> ratings = carrierDAO.getRatingsForCarrier(currentUser.getId());
-            double sum = 0;
-            ratingListView.getItems().clear();
+            int carrierId = currentUser.getId();
+            DbTaskExecutor.deliver(DbTaskExecutor.getInstance().submit(() -> carrierDAO.getRatingsForCarrier(carrierId)),
+                    this::showRatings, e -> System.err.println("Could not load ratings: " + e.getMessage()));
+        }
+    }
 
-            for (CarrierRating r : ratings) {
-                sum += r.getRating();
-                ratingListView.getItems().add("⭐ " + r.getRating() + "/5 | " + r.getComment());
-            }
+    /**
+     * Fills the rating list and the average label; runs on the FX thread.
+     *
+     * @param ratings The carrier's ratings.
+     */
+    private void showRatings(List<CarrierRating> ratings) {
+        double sum = 0;
+        ratingListView.getItems().clear();
 
-            if (!ratings.isEmpty() && lblAverageRating != null) {
-                double avg = sum / ratings.size();
-                lblAverageRating.setText(String.format("Performance: %.1f / 5.0", avg));
-            }
+        for (CarrierRating r : ratings) {
+            sum += r.getRating();
+            ratingListView.getItems().add("⭐ " + r.getRating() + "/5 | " + r.getComment());
+        }
+
+        if (!ratings.isEmpty() && lblAverageRating != null) {
+            double avg = sum / ratings.size();
+            lblAverageRating.setText(String.format("Performance: %.1f / 5.0", avg));
         }
     }
 
@@ -220,6 +354,8 @@ public class CarrierController {
      */
     @FXML
     private void handleLogout() {
+        polling = false;
+        pollTimer.stop();
         AuthService.getInstance().logout();
         SceneManager.switchSceneStatic("/fxml/Login.fxml");
     }
@@ -11,10 +11,16 @@ import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.Stage;
+import Service.AsyncDao;
 import Service.AuthService;
+import Service.CouponService;
+import Service.DbTaskExecutor;
+import Service.InsufficientStockException;
 import Service.OrderService;
+import Service.SettingsService;
 import Models.User;
 import Models.Order;
+import Dao.CheckoutDAO;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 
@@ -42,7 +48,6 @@ public class CartViewController {
     @FXML private javafx.scene.control.ComboBox<String> comboDeliveryTime;
 
     private OrderService orderService = new OrderService();
-    private static final double MIN_CART_VALUE = 50.0;
 
     /**
      * Initializes the controller class.
@@ -79,17 +84,17 @@ public class CartViewController {
                 "17:00 - 19:00"
         );
 
-        // Fetch and display available coupons for the user
-        Dao.CouponDAO couponDAO = new Dao.DBCouponDAO();
-        java.util.List<Models.Coupon> coupons = couponDAO.getAllCoupons();
-        if (!coupons.isEmpty()) {
-            StringBuilder couponCodes = new StringBuilder("Available Coupons: ");
-            for (Models.Coupon c : coupons) {
-                couponCodes.append(c.getCode()).append(" ");
+        // Fetch and display available coupons for the user (in the background)
+        DbTaskExecutor.deliver(AsyncDao.coupons().supply(Dao.CouponDAO::getAllCoupons), coupons -> {
+            if (!coupons.isEmpty()) {
+                StringBuilder couponCodes = new StringBuilder("Available Coupons: ");
+                for (Models.Coupon c : coupons) {
+                    couponCodes.append(c.getCode()).append(" ");
+                }
+                lblCouponMessage.setText(couponCodes.toString());
+                lblCouponMessage.setStyle("-fx-text-fill: green;");
             }
-            lblCouponMessage.setText(couponCodes.toString());
-            lblCouponMessage.setStyle("-fx-text-fill: green;");
-        }
+        }, e -> System.err.println("Could not load coupons: " + e.getMessage()));
     }
 
     /**
@@ -111,7 +116,7 @@ public class CartViewController {
 
     /**
      * Validates and applies a coupon code entered by the user.
-     * Updates the total price if the coupon is valid.
+     * The code is checked in the background; the total price is updated if the coupon is valid.
      */
     @FXML
     private void handleApplyCoupon() {
@@ -122,16 +127,25 @@ public class CartViewController {
             return;
         }
 
-        boolean success = ShoppingCart.getInstance().applyCoupon(code.trim());
-        if (success) {
-            lblCouponMessage.setText("Coupon applied!");
-            lblCouponMessage.setStyle("-fx-text-fill: green;");
-            updateTotalLabel();
-        } else {
-            lblCouponMessage.setText("Invalid or expired coupon.");
+        String trimmed = code.trim();
+        btnApplyCoupon.setDisable(true);
+        DbTaskExecutor.deliver(DbTaskExecutor.getInstance().submit(() -> CouponService.getInstance().findUsableCoupon(trimmed)), coupon -> {
+            btnApplyCoupon.setDisable(false);
+            boolean success = ShoppingCart.getInstance().applyCoupon(coupon);
+            if (success) {
+                lblCouponMessage.setText("Coupon applied!");
+                lblCouponMessage.setStyle("-fx-text-fill: green;");
+                updateTotalLabel();
+            } else {
+                lblCouponMessage.setText("Invalid or expired coupon.");
+                lblCouponMessage.setStyle("-fx-text-fill: red;");
+                updateTotalLabel();
+            }
+        }, e -> {
+            btnApplyCoupon.setDisable(false);
+            lblCouponMessage.setText("Could not check the coupon, please try again.");
             lblCouponMessage.setStyle("-fx-text-fill: red;");
-            updateTotalLabel();
-        }
+        });
     }
 
     /**
@@ -161,9 +175,10 @@ public class CartViewController {
             return;
         }
 
-        // Validate Minimum Cart Value
-        if (ShoppingCart.getInstance().calculateTotal() < MIN_CART_VALUE) {
-            showAlert("Minimum Order", "Minimum cart value must be " + MIN_CART_VALUE + " TL.");
+        // Validate Minimum Cart Value (owner setting, served from memory)
+        double minCartValue = SettingsService.getInstance().get().getMinCartValue();
+        if (ShoppingCart.getInstance().calculateTotal() < minCartValue) {
+            showAlert("Minimum Order", "Minimum cart value must be " + minCartValue + " TL.");
             return;
         }
 
@@ -175,22 +190,47 @@ public class CartViewController {
 
         String deliveryInfo = datePickerDelivery.getValue().toString() + " " + comboDeliveryTime.getValue();
 
-        try {
-            // Place the order using the OrderService
-            Order order = orderService.placeOrder(user, ShoppingCart.getInstance(), deliveryInfo);
+        // Place the order using the OrderService on a background thread;
+        // the cart window stays disabled until the result comes back
+        cartTable.getScene().getRoot().setDisable(true);
+        DbTaskExecutor.deliver(
+                DbTaskExecutor.getInstance().submit(() -> orderService.placeOrder(user, ShoppingCart.getInstance(), deliveryInfo)),
+                order -> {
+                    cartTable.getScene().getRoot().setDisable(false);
+                    showAlert("Order Successful", "Your order has been placed!\nOrder ID: " + order.getId() + "\nYour invoice will be available in Order History shortly.");
 
-            showAlert("Order Successful", "Your order has been placed!\nOrder ID: " + order.getId() + "\nInvoice generated.");
+                    // Refresh UI and return to main dashboard
+                    cartTable.refresh();
+                    updateTotalLabel();
+                    handleBack();
+                },
+                e -> {
+                    cartTable.getScene().getRoot().setDisable(false);
+                    if (e instanceof InsufficientStockException) {
+                        showStockShortages((InsufficientStockException) e);
+                    } else if (e instanceof IllegalStateException) {
+                        showAlert("Cart Empty", "Your cart is empty.");
+                    } else {
+                        showAlert("Error", "Could not place order: " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                });
+    }
 
-            // Refresh UI and return to main dashboard
-            cartTable.refresh();
-            updateTotalLabel();
-            handleBack();
-        } catch (IllegalStateException e) {
-            showAlert("Cart Empty", "Your cart is empty.");
-        } catch (Exception e) {
-            showAlert("Error", "Could not place order: " + e.getMessage());
-            e.printStackTrace();
+    /**
+     * Tells the customer which cart lines could not be fulfilled. The order was not placed
+     * and no stock was taken, so the cart is left as it is for the customer to adjust.
+     *
+     * @param e The checkout failure listing the short lines.
+     */
+    private void showStockShortages(InsufficientStockException e) {
+        StringBuilder sb = new StringBuilder("Your order was not placed. Not enough stock for:\n");
+        for (CheckoutDAO.StockShortage shortage : e.getShortages()) {
+            String name = shortage.getProductName() != null ? shortage.getProductName() : "Product #" + shortage.getProductId();
+            sb.append(String.format("- %s: requested %.2f kg, available %.2f kg%n",
+                    name, shortage.getRequestedKg(), shortage.getAvailableKg()));
         }
+        showAlert("Insufficient Stock", sb.toString());
     }
 
     /**
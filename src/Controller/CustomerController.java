@@ -1,24 +1,23 @@
 package Controller;
 
-import Models.Product;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Node;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.scene.layout.FlowPane;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
 
-import Dao.DBProductDAO;
 import Dao.ProductDAO;
+import Service.AsyncDao;
+import Service.DbTaskExecutor;
+import Service.ProductSearchIndex;
+import Service.ProductService;
 import java.io.IOException;
 import java.net.URL;
-import java.util.Comparator;
 import java.util.List;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
 
 /**
  * Controls the main customer interface including product listing, searching, and sorting.
@@ -29,12 +28,15 @@ import java.util.stream.Collectors;
 public class CustomerController implements Initializable {
 
     @FXML private TextField searchField;
-    @FXML private FlowPane veggieContainer;
-    @FXML private FlowPane fruitContainer;
+    @FXML private ProductCardGrid productGrid;
     @FXML private Label welcomeLabel;
 
-    private ObservableList<Product> allProducts = FXCollections.observableArrayList();
-    private ProductDAO productDAO = new DBProductDAO();
+    // Quiet period after the last keystroke before the search runs
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+
+    private AsyncDao<ProductDAO> productDAO = AsyncDao.products();
+    private ProductSearchIndex searchIndex = ProductService.getInstance().getSearchIndex();
+    private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
 
     /**
      * Initializes the controller class.
@@ -46,15 +48,19 @@ public class CustomerController implements Initializable {
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        // Load product data from the database
+        // Load product data from the database in the background;
+        // the initial display (sorted by name) is built once the data arrives
         loadData();
 
-        // Initial display of data sorted alphabetically by name
-        refreshProductDisplays("");
-
-        // Register a listener for real-time search filtering
+        // Register a debounced listener for search filtering; restarting the pause drops the
+        // query of every keystroke that was superseded before it ran
+        searchDebounce.setOnFinished(event -> refreshProductDisplays(searchField.getText()));
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
-            refreshProductDisplays(newValue);
+            searchDebounce.playFromStart();
+        });
+        searchField.setOnAction(event -> {
+            searchDebounce.stop();
+            refreshProductDisplays(searchField.getText());
         });
 
         // Set personalized welcome message for the current user
@@ -67,60 +73,28 @@ public class CustomerController implements Initializable {
     }
 
     /**
-     * Filters the product list based on the search query, sorts the results by name,
-     * and updates the UI containers.
+     * Looks the query up in the product search index and hands the ranked matches to the
+     * card grid. A blank query lists every product sorted by name.
      *
      * @param query The search keyword entered by the user.
      */
     private void refreshProductDisplays(String query) {
-        veggieContainer.getChildren().clear();
-        fruitContainer.getChildren().clear();
-
-        String lowerCaseQuery = query.toLowerCase();
-
-        // Use Stream API for filtering and sorting requirements
-        List<Product> filteredList = allProducts.stream()
-                .filter(p -> p.getName().toLowerCase().contains(lowerCaseQuery))
-                .sorted(Comparator.comparing(Product::getName))
-                .collect(Collectors.toList());
-
-        // Populate category containers dynamically
-        for (Product p : filteredList) {
-            try {
-                if ("VEGETABLE".equalsIgnoreCase(p.getType())) {
-                    veggieContainer.getChildren().add(createProductCard(p));
-                } else if ("FRUIT".equalsIgnoreCase(p.getType())) {
-                    fruitContainer.getChildren().add(createProductCard(p));
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-                System.err.println("Error loading product card for: " + p.getName());
-            }
-        }
+        productGrid.setSections(List.of(
+                new ProductCardGrid.Section("🥦 Vegetables", Color.web("#27ae60"), searchIndex.search(query, "VEGETABLE")),
+                new ProductCardGrid.Section("🍎 Fruits", Color.web("#e67e22"), searchIndex.search(query, "FRUIT"))));
     }
 
     /**
-     * Dynamically loads a ProductCard FXML component and populates it with product details.
-     *
-     * @param product   The product model to be displayed on the card.
-     * @return          A Node representing the visual product card.
-     * @throws IOException If the FXML file cannot be loaded.
-     */
-    private Node createProductCard(Product product) throws IOException {
-        FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ProductCard.fxml"));
-        Node cardNode = loader.load();
-
-        ProductCardController cardController = loader.getController();
-        cardController.setProductData(product);
-
-        return cardNode;
-    }
-
-    /**
-     * Synchronizes the in-memory observable list with the product records in the database.
+     * Synchronizes the product catalog (and with it the search index) with the database.
+     * The query runs off the FX thread; the product displays are refreshed when it completes.
      */
     private void loadData() {
-        allProducts.setAll(productDAO.getAllProducts());
+        DbTaskExecutor.deliver(productDAO.supply(ProductDAO::getAllProducts), products -> {
+            refreshProductDisplays(searchField.getText());
+        }, e -> {
+            e.printStackTrace();
+            System.err.println("Could not load products: " + e.getMessage());
+        });
     }
 
     /**
@@ -1,6 +1,8 @@
 package Controller;
 
 import Service.AuthService;
+import Service.DbTaskExecutor;
+import Service.SalesSnapshot;
 import Models.User;
 import Utils.SceneManager;
 import io.github.palexdev.materialfx.controls.MFXPasswordField;
@@ -72,6 +74,8 @@ public class LoginController {
                     SceneManager.switchSceneStatic("/fxml/CarrierDashboard.fxml");
                     break;
                 case "OWNER":
+                    // Build the sales snapshot for the Reports screen in the background
+                    DbTaskExecutor.getInstance().submit(SalesSnapshot.getInstance()::refresh);
                     SceneManager.switchSceneStatic("/fxml/OwnerDashboard.fxml");
                     break;
                 default:
@@ -1,11 +1,14 @@
 package Controller;
 
-import Dao.DBOrderDAO;
-import Dao.OrderDao;
+import Dao.InvoiceJobDAO;
 import Models.Order;
 import Models.User;
 import Service.AuthService;
+import Service.DbTaskExecutor;
+import Service.InvoiceService;
+import Service.OrderHistoryPager;
 import Service.OrderService;
+import Utils.InfiniteScroll;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -14,6 +17,13 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Controller class for the Order History interface.
@@ -28,10 +38,14 @@ public class OrderHistoryController {
     @FXML private TableColumn<Order, String> dateColumn;
     @FXML private TableColumn<Order, String> statusColumn;
     @FXML private TableColumn<Order, String> totalColumn;
+    @FXML private TableColumn<Order, String> invoiceColumn;
 
-    private OrderDao orderDao = new DBOrderDAO();
     private OrderService orderService = new OrderService();
     private User currentUser;
+    private OrderHistoryPager pager;
+    private boolean loading;
+    // Filled in asynchronously after the orders are shown
+    private Map<Integer, InvoiceJobDAO.Status> invoiceStatuses = new HashMap<>();
 
     /**
      * Initializes the controller. Sets up the TableView columns by binding
@@ -52,40 +66,172 @@ public class OrderHistoryController {
         totalColumn.setCellValueFactory(cellData ->
                 new SimpleStringProperty(String.format("%.2f TL", cellData.getValue().getTotalAmount())));
 
+        invoiceColumn.setCellValueFactory(cellData ->
+                new SimpleStringProperty(describeInvoice(invoiceStatuses.get(cellData.getValue().getId()))));
+
+        historyTable.setItems(FXCollections.observableArrayList());
+        InfiniteScroll.install(historyTable, this::loadMoreOrders);
         loadOrders();
     }
 
     /**
-     * Fetches the order records for the currently authenticated customer
-     * from the database and updates the UI table.
+     * Shows the first page of the current customer's order history. Further pages are loaded
+     * as the table is scrolled down (see {@link #loadMoreOrders()}).
      */
     private void loadOrders() {
         if (currentUser != null) {
-            historyTable.setItems(FXCollections.observableArrayList(
-                    orderDao.getOrdersByCustomer(currentUser.getId())
-            ));
+            pager = new OrderHistoryPager(currentUser.getId());
+            loadMoreOrders();
+        }
+    }
+
+    /**
+     * Appends the next page of orders, which the pager has usually prefetched already.
+     */
+    private void loadMoreOrders() {
+        if (pager == null || loading || !pager.hasMore()) {
+            return;
+        }
+        loading = true;
+        DbTaskExecutor.deliver(pager.nextPage(), orders -> {
+            loading = false;
+            historyTable.getItems().addAll(orders);
+            loadInvoiceStatuses(orders);
+        }, error -> {
+            loading = false;
+            error.printStackTrace();
+            showAlert("Error", "Could not load your orders: " + error.getMessage());
+        });
+    }
+
+    /**
+     * Looks up on a background thread whether the invoices of the given orders are ready,
+     * then refreshes the invoice column.
+     *
+     * @param orders The orders just added to the table.
+     */
+    private void loadInvoiceStatuses(List<Order> orders) {
+        List<Integer> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        DbTaskExecutor.deliver(
+                DbTaskExecutor.getInstance().submit(() -> InvoiceService.getInstance().getStatuses(orderIds)),
+                statuses -> {
+                    invoiceStatuses.putAll(statuses);
+                    historyTable.refresh();
+                },
+                Throwable::printStackTrace);
+    }
+
+    private String describeInvoice(InvoiceJobDAO.Status status) {
+        if (status == null) {
+            return "...";
+        }
+        switch (status) {
+            case READY: return "Ready";
+            case PENDING: return "Preparing";
+            case FAILED: return "Failed (retry)";
+            default: return "On request";
         }
     }
 
     /**
      * Handles the request to view an invoice for a selected order.
-     * Generates the invoice string via OrderService and displays it
-     * in the system console and an alert dialog.
+     * Shows the invoice stored by the InvoiceService when it is ready; an invoice that is still
+     * being prepared is reported as such and a failed one is queued again. Orders without an invoice job fall back to a summary generated via
+     * OrderService.
+     * The invoice is displayed in the system console and an alert dialog.
      */
     @FXML
     private void handleViewInvoice() {
         Order selected = historyTable.getSelectionModel().getSelectedItem();
-        if (selected != null) {
-            String invoice = orderService.generateInvoice(selected);
+        if (selected == null) {
+            showAlert("No Selection", "Please select an order to view invoice.");
+            return;
+        }
+
+        InvoiceService invoiceService = InvoiceService.getInstance();
+        int orderId = selected.getId();
+        DbTaskExecutor.deliver(DbTaskExecutor.getInstance().submit(() -> {
+            InvoiceJobDAO.Status status = invoiceService.getStatuses(List.of(orderId))
+                    .getOrDefault(orderId, InvoiceJobDAO.Status.MISSING);
+            String invoice = null;
+            if (status == InvoiceJobDAO.Status.READY) {
+                invoice = invoiceService.getInvoiceText(orderId);
+            } else if (status == InvoiceJobDAO.Status.FAILED) {
+                invoiceService.retry(orderId);
+            } else if (status == InvoiceJobDAO.Status.MISSING) {
+                // First access to the lines loads them for the whole history page in one query
+                invoice = orderService.generateInvoice(selected);
+            }
+            return new InvoiceLookup(status, invoice);
+        }), lookup -> {
+            InvoiceJobDAO.Status status = lookup.status;
+            String invoice = lookup.invoice;
+            invoiceStatuses.put(orderId, status == InvoiceJobDAO.Status.FAILED ? InvoiceJobDAO.Status.PENDING : status);
+            historyTable.refresh();
+
+            switch (status) {
+                case PENDING:
+                    showAlert("Invoice Pending", "The invoice for Order ID " + orderId + " is being prepared. Please try again shortly.");
+                    return;
+                case FAILED:
+                    showAlert("Invoice Pending", "The invoice for Order ID " + orderId + " could not be prepared and has been queued again.");
+                    return;
+                default:
+                    break;
+            }
 
             // Log to console as per current implementation
             System.out.println("--- Invoice displayed in console ---");
             System.out.println(invoice);
 
-            showAlert("Invoice Generated", "Invoice has been printed to the console.\n(Order ID: " + selected.getId() + ")");
-        } else {
-            showAlert("No Selection", "Please select an order to view invoice.");
+            showAlert("Invoice Generated", "Invoice has been printed to the console.\n(Order ID: " + orderId + ")");
+        }, error -> {
+            error.printStackTrace();
+            showAlert("Error", "Could not load the invoice: " + error.getMessage());
+        });
+    }
+
+    /**
+     * Saves the PDF invoice of the selected order to a file the customer picks.
+     * Orders whose stored invoice predates the PDF format are rendered on the spot.
+     */
+    @FXML
+    private void handleSaveInvoicePdf() {
+        Order selected = historyTable.getSelectionModel().getSelectedItem();
+        if (selected == null) {
+            showAlert("No Selection", "Please select an order to save its invoice.");
+            return;
         }
+
+        int orderId = selected.getId();
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Save Invoice");
+        fileChooser.setInitialFileName("Invoice_" + orderId + ".pdf");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PDF Files", "*.pdf"));
+        File target = fileChooser.showSaveDialog(historyTable.getScene().getWindow());
+        if (target == null) {
+            return;
+        }
+
+        DbTaskExecutor.deliver(
+                DbTaskExecutor.getInstance().submit(() -> InvoiceService.getInstance().exportPdf(orderId, target.toPath())),
+                saved -> {
+                    if (saved) {
+                        showAlert("Invoice Saved", "Invoice of Order ID " + orderId + " saved as " + target.getName());
+                    } else {
+                        showAlert("Error", "Order ID " + orderId + " could not be found.");
+                    }
+                },
+                error -> {
+                    error.printStackTrace();
+                    showAlert("Error", "Could not save the invoice: " + error.getMessage());
+                });
     }
 
     /**
@@ -100,4 +246,17 @@ public class OrderHistoryController {
         alert.setContentText(content);
         alert.showAndWait();
     }
+
+    /**
+     * Invoice state of one order together with its stored text, if ready.
+     */
+    private static final class InvoiceLookup {
+        private final InvoiceJobDAO.Status status;
+        private final String invoice;
+
+        private InvoiceLookup(InvoiceJobDAO.Status status, String invoice) {
+            this.status = status;
+            this.invoice = invoice;
+        }
+    }
 }
\ No newline at end of file
@@ -47,6 +47,7 @@ public class OwnerController implements Initializable {
         // Handle user logout and redirection to the login screen
         btnLogout.setOnAction(e -> {
             Service.AuthService.getInstance().logout();
+            Service.SalesSnapshot.getInstance().clear();
             Utils.SceneManager.switchSceneStatic("/fxml/Login.fxml");
         });
     }
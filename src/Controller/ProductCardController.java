@@ -1,6 +1,7 @@
 package Controller;
 
 import Models.Product;
+import Service.DbTaskExecutor;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.Spinner;
@@ -9,7 +10,10 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.paint.Color;
 
-import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for a single product card UI component.
@@ -26,8 +30,21 @@ public class ProductCardController {
     @FXML private Label stockLabel;
     @FXML private Spinner<Double> amountSpinner;
 
+    // Decoded thumbnails shared by all (recycled) cards, keyed by product id and image hash.
+    // Only touched on the FX thread, so no locking is needed.
+    private static final int DECODED_CACHE_SIZE = 128;
+    private static final Map<String, Image> DECODED_THUMBNAILS = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Image> eldest) {
+            return size() > DECODED_CACHE_SIZE;
+        }
+    };
+
     private Product product;
 
+    // Thumbnail load in flight for the current product; cancelled when the card is rebound
+    private CompletableFuture<Image> pendingImage;
+
     /**
      * Initializes the controller class.
      * Configures the weight spinner to allow selection in 0.5 kg increments.
@@ -47,8 +64,14 @@ public class ProductCardController {
      * @param product The product model to be displayed on this card.
      */
     public void setProductData(Product product) {
+        Product previous = this.product;
         this.product = product;
 
+        // A recycled card shown for another product starts from the default amount again
+        if (previous != null && previous.getId() != product.getId()) {
+            amountSpinner.getValueFactory().setValue(1.0);
+        }
+
         productName.setText(product.getName());
 
         // Apply pricing business logic (checks stock threshold/Greedy rule)
@@ -65,10 +88,70 @@ public class ProductCardController {
             productPrice.setTextFill(Color.BLACK);
         }
 
-        // Load the product image if it exists
-        if (product.getJavaFXImage() != null) {
-            productImage.setImage(product.getJavaFXImage());
+        // Rebinding to the same product (e.g. while scrolling) keeps the image already shown
+        if (previous != null && previous.getId() == product.getId()
+                && Objects.equals(previous.getImageHash(), product.getImageHash())
+                && productImage.getImage() != null) {
+            return;
+        }
+
+        // Load the card-sized thumbnail (decoded once, off the FX thread)
+        loadThumbnail(product);
+    }
+
+    /**
+     * Fetches and decodes the product thumbnail in the background and shows it once ready.
+     * A result that arrives after the card has been bound to another product is dropped.
+     *
+     * @param target The product whose thumbnail should be shown.
+     */
+    private void loadThumbnail(Product target) {
+        if (pendingImage != null) {
+            pendingImage.cancel(false);
         }
+        pendingImage = null;
+
+        String cacheKey = target.getId() + ":" + target.getImageHash();
+        Image decoded = DECODED_THUMBNAILS.get(cacheKey);
+        productImage.setImage(decoded);
+        if (decoded != null || !target.hasImage()) {
+            return;
+        }
+
+        pendingImage = DbTaskExecutor.getInstance().submit(target::getThumbnailImage);
+        DbTaskExecutor.deliver(pendingImage, image -> {
+            if (image != null) {
+                DECODED_THUMBNAILS.put(cacheKey, image);
+            }
+            if (product == target && image != null) {
+                productImage.setImage(image);
+            }
+        }, e -> System.err.println("Could not load image for: " + target.getName()));
+    }
+
+    /**
+     * Opens the full-resolution product image in a separate window.
+     * The original image is only transferred and decoded when the customer asks for it.
+     */
+    @FXML
+    private void handleShowFullImage() {
+        if (product == null || !product.hasImage()) {
+            return;
+        }
+        Product target = product;
+        DbTaskExecutor.deliver(DbTaskExecutor.getInstance().submit(target::getJavaFXImage), image -> {
+            if (image == null) {
+                return;
+            }
+            ImageView fullView = new ImageView(image);
+            fullView.setPreserveRatio(true);
+            fullView.setFitWidth(Math.min(800, image.getWidth()));
+
+            javafx.stage.Stage stage = new javafx.stage.Stage();
+            stage.setTitle(target.getName());
+            stage.setScene(new javafx.scene.Scene(new javafx.scene.layout.StackPane(fullView)));
+            stage.show();
+        }, e -> System.err.println("Could not load full image for: " + target.getName()));
     }
 
     /**
@@ -0,0 +1,179 @@
+package Controller;
+
+import Models.Product;
+import javafx.fxml.FXMLLoader;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Virtualized grid of product cards used by the customer dashboard.
+ * Built on a {@link ListView} whose rows each hold a handful of cards, so only the rows in
+ * the visible viewport own card nodes. Cells (and the {@link ProductCardController}s inside
+ * them) are recycled while scrolling and rebound to other products instead of re-parsing
+ * ProductCard.fxml; filtering only rebuilds the lightweight row list.
+ */
+public final class ProductCardGrid extends ListView<ProductCardGrid.Row> {
+
+    // Must match the VBox in ProductCard.fxml
+    private static final double CARD_WIDTH = 180.0;
+    private static final double CARD_GAP = 20.0;
+    private static final double ROW_PADDING = 10.0;
+
+    private final List<Section> sections = new ArrayList<>();
+    private int columns = 1;
+
+    public ProductCardGrid() {
+        setCellFactory(listView -> new RowCell());
+        setFocusTraversable(false);
+        setStyle("-fx-background-color: #f9f9f9; -fx-selection-bar: transparent; -fx-selection-bar-non-focused: transparent;");
+
+        // Re-flow rows only when the number of cards that fit on a line changes
+        widthProperty().addListener((obs, oldWidth, newWidth) -> {
+            int fitting = computeColumns(newWidth.doubleValue());
+            if (fitting != columns) {
+                columns = fitting;
+                rebuildRows();
+            }
+        });
+    }
+
+    /**
+     * Replaces the displayed products. Existing cells are rebound to the new rows;
+     * no card nodes are created unless more rows become visible than before.
+     *
+     * @param newSections The titled sections to show, in display order.
+     */
+    public void setSections(List<Section> newSections) {
+        sections.clear();
+        sections.addAll(newSections);
+        rebuildRows();
+    }
+
+    private int computeColumns(double width) {
+        // Leave room for the vertical scroll bar
+        double usable = width - 2 * ROW_PADDING - 20.0;
+        return Math.max(1, (int) ((usable + CARD_GAP) / (CARD_WIDTH + CARD_GAP)));
+    }
+
+    private void rebuildRows() {
+        List<Row> rows = new ArrayList<>();
+        for (Section section : sections) {
+            rows.add(new Row(section, null));
+            List<Product> products = section.getProducts();
+            for (int i = 0; i < products.size(); i += columns) {
+                rows.add(new Row(null, products.subList(i, Math.min(i + columns, products.size()))));
+            }
+        }
+        getItems().setAll(rows);
+    }
+
+    /**
+     * A titled group of products, e.g. all vegetables matching the search.
+     */
+    public static final class Section {
+        private final String title;
+        private final Color titleColor;
+        private final List<Product> products;
+
+        public Section(String title, Color titleColor, List<Product> products) {
+            this.title = title;
+            this.titleColor = titleColor;
+            this.products = products;
+        }
+
+        public String getTitle() { return title; }
+        public Color getTitleColor() { return titleColor; }
+        public List<Product> getProducts() { return products; }
+    }
+
+    /**
+     * One line of the grid: either a section header or up to {@code columns} products.
+     */
+    public static final class Row {
+        private final Section header;
+        private final List<Product> products;
+
+        private Row(Section header, List<Product> products) {
+            this.header = header;
+            this.products = products;
+        }
+
+        public boolean isHeader() { return products == null; }
+        public Section getHeader() { return header; }
+        public List<Product> getProducts() { return products; }
+    }
+
+    /**
+     * Recycled row cell. Keeps its card nodes across updates and only loads another
+     * ProductCard.fxml when a row needs more cards than it has ever shown.
+     */
+    private static final class RowCell extends ListCell<Row> {
+        private final HBox cardBox = new HBox(CARD_GAP);
+        private final Label headerLabel = new Label();
+        private final List<Node> cardNodes = new ArrayList<>();
+        private final List<ProductCardController> cardControllers = new ArrayList<>();
+
+        private RowCell() {
+            cardBox.setPadding(new Insets(ROW_PADDING));
+            headerLabel.setFont(Font.font("System", FontWeight.BOLD, 16));
+            headerLabel.setPadding(new Insets(10, 0, 0, ROW_PADDING));
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        }
+
+        @Override
+        protected void updateItem(Row row, boolean empty) {
+            super.updateItem(row, empty);
+            setText(null);
+
+            if (empty || row == null) {
+                setGraphic(null);
+                return;
+            }
+            if (row.isHeader()) {
+                headerLabel.setText(row.getHeader().getTitle());
+                headerLabel.setTextFill(row.getHeader().getTitleColor());
+                setGraphic(headerLabel);
+                return;
+            }
+
+            List<Product> products = row.getProducts();
+            while (cardNodes.size() < products.size()) {
+                if (!addCard()) {
+                    break;
+                }
+            }
+
+            int shown = Math.min(products.size(), cardNodes.size());
+            for (int i = 0; i < shown; i++) {
+                cardControllers.get(i).setProductData(products.get(i));
+            }
+            cardBox.getChildren().setAll(cardNodes.subList(0, shown));
+            setGraphic(cardBox);
+        }
+
+        private boolean addCard() {
+            try {
+                FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/ProductCard.fxml"));
+                Node cardNode = loader.load();
+                cardNodes.add(cardNode);
+                cardControllers.add(loader.getController());
+                return true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.err.println("Error loading product card");
+                return false;
+            }
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package Controller;
 
-import Dao.DBProductDAO;
 import Dao.ProductDAO;
 import Models.Product;
+import Service.ProductService;
 import io.github.palexdev.materialfx.controls.MFXButton;
 import io.github.palexdev.materialfx.controls.MFXComboBox;
 import io.github.palexdev.materialfx.controls.MFXTextField;
@@ -44,7 +44,7 @@ public class ProductManagerController implements Initializable {
     @FXML private MFXButton btnUpdate;
     @FXML private MFXButton btnDelete;
 
-    private ProductDAO productDAO = new DBProductDAO();
+    private ProductDAO productDAO = ProductService.getInstance();
     private ObservableList<Product> productList;
     private String selectedImagePath = "";
 
@@ -151,9 +151,11 @@ public class ProductManagerController implements Initializable {
 
         // Update Product Logic
         btnUpdate.setOnAction(event -> {
-            Product selected = tableProducts.getSelectionModel().getSelectedItem();
-            if (selected != null) {
+            Product current = tableProducts.getSelectionModel().getSelectedItem();
+            if (current != null) {
                 try {
+                    // Edit a copy; the selected instance is the shared cached product
+                    Product selected = current.copy();
                     selected.setName(txtName.getText());
                     selected.setType(comboType.getValue());
                     selected.setPricePerKg(Double.parseDouble(txtPrice.getText()));
@@ -1,9 +1,13 @@
 package Controller;
 
 import Dao.DBUserDAO;
+import Dao.DaoMetrics;
 import Dao.UserDAO;
 import Models.User;
 import Service.AuthService;
+import Service.DbTaskExecutor;
+import Service.OrderHistoryPager;
+import Utils.InfiniteScroll;
 import io.github.palexdev.materialfx.controls.MFXPasswordField;
 import io.github.palexdev.materialfx.controls.MFXTextField;
 import javafx.fxml.FXML;
@@ -34,10 +38,11 @@ public class ProfileController {
 
     @FXML private javafx.scene.control.ListView<String> messageList;
 
-    private UserDAO userDAO = new DBUserDAO();
-    private Dao.OrderDao orderDao = new Dao.DBOrderDAO();
+    private UserDAO userDAO = DaoMetrics.wrap(UserDAO.class, new DBUserDAO());
     private Dao.MessageDao messageDao = new Dao.MessageDao();
     private User currentUser;
+    private OrderHistoryPager orderPager;
+    private boolean loadingOrders;
 
     /**
      * Initializes the controller class.
@@ -73,6 +78,9 @@ public class ProfileController {
         colStatus.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("status"));
         colTotal.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("totalAmount"));
         colDelivered.setCellValueFactory(new javafx.scene.control.cell.PropertyValueFactory<>("deliveredAt"));
+
+        orderTable.setItems(javafx.collections.FXCollections.observableArrayList());
+        InfiniteScroll.install(orderTable, this::loadMoreOrders);
     }
 
     /**
@@ -121,15 +129,41 @@ public class ProfileController {
     }
 
     /**
-     * Fetches order records for the current customer from the database.
+     * Shows the first page of the current customer's order history; further pages are
+     * loaded as the table is scrolled down.
      */
     private void loadOrders() {
         if (currentUser != null) {
-            java.util.List<Models.Order> orders = orderDao.getOrdersByCustomer(currentUser.getId());
-            orderTable.setItems(javafx.collections.FXCollections.observableArrayList(orders));
+            orderPager = new OrderHistoryPager(currentUser.getId());
+            orderTable.getItems().clear();
+            loadingOrders = false;
+            loadMoreOrders();
         }
     }
 
+    /**
+     * Appends the next page of orders, which the pager has usually prefetched already.
+     */
+    private void loadMoreOrders() {
+        if (orderPager == null || loadingOrders || !orderPager.hasMore()) {
+            return;
+        }
+        loadingOrders = true;
+        OrderHistoryPager pager = orderPager;
+        DbTaskExecutor.deliver(pager.nextPage(), orders -> {
+            if (pager != orderPager) {
+                return; // Refreshed meanwhile; the new pager is loading its own first page
+            }
+            loadingOrders = false;
+            orderTable.getItems().addAll(orders);
+        }, error -> {
+            if (pager == orderPager) {
+                loadingOrders = false;
+            }
+            error.printStackTrace();
+        });
+    }
+
     /**
      * Fetches message records for the current user and formats them for the ListView.
      */
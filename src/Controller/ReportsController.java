@@ -1,16 +1,21 @@
 package Controller;
 
-import Dao.DBReportDAO;
 import Dao.ReportDAO;
+import Service.AsyncDao;
+import Service.DbTaskExecutor;
+import Service.SalesSnapshot;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
+import javafx.scene.control.ComboBox;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.net.URL;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 
@@ -22,39 +27,95 @@ public class ReportsController implements Initializable {
     @FXML
     private BarChart<String, Number> barChartIncome; // Çubuk grafik (Gelir)
 
-    private ReportDAO reportDAO = new DBReportDAO();
+    @FXML
+    private ComboBox<String> comboRange; // Gelir grafiğinin tarih aralığı
+
+    @FXML
+    private ComboBox<String> comboCategory; // Tüm siparişler veya tek ürün tipi
+
+    private static final String RANGE_WEEK = "Last 7 days";
+    private static final String RANGE_MONTH = "Last 30 days";
+    private static final String RANGE_QUARTER = "Last 90 days";
+    private static final String RANGE_YEAR = "Last 365 days";
+    private static final String ALL_CATEGORIES = "All products";
+
+    private AsyncDao<ReportDAO> reportDAO = AsyncDao.reports();
+    private final SalesSnapshot salesSnapshot = SalesSnapshot.getInstance();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        comboRange.setItems(FXCollections.observableArrayList(RANGE_WEEK, RANGE_MONTH, RANGE_QUARTER, RANGE_YEAR));
+        comboRange.setValue(RANGE_WEEK);
+        comboCategory.setItems(FXCollections.observableArrayList(ALL_CATEGORIES, "FRUIT", "VEGETABLE"));
+        comboCategory.setValue(ALL_CATEGORIES);
+        // Aralık veya kategori değişince grafik bellekteki snapshot'tan yeniden çizilir, veritabanına gidilmez
+        comboRange.valueProperty().addListener((obs, oldValue, newValue) -> showIncomeChart());
+        comboCategory.valueProperty().addListener((obs, oldValue, newValue) -> showIncomeChart());
+
         loadStockChart();
         loadIncomeChart();
     }
 
     private void loadStockChart() {
+        pieChartStock.setTitle("Stock Distribution (Kg)");
+        DbTaskExecutor.deliver(reportDAO.supply(ReportDAO::getStockDistribution),
+                this::showStockChart, e -> System.err.println("Stock report failed: " + e.getMessage()));
+    }
+
+    private void showStockChart(Map<String, Double> data) {
         ObservableList<PieChart.Data> pieData = FXCollections.observableArrayList();
-        Map<String, Double> data = reportDAO.getStockDistribution();
 
         for (Map.Entry<String, Double> entry : data.entrySet()) {
             pieData.add(new PieChart.Data(entry.getKey(), entry.getValue()));
         }
 
         pieChartStock.setData(pieData);
-        pieChartStock.setTitle("Stock Distribution (Kg)");
     }
 
+    /**
+     * Brings the sales snapshot up to date (a delta after the owner login loaded it) and draws
+     * the income chart from it. Without a snapshot the weekly income comes from the database.
+     */
     private void loadIncomeChart() {
+        barChartIncome.setTitle("Income Analysis");
+        DbTaskExecutor.deliver(DbTaskExecutor.getInstance().submit(salesSnapshot::refresh), loaded -> {
+            if (loaded) {
+                showIncomeChart();
+            } else {
+                comboRange.setDisable(true);
+                comboCategory.setDisable(true);
+                DbTaskExecutor.deliver(reportDAO.supply(ReportDAO::getDailyIncome),
+                        this::showIncomeSeries, e -> System.err.println("Income report failed: " + e.getMessage()));
+            }
+        }, e -> System.err.println("Income report failed: " + e.getMessage()));
+    }
+
+    private void showIncomeChart() {
+        if (!salesSnapshot.isLoaded()) {
+            return;
+        }
+        int days;
+        switch (comboRange.getValue()) {
+            case RANGE_MONTH: days = 30; break;
+            case RANGE_QUARTER: days = 90; break;
+            case RANGE_YEAR: days = 365; break;
+            default: days = 7;
+        }
+        String category = ALL_CATEGORIES.equals(comboCategory.getValue()) ? null : comboCategory.getValue();
+
+        LocalDate today = LocalDate.now();
+        showIncomeSeries(salesSnapshot.getDailyRevenue(today.minusDays(days - 1), today, category));
+    }
+
+    private void showIncomeSeries(Map<String, Double> data) {
         XYChart.Series<String, Number> series = new XYChart.Series<>();
         series.setName("Daily Revenue");
 
-        Map<String, Double> data = reportDAO.getDailyIncome();
-
-        // Map sırasız olduğu için günleri sırayla eklemek istersek farklı logic gerekir
-        // Ama şimdilik mock olduğu için direkt döngüyle ekliyoruz
+        // Map tarih sırasıyla geliyor, günler sırayla eklenir
         for (Map.Entry<String, Double> entry : data.entrySet()) {
             series.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
         }
 
-        barChartIncome.getData().add(series);
-        barChartIncome.setTitle("Weekly Income Analysis");
+        barChartIncome.getData().setAll(List.of(series));
     }
-}
\ No newline at end of file
+}
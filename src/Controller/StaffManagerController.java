@@ -1,6 +1,7 @@
 package Controller;
 
 import Dao.DBUserDAO;
+import Dao.DaoMetrics;
 import Dao.UserDAO;
 import Models.User;
 import io.github.palexdev.materialfx.controls.MFXButton;
@@ -34,7 +35,7 @@ public class StaffManagerController implements Initializable {
     @FXML private MFXButton btnHire;
     @FXML private MFXButton btnFire;
 
-    private UserDAO userDAO = new DBUserDAO();
+    private UserDAO userDAO = DaoMetrics.wrap(UserDAO.class, new DBUserDAO());
     private ObservableList<User> carrierList;
 
     @Override
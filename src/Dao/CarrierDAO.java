@@ -14,6 +14,9 @@ import java.util.List;
  */
 public class CarrierDAO {
 
+    private final LoyaltyDAO loyaltyDAO = new LoyaltyDAO();
+    private final DailySalesDAO dailySalesDAO = new DailySalesDAO();
+
     /**
      * Boştaki (kurye atanmamış) siparişleri listeler. [cite: 56, 121]
      * @return Mevcut siparişlerin listesi.
@@ -63,6 +66,46 @@ public class CarrierDAO {
         return orders;
     }
 
+    /**
+     * Sipariş tablosunun güncel sürümünü (en büyük updated_at) döndürür.
+     * Değişiklik akışı (Service.OrderChangeFeed) tam yüklemeden önce bu değeri okur.
+     * @return En son değişiklik zamanı; tablo boşsa null.
+     * @throws SQLException updated_at kolonu yoksa (Utils.FixSchema çalıştırılmalı).
+     */
+    public Timestamp getOrderVersion() throws SQLException {
+        String sql = "SELECT MAX(updated_at) FROM group09_greengrocer.order_info";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getTimestamp(1) : null;
+        }
+    }
+
+    /**
+     * Verilen zamandan (dahil) sonra değişen siparişleri getirir.
+     * Başka kuryeye geçen siparişler de döner; istemci bunları listelerinden çıkarır.
+     * @param since Alt sınır (dahil).
+     * @return Değişen siparişler ve her birinin updated_at değeri, zamana göre sıralı.
+     * @throws SQLException updated_at kolonu yoksa (Utils.FixSchema çalıştırılmalı).
+     */
+    public List<OrderChange> getOrdersChangedSince(Timestamp since) throws SQLException {
+        List<OrderChange> changes = new ArrayList<>();
+        String sql = "SELECT * FROM group09_greengrocer.order_info WHERE updated_at >= ? ORDER BY updated_at, id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setTimestamp(1, since);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    changes.add(new OrderChange(mapResultSetToOrder(rs), rs.getTimestamp("updated_at")));
+                }
+            }
+        }
+        return changes;
+    }
+
     /**
      * Bir siparişi kuryeye zimmetler.
      * Hata Yönetimi: Aynı siparişin iki kurye tarafından seçilmesini SQL seviyesinde engeller. [cite: 57, 158]
@@ -87,15 +130,48 @@ public class CarrierDAO {
 
     /**
      * Siparişi teslim edildi olarak işaretler ve teslimat zamanını kaydeder. [cite: 58, 123]
+     * Müşterinin sadakat sayacı (customer_loyalty) ve günlük satış özeti (daily_sales) aynı
+     * transaction içinde güncellenir; zaten tamamlanmış bir sipariş ikinci kez sayılmaz.
+     * @return Sipariş bu çağrıyla tamamlandıysa true.
      */
     public boolean completeOrder(int orderId) {
-        String sql = "UPDATE group09_greengrocer.order_info SET status = 'DELIVERED', delivered_at = CURRENT_TIMESTAMP WHERE id = ?";
+        String sql = "UPDATE group09_greengrocer.order_info SET status = 'DELIVERED', delivered_at = CURRENT_TIMESTAMP " +
+                "WHERE id = ? AND status NOT IN (" + LoyaltyDAO.COMPLETED_STATUSES + ")";
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, orderId);
-            return ps.executeUpdate() > 0;
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setInt(1, orderId);
+                if (ps.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+                try {
+                    loyaltyDAO.incrementForOrder(conn, orderId);
+                } catch (SQLException e) {
+                    if (!LoyaltyDAO.isMissingTable(e)) {
+                        throw e;
+                    }
+                    // Tablo yoksa teslimat yine kaydedilir; sayaçlar tools.LoyaltyLedgerTool rebuild ile doldurulur
+                    System.err.println("CarrierDAO: customer_loyalty table missing, run Utils.FixSchema.");
+                }
+                try {
+                    // Satış özetinde (daily_sales) siparişin gününe teslim edilen sipariş olarak eklenir
+                    dailySalesDAO.applyOrders(conn, List.of(orderId), 0, 1);
+                } catch (SQLException e) {
+                    if (!DailySalesDAO.isMissingTable(e)) {
+                        throw e;
+                    }
+                    System.err.println("CarrierDAO: daily_sales table missing, run Utils.FixSchema.");
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -131,13 +207,36 @@ public class CarrierDAO {
 
     /**
      * ALTYAPI GÖREVİ: Resim dosyalarını BLOB olarak kaydetmek için yardımcı metot. [cite: 44, 135]
+     * Kart görünümü için küçük boyutlu kopya (thumb_blob) da aynı anda kaydedilir.
      */
     public void saveImage(int productId, byte[] imageBytes) throws SQLException {
-        String sql = "UPDATE group09_greengrocer.product_info SET image_blob = ? WHERE id = ?";
+        Utils.ThumbnailGenerator.Thumbnail thumb = Utils.ThumbnailGenerator.createThumbnail(imageBytes);
+        try {
+            writeImage(productId, imageBytes, thumb);
+        } catch (SQLException e) {
+            // Migrate edilmemiş veritabanı: küçük kopya olmadan kaydet
+            if (!DBProductDAO.isMissingThumbnailColumns(e)) {
+                throw e;
+            }
+            writeImage(productId, imageBytes, thumb);
+        }
+    }
+
+    private void writeImage(int productId, byte[] imageBytes, Utils.ThumbnailGenerator.Thumbnail thumb) throws SQLException {
+        boolean withThumbnail = !DBProductDAO.thumbnailColumnsMissing();
+        String sql = withThumbnail
+                ? "UPDATE group09_greengrocer.product_info SET image_blob = ?, thumb_blob = ?, thumb_mime = ? WHERE id = ?"
+                : "UPDATE group09_greengrocer.product_info SET image_blob = ? WHERE id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setBytes(1, imageBytes);
-            ps.setInt(2, productId);
+            if (withThumbnail) {
+                ps.setBytes(2, thumb != null ? thumb.getBytes() : null);
+                ps.setString(3, thumb != null ? thumb.getMimeType() : null);
+                ps.setInt(4, productId);
+            } else {
+                ps.setInt(2, productId);
+            }
             ps.executeUpdate();
         }
     }
@@ -150,6 +249,9 @@ public class CarrierDAO {
         order.setId(rs.getInt("id"));
         order.setCustomerId(rs.getInt("customer_id"));
 
+        int carrierId = rs.getInt("carrier_id");
+        order.setCarrierId(rs.wasNull() ? null : carrierId);
+
         Timestamp orderTime = rs.getTimestamp("order_time");
         if (orderTime != null) order.setOrderTime(orderTime.toLocalDateTime());
 
@@ -166,4 +268,20 @@ public class CarrierDAO {
 
         return order;
     }
-}
\ No newline at end of file
+
+    /**
+     * Değişiklik akışındaki bir satır: sipariş ve son değişiklik zamanı.
+     */
+    public static final class OrderChange {
+        private final Order order;
+        private final Timestamp updatedAt;
+
+        public OrderChange(Order order, Timestamp updatedAt) {
+            this.order = order;
+            this.updatedAt = updatedAt;
+        }
+
+        public Order getOrder() { return order; }
+        public Timestamp getUpdatedAt() { return updatedAt; }
+    }
+}
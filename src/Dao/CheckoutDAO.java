@@ -0,0 +1,323 @@
+package Dao;
+
+import Database.DatabaseConnection;
+import Database.InList;
+import Models.Order;
+import Models.OrderItem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Places orders in a single transaction on a single pooled connection.
+ *
+ * Stock check, stock decrement, order header, order lines and invoice job either all commit or all
+ * roll back. The invoice itself is rendered later by Service.InvoiceService; the job row makes sure
+ * it is, even across restarts. The statements are shaped to keep round trips to a minimum regardless of cart size,
+ * and of how many orders are written together (see Service.OrderWriter):
+ * <ol>
+ *     <li>lock and read the stock of every ordered product (SELECT ... FOR UPDATE)</li>
+ *     <li>decrement all stock in one UPDATE with a CASE expression</li>
+ *     <li>insert the order headers in one multi-row INSERT</li>
+ *     <li>insert all order lines in one multi-row INSERT</li>
+ *     <li>queue the invoice jobs in one multi-row INSERT (see {@link InvoiceJobDAO})</li>
+ *     <li>add the orders to the daily sales rollup in one statement (see {@link DailySalesDAO})</li>
+ * </ol>
+ * An order with a line that lacks stock is left out and every short line is reported;
+ * the other orders of the batch are still placed.
+ */
+public class CheckoutDAO {
+
+    private final DailySalesDAO dailySalesDAO = new DailySalesDAO();
+
+    /**
+     * Places several orders in one transaction. Orders are served in list order, so when two
+     * of them compete for the last kilos of a product the earlier one wins.
+     *
+     * @param requests The orders to place.
+     * @return One entry per request, in the same order: empty if the order was placed,
+     *         otherwise the lines that lacked stock.
+     * @throws SQLException If the transaction failed; it was rolled back and no order was placed.
+     */
+    public List<List<StockShortage>> placeOrders(List<CheckoutRequest> requests) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Lock rows in id order so concurrent batches cannot deadlock each other
+            Map<Integer, Double> stock = new TreeMap<>();
+            Map<Integer, String> names = new HashMap<>();
+            for (CheckoutRequest request : requests) {
+                for (OrderItem item : request.getOrder().getItems()) {
+                    stock.put(item.getProductId(), 0.0);
+                }
+            }
+            lockStock(conn, stock, names);
+
+            List<List<StockShortage>> results = new ArrayList<>();
+            List<CheckoutRequest> accepted = new ArrayList<>();
+            Map<Integer, Double> sold = new TreeMap<>();
+            for (CheckoutRequest request : requests) {
+                List<StockShortage> shortages = reserveStock(request.getOrder(), stock, names, sold);
+                results.add(shortages);
+                if (shortages.isEmpty()) {
+                    accepted.add(request);
+                }
+            }
+            if (accepted.isEmpty()) {
+                conn.rollback();
+                return results;
+            }
+
+            decreaseStock(conn, sold);
+            insertOrders(conn, accepted);
+            insertItems(conn, accepted);
+            insertInvoiceJobs(conn, accepted);
+            addToDailySales(conn, accepted);
+
+            conn.commit();
+            System.out.println("DB: " + accepted.size() + " order(s) placed in one transaction");
+            return results;
+
+        } catch (SQLException | RuntimeException e) {
+            if (conn != null) {
+                try {
+                    conn.rollback();
+                } catch (SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                try {
+                    conn.setAutoCommit(true);
+                    conn.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void lockStock(Connection conn, Map<Integer, Double> stock, Map<Integer, String> names) throws SQLException {
+        String sql = "SELECT id, name, stock_kg FROM group09_greengrocer.product_info WHERE id IN ("
+                + InList.placeholders(stock.size()) + ") ORDER BY id FOR UPDATE";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            InList.bind(ps, 1, stock.keySet());
+            // Products that no longer exist keep a stock of 0
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    stock.put(rs.getInt("id"), rs.getDouble("stock_kg"));
+                    names.put(rs.getInt("id"), rs.getString("name"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks one order against the stock left by the orders before it and, if every line fits,
+     * takes its amounts out of {@code stock} and adds them to {@code sold}.
+     */
+    private List<StockShortage> reserveStock(Order order, Map<Integer, Double> stock, Map<Integer, String> names,
+                                             Map<Integer, Double> sold) {
+        // Several cart lines may refer to the same product; stock is checked against their sum
+        Map<Integer, Double> requested = new LinkedHashMap<>();
+        for (OrderItem item : order.getItems()) {
+            requested.merge(item.getProductId(), item.getAmountKg(), Double::sum);
+        }
+
+        List<StockShortage> shortages = new ArrayList<>();
+        for (Map.Entry<Integer, Double> line : requested.entrySet()) {
+            double available = stock.get(line.getKey());
+            if (available < line.getValue()) {
+                shortages.add(new StockShortage(line.getKey(), names.get(line.getKey()), line.getValue(), available));
+            }
+        }
+        if (shortages.isEmpty()) {
+            for (Map.Entry<Integer, Double> line : requested.entrySet()) {
+                stock.merge(line.getKey(), -line.getValue(), Double::sum);
+                sold.merge(line.getKey(), line.getValue(), Double::sum);
+            }
+        }
+        return shortages;
+    }
+
+    private void decreaseStock(Connection conn, Map<Integer, Double> sold) throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE group09_greengrocer.product_info SET stock_kg = stock_kg - CASE id");
+        for (int i = 0; i < sold.size(); i++) {
+            sql.append(" WHEN ? THEN ?");
+        }
+        sql.append(" END WHERE id IN (").append(placeholders(sold.size())).append(")");
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            // One text per number of products; not worth a slot in the statement cache
+            ps.setPoolable(false);
+            int index = 1;
+            for (Map.Entry<Integer, Double> line : sold.entrySet()) {
+                ps.setInt(index++, line.getKey());
+                ps.setDouble(index++, line.getValue());
+            }
+            for (Integer productId : sold.keySet()) {
+                ps.setInt(index++, productId);
+            }
+            int updated = ps.executeUpdate();
+            if (updated != sold.size()) {
+                throw new SQLException("Stock update touched " + updated + " of " + sold.size() + " products");
+            }
+        }
+    }
+
+    private void insertOrders(Connection conn, List<CheckoutRequest> accepted) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO group09_greengrocer.order_info (customer_id, carrier_id, order_time, requested_delivery_time, delivered_at, status, total_amount, customer_address_snapshot, loyalty_discount_percent) VALUES ");
+        for (int i = 0; i < accepted.size(); i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS)) {
+            ps.setPoolable(false);
+            int index = 1;
+            for (CheckoutRequest request : accepted) {
+                Order order = request.getOrder();
+                ps.setInt(index++, order.getCustomerId());
+                if (order.getCarrierId() != null && order.getCarrierId() > 0) {
+                    ps.setInt(index++, order.getCarrierId());
+                } else {
+                    ps.setNull(index++, Types.INTEGER);
+                }
+                ps.setTimestamp(index++, Timestamp.valueOf(order.getOrderTime()));
+                ps.setTimestamp(index++, order.getRequestedDeliveryTime() != null ? Timestamp.valueOf(order.getRequestedDeliveryTime()) : null);
+                ps.setTimestamp(index++, order.getDeliveredAt() != null ? Timestamp.valueOf(order.getDeliveredAt()) : null);
+                ps.setString(index++, order.getStatus());
+                ps.setDouble(index++, order.getTotalAmount());
+                ps.setString(index++, order.getCustomerAddressSnapshot());
+                ps.setDouble(index++, order.getLoyaltyDiscountPercent());
+            }
+            ps.executeUpdate();
+
+            // A multi-row INSERT reserves its auto-increment values in row order
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                for (CheckoutRequest request : accepted) {
+                    if (!keys.next()) {
+                        throw new SQLException("No ID obtained for Order! Is AUTO_INCREMENT set on order_info.id?");
+                    }
+                    request.getOrder().setId(keys.getInt(1));
+                }
+            }
+        }
+    }
+
+    private void insertItems(Connection conn, List<CheckoutRequest> accepted) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO group09_greengrocer.order_item (order_id, product_id, amount_kg, unit_price, line_total) VALUES ");
+        int rows = 0;
+        for (CheckoutRequest request : accepted) {
+            for (int i = 0; i < request.getOrder().getItems().size(); i++) {
+                sql.append(rows++ == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+            }
+        }
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            ps.setPoolable(false);
+            int index = 1;
+            for (CheckoutRequest request : accepted) {
+                Order order = request.getOrder();
+                for (OrderItem item : order.getItems()) {
+                    ps.setInt(index++, order.getId());
+                    ps.setInt(index++, item.getProductId());
+                    ps.setDouble(index++, item.getAmountKg());
+                    ps.setDouble(index++, item.getUnitPrice());
+                    ps.setDouble(index++, item.getLineTotal());
+                }
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    private void insertInvoiceJobs(Connection conn, List<CheckoutRequest> accepted) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO group09_greengrocer.invoice_job (order_id) VALUES ");
+        for (int i = 0; i < accepted.size(); i++) {
+            sql.append(i == 0 ? "(?)" : ", (?)");
+        }
+
+        // MySQL only rolls back the failed statement, so the orders survive a missing job table
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            // One text per batch size; not worth a slot in the statement cache
+            ps.setPoolable(false);
+            int index = 1;
+            for (CheckoutRequest request : accepted) {
+                ps.setInt(index++, request.getOrder().getId());
+            }
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            if (!InvoiceJobDAO.isMissingTable(e)) {
+                throw e;
+            }
+            System.err.println("CheckoutDAO: invoice_job table missing, run Utils.FixSchema. Invoices were not queued.");
+        }
+    }
+
+    private void addToDailySales(Connection conn, List<CheckoutRequest> accepted) throws SQLException {
+        List<Integer> orderIds = new ArrayList<>(accepted.size());
+        for (CheckoutRequest request : accepted) {
+            orderIds.add(request.getOrder().getId());
+        }
+        try {
+            dailySalesDAO.applyOrders(conn, orderIds, 1, 1);
+        } catch (SQLException e) {
+            if (!DailySalesDAO.isMissingTable(e)) {
+                throw e;
+            }
+            System.err.println("CheckoutDAO: daily_sales table missing, run Utils.FixSchema.");
+        }
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 3);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * One order handed to {@link #placeOrders}.
+     */
+    public static final class CheckoutRequest {
+        private final Order order;
+
+        public CheckoutRequest(Order order) {
+            this.order = order;
+        }
+
+        public Order getOrder() { return order; }
+    }
+
+    /**
+     * A cart line that could not be fulfilled.
+     */
+    public static final class StockShortage {
+        private final int productId;
+        private final String productName;
+        private final double requestedKg;
+        private final double availableKg;
+
+        public StockShortage(int productId, String productName, double requestedKg, double availableKg) {
+            this.productId = productId;
+            this.productName = productName;
+            this.requestedKg = requestedKg;
+            this.availableKg = availableKg;
+        }
+
+        public int getProductId() { return productId; }
+        public String getProductName() { return productName; }
+        public double getRequestedKg() { return requestedKg; }
+        public double getAvailableKg() { return availableKg; }
+    }
+}
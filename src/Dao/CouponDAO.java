@@ -1,10 +1,18 @@
 package Dao;
 
 import Models.Coupon;
+
+import java.sql.SQLException;
 import java.util.List;
 
 public interface CouponDAO {
     List<Coupon> getAllCoupons();
+
+    /**
+     * Like {@link #getAllCoupons()}, but a failed query throws instead of looking like an empty table.
+     */
+    List<Coupon> loadAllCoupons() throws SQLException;
+
     Coupon getCouponByCode(String code);
     void addCoupon(Coupon coupon);
     void deleteCoupon(int id);
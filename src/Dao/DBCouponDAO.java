@@ -10,6 +10,17 @@ public class DBCouponDAO implements CouponDAO {
 
     @Override
     public List<Coupon> getAllCoupons() {
+        try {
+            return loadAllCoupons();
+        } catch (SQLException e) {
+            System.err.println("Error fetching coupons: " + e.getMessage());
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<Coupon> loadAllCoupons() throws SQLException {
         List<Coupon> coupons = new ArrayList<>();
         String sql = "SELECT * FROM group09_greengrocer.coupon"; // Assuming table name is coupons
 
@@ -20,9 +31,6 @@ public class DBCouponDAO implements CouponDAO {
             while (rs.next()) {
                 coupons.add(mapResultSetToCoupon(rs));
             }
-        } catch (SQLException e) {
-            System.err.println("Error fetching coupons: " + e.getMessage());
-            e.printStackTrace();
         }
         return coupons;
     }
@@ -49,7 +57,7 @@ public class DBCouponDAO implements CouponDAO {
     public void addCoupon(Coupon coupon) {
         String sql = "INSERT INTO group09_greengrocer.coupon (code, discount_percent, min_total, valid_from, valid_to, is_active) VALUES (?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setString(1, coupon.getCode());
             ps.setDouble(2, coupon.getDiscountPercent());
@@ -60,6 +68,12 @@ public class DBCouponDAO implements CouponDAO {
             ps.setBoolean(6, coupon.isActive());
 
             ps.executeUpdate();
+            // The id lets callers (e.g. Service.CouponService) track the new row
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    coupon.setId(keys.getInt(1));
+                }
+            }
             System.out.println("DB: Coupon added -> " + coupon.getCode());
 
         } catch (SQLException e) {
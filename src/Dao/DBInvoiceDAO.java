@@ -1,32 +1,156 @@
 package Dao;
 
 import Database.DatabaseConnection;
+import Utils.InvoiceCodec;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.util.Arrays;
 
 public class DBInvoiceDAO implements InvoiceDAO {
 
+    private static final byte[] PDF_MAGIC = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public String getInvoiceText(int orderId) {
+        StringWriter out = new StringWriter();
+        try {
+            return writeInvoiceTo(orderId, out) ? out.toString() : null;
+        } catch (IOException e) {
+            System.err.println("DBInvoiceDAO: Invoice of Order ID " + orderId + " is unreadable: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Streams an invoice into a writer, decompressing it on the way, so the stored bytes and
+     * the text are never both held in memory. Rows not yet compacted by tools.InvoiceCompactor
+     * are read from invoice_text.
+     *
+     * @param orderId The order.
+     * @param out     Receives the invoice text.
+     * @return False if the order has no invoice, or only a PDF (see {@link #writePdfTo}).
+     * @throws IOException If the stored invoice is damaged (checksum mismatch) or writing fails.
+     */
     @Override
-    public void saveInvoice(int orderId, String invoiceText) {
-        // Save to BOTH invoice_text and pdf_blob to ensure visibility and meet blob requirement
-        String sql = "INSERT INTO group09_greengrocer.invoice (order_id, invoice_text, pdf_blob, created_at) VALUES (?, ?, ?, ?)";
+    public boolean writeInvoiceTo(int orderId, Writer out) throws IOException {
+        String sql = "SELECT invoice_text, pdf_blob FROM group09_greengrocer.invoice WHERE order_id = ?";
 
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
             ps.setInt(1, orderId);
-            ps.setCharacterStream(2, new java.io.StringReader(invoiceText), invoiceText.length());
-            ps.setBytes(3, invoiceText.getBytes()); // Save as BLOB too
-            ps.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                try (Reader legacy = rs.getCharacterStream("invoice_text")) {
+                    if (legacy != null) {
+                        legacy.transferTo(out);
+                        return true;
+                    }
+                }
+                try (InputStream blob = rs.getBinaryStream("pdf_blob")) {
+                    if (blob == null) {
+                        return false;
+                    }
+                    BufferedInputStream stored = new BufferedInputStream(blob);
+                    if (isPdf(stored)) {
+                        return false;
+                    }
+                    try (Reader reader = InvoiceCodec.openReader(stored)) {
+                        reader.transferTo(out);
+                    }
+                    return true;
+                }
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Streams the PDF of an invoice (see Utils.InvoicePdfRenderer) into an output stream.
+     *
+     * @param orderId The order.
+     * @param out     Receives the document; not closed.
+     * @return False if the order has no PDF invoice (none yet, or stored in the text format).
+     * @throws IOException If writing fails.
+     */
+    @Override
+    public boolean writePdfTo(int orderId, OutputStream out) throws IOException {
+        String sql = "SELECT pdf_blob FROM group09_greengrocer.invoice WHERE order_id = ?";
 
-            ps.executeUpdate();
-            System.out.println("DB: Invoice saved (Text & BLOB) for Order ID: " + orderId);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                try (InputStream blob = rs.getBinaryStream("pdf_blob")) {
+                    if (blob == null) {
+                        return false;
+                    }
+                    BufferedInputStream stored = new BufferedInputStream(blob);
+                    if (!isPdf(stored)) {
+                        return false;
+                    }
+                    stored.transferTo(out);
+                    return true;
+                }
+            }
 
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
     }
+
+    /**
+     * Checks whether an order has a stored PDF invoice, reading only its first bytes.
+     *
+     * @param orderId The order.
+     * @return False if the order has no invoice, or only a text one.
+     */
+    @Override
+    public boolean hasPdf(int orderId) {
+        String sql = "SELECT SUBSTRING(pdf_blob, 1, " + PDF_MAGIC.length + ") FROM group09_greengrocer.invoice WHERE order_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, orderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && Arrays.equals(rs.getBytes(1), PDF_MAGIC);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Peeks at the start of a stored invoice; the stream is left at its start.
+     */
+    private static boolean isPdf(BufferedInputStream stored) throws IOException {
+        stored.mark(PDF_MAGIC.length);
+        byte[] start = stored.readNBytes(PDF_MAGIC.length);
+        stored.reset();
+        return Arrays.equals(start, PDF_MAGIC);
+    }
 }
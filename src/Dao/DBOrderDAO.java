@@ -9,6 +9,8 @@ import java.util.List;
 
 public class DBOrderDAO implements OrderDao {
 
+    private final DailySalesDAO dailySalesDAO = new DailySalesDAO();
+
     @Override
     public void saveOrder(Order order) {
         String insertOrderSQL = "INSERT INTO group09_greengrocer.order_info (customer_id, carrier_id, order_time, requested_delivery_time, delivered_at, status, total_amount, customer_address_snapshot, loyalty_discount_percent) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
@@ -59,6 +61,7 @@ public class DBOrderDAO implements OrderDao {
                     psItem.addBatch();
                 }
                 psItem.executeBatch();
+                updateDailySales(conn, orderId, 1);
             } else {
                 System.err.println("DB Error: No ID obtained for Order! Is AUTO_INCREMENT set on order_info.id?");
             }
@@ -128,6 +131,59 @@ public class DBOrderDAO implements OrderDao {
         }
         return orders;
     }
+
+    /**
+     * Returns one page of a customer's order history, newest first, with only the columns the
+     * history tables and the invoice summary use (id, order_time, status, total_amount,
+     * delivered_at, customer_address_snapshot). The lines are not read.
+     *
+     * Keyset paging: the next page starts right after the last order of the previous one, so
+     * every page is one range scan on idx_order_customer_history (customer_id, order_time, id)
+     * however deep the customer has scrolled, and orders placed meanwhile do not shift pages.
+     *
+     * @param customerId The customer.
+     * @param after      The last order of the previous page, or null for the first page.
+     * @param limit      Maximum number of orders to return.
+     * @return The orders; fewer than {@code limit} on the last page.
+     * @throws SQLException If the query fails; an empty page would end the customer's history.
+     */
+    @Override
+    public List<Order> getOrderHistoryPage(int customerId, Order after, int limit) throws SQLException {
+        List<Order> orders = new ArrayList<>(limit);
+        String sql = "SELECT id, order_time, status, total_amount, delivered_at, customer_address_snapshot FROM group09_greengrocer.order_info " +
+                "WHERE customer_id = ?" + (after != null ? " AND (order_time, id) < (?, ?)" : "") +
+                " ORDER BY order_time DESC, id DESC LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            ps.setInt(index++, customerId);
+            if (after != null) {
+                ps.setTimestamp(index++, Timestamp.valueOf(after.getOrderTime()));
+                ps.setInt(index++, after.getId());
+            }
+            ps.setInt(index, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Order order = new Order();
+                    order.setId(rs.getInt("id"));
+                    order.setCustomerId(customerId);
+                    order.setOrderTime(rs.getTimestamp("order_time").toLocalDateTime());
+                    order.setStatus(rs.getString("status"));
+                    order.setTotalAmount(rs.getDouble("total_amount"));
+                    order.setCustomerAddressSnapshot(rs.getString("customer_address_snapshot"));
+
+                    Timestamp delAt = rs.getTimestamp("delivered_at");
+                    if (delAt != null) order.setDeliveredAt(delAt.toLocalDateTime());
+
+                    orders.add(order);
+                }
+            }
+        }
+        return orders;
+    }
+
     @Override
     public List<Order> getAvailableOrders() {
         List<Order> orders = new ArrayList<>();
@@ -161,18 +217,50 @@ public class DBOrderDAO implements OrderDao {
         return orders;
     }
 
+    /**
+     * Changes the status of an order. The daily sales rollup is corrected in the same
+     * transaction: the order is taken out with its old status and added back with the new one,
+     * so a cancellation removes it and a delivery counts it as delivered.
+     */
     @Override
     public void updateOrderStatus(int orderId, String status, int carrierId) {
         String sql = "UPDATE group09_greengrocer.order_info SET status = ?, carrier_id = ? WHERE id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, status);
-            ps.setInt(2, carrierId);
-            ps.setInt(3, orderId);
-            ps.executeUpdate();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                boolean rollup = updateDailySales(conn, orderId, -1);
+                ps.setString(1, status);
+                ps.setInt(2, carrierId);
+                ps.setInt(3, orderId);
+                ps.executeUpdate();
+                if (rollup) {
+                    updateDailySales(conn, orderId, 1);
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (SQLException e) { e.printStackTrace(); }
     }
 
+    /**
+     * @return False if the rollup table does not exist yet.
+     */
+    private boolean updateDailySales(Connection conn, int orderId, int sign) throws SQLException {
+        try {
+            dailySalesDAO.applyOrders(conn, List.of(orderId), sign, sign);
+            return true;
+        } catch (SQLException e) {
+            if (!DailySalesDAO.isMissingTable(e)) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
     @Override
     public int getCompletedOrderCount(int customerId) {
         String sql = "SELECT COUNT(*) FROM group09_greengrocer.order_info WHERE customer_id = ? AND status IN ('DELIVERED', 'COMPLETED')";
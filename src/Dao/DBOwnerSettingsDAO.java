@@ -6,11 +6,22 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 
 public class DBOwnerSettingsDAO implements OwnerSettingsDAO {
 
     @Override
     public OwnerSettings getSettings() {
+        try {
+            return loadSettings();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    @Override
+    public OwnerSettings loadSettings() throws SQLException {
         OwnerSettings settings = null;
         String sql = "SELECT * FROM group09_greengrocer.owner_settings LIMIT 1";
 
@@ -24,11 +35,28 @@ public class DBOwnerSettingsDAO implements OwnerSettingsDAO {
                 settings.setMinCartValue(rs.getDouble("min_cart_value"));
                 settings.setLoyaltyMinCompleted(rs.getInt("loyalty_min_completed"));
                 settings.setLoyaltyDiscountPercent(rs.getDouble("loyalty_discount_percent"));
+                settings.setVatRate(rs.getDouble("vat_rate"));
+                Timestamp updatedAt = rs.getTimestamp("updated_at");
+                if (updatedAt != null) settings.setUpdatedAt(updatedAt.toLocalDateTime());
             }
-
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
         return settings;
     }
+
+    /**
+     * Returns when the settings last changed, for cheap change detection.
+     *
+     * @return owner_settings.updated_at, or null if there is no settings row.
+     * @throws SQLException If the query fails.
+     */
+    @Override
+    public Timestamp getUpdatedAt() throws SQLException {
+        String sql = "SELECT updated_at FROM group09_greengrocer.owner_settings LIMIT 1";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getTimestamp(1) : null;
+        }
+    }
 }
@@ -2,24 +2,36 @@ package Dao;
 
 import Database.DatabaseConnection;
 import Models.Product;
+import Utils.ThumbnailGenerator;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
-public class DBProductDAO implements ProductDAO {
+public class DBProductDAO implements ProductCatalogDAO {
+
+    // Listing columns: everything except image_blob, which is fetched on demand by Service.ProductImageStore
+    private static final String PRODUCT_COLUMNS =
+            "id, name, type, price_per_kg, stock_kg, threshold_kg, image_mime, image_hash, is_active";
+
+    // Same columns before Utils.FixSchema added image_hash; the server hashes image_blob per query
+    private static final String LEGACY_PRODUCT_COLUMNS =
+            "id, name, type, price_per_kg, stock_kg, threshold_kg, image_mime, SHA2(image_blob, 256) AS image_hash, is_active";
+
+    // MySQL error code for an unknown column
+    private static final int ER_BAD_FIELD_ERROR = 1054;
+
+    // Set after a query failed on the missing image_hash column; all queries then use the legacy form
+    private static volatile boolean hashColumnMissing;
+
+    // Set after a statement failed on the missing thumb_blob/thumb_mime columns; thumbnails are then
+    // neither written nor read, and Service.ProductImageStore scales the original image instead
+    private static volatile boolean thumbnailColumnsMissing;
 
     @Override
     public List<Product> getAllProducts() {
         List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM group09_greengrocer.product_info";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                products.add(mapResultSetToProduct(rs));
-            }
+        try {
+            products = queryProducts("", null);
         } catch (SQLException e) {
             e.printStackTrace();
             System.err.println("DBProductDAO Error: " + e.getMessage());
@@ -30,9 +42,31 @@ public class DBProductDAO implements ProductDAO {
 
     @Override
     public void addProduct(Product product) {
-        String sql = "INSERT INTO group09_greengrocer.product_info (name, type, price_per_kg, stock_kg, threshold_kg, image_blob, image_mime, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        // Card-sized variant is produced once here instead of on every card render
+        ThumbnailGenerator.Thumbnail thumb = ThumbnailGenerator.createThumbnail(product.getImageContent());
+        try {
+            try {
+                insertProduct(product, thumb);
+            } catch (SQLException e) {
+                if (!isMissingThumbnailColumns(e)) {
+                    throw e;
+                }
+                insertProduct(product, thumb);
+            }
+            System.out.println("DB: Product added -> " + product.getName());
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void insertProduct(Product product, ThumbnailGenerator.Thumbnail thumb) throws SQLException {
+        boolean withThumbnail = !thumbnailColumnsMissing;
+        String sql = withThumbnail
+                ? "INSERT INTO group09_greengrocer.product_info (name, type, price_per_kg, stock_kg, threshold_kg, image_blob, image_mime, is_active, thumb_blob, thumb_mime) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+                : "INSERT INTO group09_greengrocer.product_info (name, type, price_per_kg, stock_kg, threshold_kg, image_blob, image_mime, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setString(1, product.getName());
             ps.setString(2, product.getType());
@@ -43,12 +77,17 @@ public class DBProductDAO implements ProductDAO {
             ps.setBytes(6, product.getImageContent());
             ps.setString(7, product.getMimeType());
             ps.setBoolean(8, product.isActive());
+            if (withThumbnail) {
+                ps.setBytes(9, thumb != null ? thumb.getBytes() : null);
+                ps.setString(10, thumb != null ? thumb.getMimeType() : null);
+            }
 
             ps.executeUpdate();
-            System.out.println("DB: Product added -> " + product.getName());
-
-        } catch (SQLException e) {
-            e.printStackTrace();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setId(keys.getInt(1));
+                }
+            }
         }
     }
 
@@ -61,7 +100,39 @@ public class DBProductDAO implements ProductDAO {
         // Actually Product has ID. Let's rely on ID for safe updates if possible.
         // However, the object passed from UI might just be updated fields.
 
-        String sql = "UPDATE group09_greengrocer.product_info SET name=?, type=?, price_per_kg=?, stock_kg=?, threshold_kg=?, image_blob=?, image_mime=?, is_active=? WHERE id=?";
+        // Listed products carry no image bytes (see PRODUCT_COLUMNS), so the image is only
+        // overwritten when the caller supplied a new one; otherwise the stored image is kept.
+        boolean replaceImage = product.getImageContent() != null;
+        ThumbnailGenerator.Thumbnail thumb = replaceImage ? ThumbnailGenerator.createThumbnail(product.getImageContent()) : null;
+        try {
+            int affected;
+            try {
+                affected = runProductUpdate(product, replaceImage, thumb);
+            } catch (SQLException e) {
+                if (!isMissingThumbnailColumns(e)) {
+                    throw e;
+                }
+                affected = runProductUpdate(product, replaceImage, thumb);
+            }
+            if (affected == 0) {
+                // Fallback or error? For now just log.
+                System.out.println("DB Warning: Product update affected 0 rows. ID might be wrong: " + product.getId());
+            } else {
+                System.out.println("DB: Product updated -> " + product.getName());
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private int runProductUpdate(Product product, boolean replaceImage, ThumbnailGenerator.Thumbnail thumb) throws SQLException {
+        boolean withThumbnail = replaceImage && !thumbnailColumnsMissing;
+        String sql = withThumbnail
+                ? "UPDATE group09_greengrocer.product_info SET name=?, type=?, price_per_kg=?, stock_kg=?, threshold_kg=?, is_active=?, image_blob=?, image_mime=?, thumb_blob=?, thumb_mime=? WHERE id=?"
+                : replaceImage
+                ? "UPDATE group09_greengrocer.product_info SET name=?, type=?, price_per_kg=?, stock_kg=?, threshold_kg=?, is_active=?, image_blob=?, image_mime=? WHERE id=?"
+                : "UPDATE group09_greengrocer.product_info SET name=?, type=?, price_per_kg=?, stock_kg=?, threshold_kg=?, is_active=? WHERE id=?";
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -70,22 +141,19 @@ public class DBProductDAO implements ProductDAO {
             ps.setDouble(3, product.getPricePerKg());
             ps.setDouble(4, product.getStockKg());
             ps.setDouble(5, product.getThresholdKg());
-            // Store imageContent if available, else null
-            ps.setBytes(6, product.getImageContent());
-            ps.setString(7, product.getMimeType());
-            ps.setBoolean(8, product.isActive());
-            ps.setInt(9, product.getId());
-
-            int affected = ps.executeUpdate();
-            if (affected == 0) {
-                // Fallback or error? For now just log.
-                System.out.println("DB Warning: Product update affected 0 rows. ID might be wrong: " + product.getId());
-            } else {
-                System.out.println("DB: Product updated -> " + product.getName());
+            ps.setBoolean(6, product.isActive());
+            int index = 7;
+            if (replaceImage) {
+                ps.setBytes(index++, product.getImageContent());
+                ps.setString(index++, product.getMimeType());
+            }
+            if (withThumbnail) {
+                ps.setBytes(index++, thumb != null ? thumb.getBytes() : null);
+                ps.setString(index++, thumb != null ? thumb.getMimeType() : null);
             }
+            ps.setInt(index, product.getId());
 
-        } catch (SQLException e) {
-            e.printStackTrace();
+            return ps.executeUpdate();
         }
     }
 
@@ -123,6 +191,333 @@ public class DBProductDAO implements ProductDAO {
         }
     }
 
+    /**
+     * Loads a single product by its primary key.
+     *
+     * @param productId The product id.
+     * @return The product, or null if it does not exist.
+     */
+    @Override
+    public Product getProductById(int productId) {
+        try {
+            List<Product> products = queryProducts(" WHERE id = ?", productId);
+            return products.isEmpty() ? null : products.get(0);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Loads the products changed at or after the given time (uses product_info.updated_at,
+     * see Utils.FixSchema). The bound is inclusive because updated_at has limited precision.
+     *
+     * @param since The high-water mark from the previous {@link #getCatalogVersion()} call.
+     * @return The changed products.
+     * @throws SQLException If the query fails, e.g. because the column has not been added yet.
+     */
+    @Override
+    public List<Product> getProductsUpdatedSince(Timestamp since) throws SQLException {
+        return queryProducts(" WHERE updated_at >= ?", since);
+    }
+
+    /**
+     * Runs a listing query, once more with the legacy columns if image_hash turns out to be missing.
+     *
+     * @param where     Condition appended to the SELECT, or "".
+     * @param parameter The condition's single parameter, or null.
+     */
+    private List<Product> queryProducts(String where, Object parameter) throws SQLException {
+        try {
+            return runProductQuery(where, parameter);
+        } catch (SQLException e) {
+            if (isMissingHashColumn(e)) {
+                return runProductQuery(where, parameter);
+            }
+            throw e;
+        }
+    }
+
+    private List<Product> runProductQuery(String where, Object parameter) throws SQLException {
+        List<Product> products = new ArrayList<>();
+        String sql = "SELECT " + (hashColumnMissing ? LEGACY_PRODUCT_COLUMNS : PRODUCT_COLUMNS)
+                + " FROM group09_greengrocer.product_info" + where;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            if (parameter != null) {
+                ps.setObject(1, parameter);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    products.add(mapResultSetToProduct(rs));
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Recognises the error of a database that Utils.FixSchema has not migrated yet and switches
+     * to the legacy columns.
+     *
+     * @return True if the query should be retried.
+     */
+    private static boolean isMissingHashColumn(SQLException e) {
+        if (e.getErrorCode() != ER_BAD_FIELD_ERROR || e.getMessage() == null || !e.getMessage().contains("image_hash")) {
+            return false;
+        }
+        if (!hashColumnMissing) {
+            hashColumnMissing = true;
+            System.err.println("DBProductDAO: product_info.image_hash is missing, hashing images in every query. Run Utils.FixSchema.");
+        }
+        return true;
+    }
+
+    /**
+     * Recognises the error of a database without product_info.thumb_blob/thumb_mime (not yet
+     * migrated by Utils.FixSchema), after which thumbnails are left out of every statement.
+     *
+     * @return True if the statement should be retried without the thumbnail columns.
+     */
+    public static boolean isMissingThumbnailColumns(SQLException e) {
+        if (e.getErrorCode() != ER_BAD_FIELD_ERROR || e.getMessage() == null || !e.getMessage().contains("thumb_")) {
+            return false;
+        }
+        if (!thumbnailColumnsMissing) {
+            thumbnailColumnsMissing = true;
+            System.err.println("DBProductDAO: product_info thumbnail columns are missing, scaling images on every cache miss. Run Utils.FixSchema.");
+        }
+        return true;
+    }
+
+    /**
+     * @return True once a statement found the thumbnail columns missing.
+     */
+    public static boolean thumbnailColumnsMissing() {
+        return thumbnailColumnsMissing;
+    }
+
+    private static String hashColumn() {
+        return hashColumnMissing ? "SHA2(image_blob, 256)" : "image_hash";
+    }
+
+    /**
+     * Streams the stored image of a product into memory.
+     *
+     * @param productId The product id.
+     * @return The image bytes and content hash, or null if the product has no image.
+     */
+    @Override
+    public ImageBlob readImage(int productId) throws SQLException {
+        try {
+            return readImageOnce(productId);
+        } catch (SQLException e) {
+            if (isMissingHashColumn(e)) {
+                return readImageOnce(productId);
+            }
+            throw e;
+        }
+    }
+
+    private ImageBlob readImageOnce(int productId) throws SQLException {
+        String sql = "SELECT image_blob, image_mime, " + hashColumn() + ", OCTET_LENGTH(image_blob) FROM group09_greengrocer.product_info WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, productId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                int length = rs.getInt(4);
+                try (java.io.InputStream in = rs.getBinaryStream(1)) {
+                    if (in == null) {
+                        return null;
+                    }
+                    java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream(Math.max(length, 32));
+                    in.transferTo(out);
+                    return new ImageBlob(productId, out.toByteArray(), rs.getString(2), rs.getString(3));
+                } catch (java.io.IOException e) {
+                    throw new SQLException("Could not read image of product " + productId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the card-sized thumbnail of a product.
+     *
+     * @param productId The product id.
+     * @return The thumbnail bytes (hash is that of the original image), or null if no
+     *         thumbnail has been generated yet or the database has no thumbnail columns.
+     */
+    @Override
+    public ImageBlob readThumbnail(int productId) throws SQLException {
+        if (thumbnailColumnsMissing) {
+            return null;
+        }
+        try {
+            return readThumbnailOnce(productId);
+        } catch (SQLException e) {
+            if (isMissingThumbnailColumns(e)) {
+                return null;
+            }
+            if (!isMissingHashColumn(e)) {
+                throw e;
+            }
+        }
+        try {
+            return readThumbnailOnce(productId);
+        } catch (SQLException e) {
+            if (isMissingThumbnailColumns(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private ImageBlob readThumbnailOnce(int productId) throws SQLException {
+        String sql = "SELECT thumb_blob, thumb_mime, " + hashColumn() + " FROM group09_greengrocer.product_info WHERE id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setInt(1, productId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                byte[] bytes = rs.getBytes(1);
+                return bytes != null ? new ImageBlob(productId, bytes, rs.getString(2), rs.getString(3)) : null;
+            }
+        }
+    }
+
+    /**
+     * Stores a freshly generated thumbnail, e.g. from the tools.ThumbnailBackfill tool. Does
+     * nothing on a database without the thumbnail columns.
+     */
+    @Override
+    public void saveThumbnail(int productId, ThumbnailGenerator.Thumbnail thumb) throws SQLException {
+        if (thumbnailColumnsMissing) {
+            return;
+        }
+        try {
+            saveThumbnailOnce(productId, thumb);
+        } catch (SQLException e) {
+            if (!isMissingThumbnailColumns(e)) {
+                throw e;
+            }
+        }
+    }
+
+    private void saveThumbnailOnce(int productId, ThumbnailGenerator.Thumbnail thumb) throws SQLException {
+        String sql = "UPDATE group09_greengrocer.product_info SET thumb_blob = ?, thumb_mime = ? WHERE id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setBytes(1, thumb.getBytes());
+            ps.setString(2, thumb.getMimeType());
+            ps.setInt(3, productId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Raw image bytes of a product as returned by {@link #readImage(int)}.
+     */
+    public static final class ImageBlob {
+        private final int productId;
+        private final byte[] bytes;
+        private final String mimeType;
+        private final String hash;
+
+        public ImageBlob(int productId, byte[] bytes, String mimeType, String hash) {
+            this.productId = productId;
+            this.bytes = bytes;
+            this.mimeType = mimeType;
+            this.hash = hash;
+        }
+
+        public int getProductId() { return productId; }
+        public byte[] getBytes() { return bytes; }
+        public String getMimeType() { return mimeType; }
+        public String getHash() { return hash; }
+    }
+
+    /**
+     * Lists the ids of all products. Used to detect rows deleted by another process.
+     */
+    @Override
+    public List<Integer> getAllProductIds() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT id FROM group09_greengrocer.product_info";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Reads a cheap fingerprint of the product table: row count, highest id and the latest
+     * updated_at value. Any insert, update or delete changes at least one of them.
+     *
+     * @throws SQLException If the query fails, e.g. because the column has not been added yet.
+     */
+    @Override
+    public CatalogVersion getCatalogVersion() throws SQLException {
+        String sql = "SELECT COUNT(*), COALESCE(MAX(id), 0), MAX(updated_at) FROM group09_greengrocer.product_info";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            rs.next();
+            return new CatalogVersion(rs.getInt(1), rs.getInt(2), rs.getTimestamp(3));
+        }
+    }
+
+    /**
+     * Fingerprint of the product table returned by {@link #getCatalogVersion()}.
+     */
+    public static final class CatalogVersion {
+        private final int rowCount;
+        private final int maxId;
+        private final Timestamp maxUpdatedAt;
+
+        public CatalogVersion(int rowCount, int maxId, Timestamp maxUpdatedAt) {
+            this.rowCount = rowCount;
+            this.maxId = maxId;
+            this.maxUpdatedAt = maxUpdatedAt;
+        }
+
+        public int getRowCount() { return rowCount; }
+        public int getMaxId() { return maxId; }
+        public Timestamp getMaxUpdatedAt() { return maxUpdatedAt; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof CatalogVersion)) return false;
+            CatalogVersion other = (CatalogVersion) o;
+            return rowCount == other.rowCount && maxId == other.maxId
+                    && java.util.Objects.equals(maxUpdatedAt, other.maxUpdatedAt);
+        }
+
+        @Override
+        public int hashCode() {
+            return java.util.Objects.hash(rowCount, maxId, maxUpdatedAt);
+        }
+    }
+
     private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
         Product p = new Product();
         p.setId(rs.getInt("id"));
@@ -131,7 +526,7 @@ public class DBProductDAO implements ProductDAO {
         p.setPricePerKg(rs.getDouble("price_per_kg"));
         p.setStockKg(rs.getDouble("stock_kg"));
         p.setThresholdKg(rs.getDouble("threshold_kg"));
-        p.setImageContent(rs.getBytes("image_blob"));
+        p.setImageHash(rs.getString("image_hash"));
         try {
             p.setMimeType(rs.getString("image_mime"));
         } catch (SQLException e) {
@@ -8,6 +8,8 @@ import java.util.TreeMap;
 
 public class DBReportDAO implements ReportDAO {
 
+    private final DailySalesDAO dailySalesDAO = new DailySalesDAO();
+
     @Override
     public Map<String, Double> getStockDistribution() {
         Map<String, Double> data = new HashMap<>();
@@ -28,8 +30,22 @@ public class DBReportDAO implements ReportDAO {
         return data;
     }
 
+    /**
+     * Income of the last 7 days with orders, read from the daily_sales rollup (see
+     * {@link DailySalesDAO}) so the cost does not grow with the order history. Falls back to
+     * aggregating order_info while the rollup table does not exist.
+     */
     @Override
     public Map<String, Double> getDailyIncome() {
+        try {
+            return dailySalesDAO.getDailyRevenue(7);
+        } catch (SQLException e) {
+            if (!DailySalesDAO.isMissingTable(e)) {
+                e.printStackTrace();
+                return new TreeMap<>();
+            }
+        }
+
         // TreeMap to keep dates sorted
         Map<String, Double> data = new TreeMap<>();
         // Get last 7 days income
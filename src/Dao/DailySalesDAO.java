@@ -0,0 +1,144 @@
+package Dao;
+
+import Database.DatabaseConnection;
+import Database.InList;
+
+import java.sql.*;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Daily sales rollup (table daily_sales, see Utils.FixSchema) read by the reports.
+ *
+ * One row per day and product type with revenue, order count, kilos sold and delivered order
+ * count, plus a row with product type {@link #ALL_TYPES} per day whose revenue is the sum of the
+ * order totals (after discounts). Orders count on the day they were placed; cancelled orders do
+ * not count. The rows are kept up to date in the transactions that change orders:
+ * <ul>
+ *     <li>checkout adds the new orders ({@link CheckoutDAO})</li>
+ *     <li>delivery raises the delivered count ({@link CarrierDAO#completeOrder})</li>
+ *     <li>any other status change, e.g. a cancellation, takes the order out with its old status
+ *     and adds it back with the new one ({@link DBOrderDAO#updateOrderStatus})</li>
+ * </ul>
+ * {@link #rebuild()} recomputes the table from order_info and order_item.
+ */
+public class DailySalesDAO {
+
+    public static final String ALL_TYPES = "ALL";
+
+    private static final String COUNTED = "o.status <> 'CANCELLED'";
+    private static final String DELIVERED = "(o.status IN (" + LoyaltyDAO.COMPLETED_STATUSES + "))";
+
+    /**
+     * Adds (or with negative signs, removes) orders to the rollup with their current status.
+     * Runs on the caller's connection so it commits or rolls back with the order change.
+     *
+     * @param conn          Connection with the open transaction.
+     * @param orderIds      The orders.
+     * @param amountSign    Multiplier for revenue, order count and kilos (1, 0 or -1).
+     * @param deliveredSign Multiplier for the delivered count (1, 0 or -1).
+     * @throws SQLException If the statement fails, e.g. when the table does not exist yet.
+     */
+    void applyOrders(Connection conn, Collection<Integer> orderIds, int amountSign, int deliveredSign) throws SQLException {
+        // Padded so the batch sizes of checkout share a few statement texts (see InList)
+        String ids = InList.placeholders(orderIds.size());
+        // ON DUPLICATE KEY UPDATE cannot refer to the columns of a UNION directly, hence the derived table
+        String sql = "INSERT INTO group09_greengrocer.daily_sales (sales_date, product_type, revenue, order_count, kg_sold, delivered_count) " +
+                "SELECT * FROM (" +
+                "SELECT DATE(o.order_time) AS sales_date, '" + ALL_TYPES + "' AS product_type, o.total_amount * ? AS add_revenue, ? AS add_orders, " +
+                "COALESCE((SELECT SUM(i.amount_kg) FROM group09_greengrocer.order_item i WHERE i.order_id = o.id), 0) * ? AS add_kg, " +
+                DELIVERED + " * ? AS add_delivered " +
+                "FROM group09_greengrocer.order_info o WHERE o.id IN (" + ids + ") AND " + COUNTED +
+                " UNION ALL " +
+                "SELECT DATE(o.order_time), COALESCE(p.type, 'UNKNOWN'), SUM(i.line_total) * ?, ?, SUM(i.amount_kg) * ?, " + DELIVERED + " * ? " +
+                "FROM group09_greengrocer.order_info o " +
+                "JOIN group09_greengrocer.order_item i ON i.order_id = o.id " +
+                "LEFT JOIN group09_greengrocer.product_info p ON p.id = i.product_id " +
+                "WHERE o.id IN (" + ids + ") AND " + COUNTED + " GROUP BY o.id, COALESCE(p.type, 'UNKNOWN')" +
+                ") delta " +
+                "ON DUPLICATE KEY UPDATE revenue = revenue + delta.add_revenue, order_count = order_count + delta.add_orders, " +
+                "kg_sold = kg_sold + delta.add_kg, delivered_count = delivered_count + delta.add_delivered";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (int part = 0; part < 2; part++) {
+                ps.setInt(index++, amountSign);
+                ps.setInt(index++, amountSign);
+                ps.setInt(index++, amountSign);
+                ps.setInt(index++, deliveredSign);
+                index = InList.bind(ps, index, orderIds);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the revenue of the most recent days that had orders.
+     *
+     * @param days Number of days.
+     * @return Revenue (order totals) per date (yyyy-MM-dd), sorted by date.
+     * @throws SQLException If the query fails, e.g. when the table does not exist yet.
+     */
+    public Map<String, Double> getDailyRevenue(int days) throws SQLException {
+        // Backward range scan on the primary key: reads a few rows per day, however long the history is
+        String sql = "SELECT sales_date, revenue FROM group09_greengrocer.daily_sales " +
+                "WHERE product_type = '" + ALL_TYPES + "' AND order_count > 0 ORDER BY sales_date DESC LIMIT ?";
+
+        Map<String, Double> revenue = new TreeMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, days);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    revenue.put(rs.getString("sales_date"), rs.getDouble("revenue"));
+                }
+            }
+        }
+        return revenue;
+    }
+
+    /**
+     * Recomputes the whole rollup in one transaction. Used to fill the table the first time and
+     * to repair it.
+     *
+     * @return Number of rows written.
+     * @throws SQLException If the transaction failed; it was rolled back.
+     */
+    public int rebuild() throws SQLException {
+        String insert = "INSERT INTO group09_greengrocer.daily_sales (sales_date, product_type, revenue, order_count, kg_sold, delivered_count) " +
+                "SELECT DATE(o.order_time), '" + ALL_TYPES + "', SUM(o.total_amount), COUNT(*), COALESCE(SUM(k.kg), 0), SUM(" + DELIVERED + ") " +
+                "FROM group09_greengrocer.order_info o " +
+                "LEFT JOIN (SELECT order_id, SUM(amount_kg) AS kg FROM group09_greengrocer.order_item GROUP BY order_id) k ON k.order_id = o.id " +
+                "WHERE " + COUNTED + " GROUP BY DATE(o.order_time) " +
+                "UNION ALL " +
+                "SELECT DATE(o.order_time), COALESCE(p.type, 'UNKNOWN'), SUM(i.line_total), COUNT(DISTINCT o.id), SUM(i.amount_kg), " +
+                "COUNT(DISTINCT CASE WHEN " + DELIVERED + " THEN o.id END) " +
+                "FROM group09_greengrocer.order_info o " +
+                "JOIN group09_greengrocer.order_item i ON i.order_id = o.id " +
+                "LEFT JOIN group09_greengrocer.product_info p ON p.id = i.product_id " +
+                "WHERE " + COUNTED + " GROUP BY DATE(o.order_time), COALESCE(p.type, 'UNKNOWN')";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                st.executeUpdate("DELETE FROM group09_greengrocer.daily_sales");
+                int rows = st.executeUpdate(insert);
+                conn.commit();
+                return rows;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * @return True if the error says daily_sales does not exist (Utils.FixSchema not run yet).
+     */
+    public static boolean isMissingTable(SQLException e) {
+        return "42S02".equals(e.getSQLState());
+    }
+}
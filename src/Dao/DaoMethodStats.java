@@ -0,0 +1,118 @@
+package Dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histogram of one DAO method. Recording only bumps counters (no
+ * allocation, no lock), so it can sit on every call; the percentiles are read from power-of-two
+ * microsecond buckets and are therefore upper bounds within a factor of two.
+ */
+public class DaoMethodStats implements DaoMethodStatsMXBean {
+
+    // Bucket 25 starts at 2^25 us, about 33 s
+    static final int BUCKETS = 26;
+
+    private final String dao;
+    private final String implementation;
+    private final String method;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    DaoMethodStats(String dao, String implementation, String method) {
+        this.dao = dao;
+        this.implementation = implementation;
+        this.method = method;
+    }
+
+    void record(long nanos, long rowCount, boolean failed) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+        totalNanos.add(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+        long micros = nanos / 1000;
+        int bucket = micros <= 1 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        histogram.incrementAndGet(bucket);
+    }
+
+    @Override public String getDao() { return dao; }
+    @Override public String getImplementation() { return implementation; }
+    @Override public String getMethod() { return method; }
+    @Override public long getCalls() { return calls.sum(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public long getRows() { return rows.sum(); }
+
+    @Override
+    public double getMeanMillis() {
+        long count = calls.sum();
+        return count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    @Override public double getP50Millis() { return percentile(0.50); }
+    @Override public double getP90Millis() { return percentile(0.90); }
+    @Override public double getP99Millis() { return percentile(0.99); }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    @Override
+    public void reset() {
+        calls.reset();
+        errors.reset();
+        rows.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+
+    /**
+     * @return Upper bound of the bucket holding the given share of the calls, capped at the
+     * slowest call seen.
+     */
+    private double percentile(double p) {
+        long[] counts = getLatencyHistogram();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min((1L << (i + 1)) / 1e3, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+}
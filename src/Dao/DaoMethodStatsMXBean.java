@@ -0,0 +1,45 @@
+package Dao;
+
+/**
+ * Statistics of one DAO method, as published over JMX by {@link DaoMetrics}. All values are
+ * cumulative since the application started (or since the last {@link #reset()}).
+ */
+public interface DaoMethodStatsMXBean {
+
+    String getDao();
+
+    String getImplementation();
+
+    String getMethod();
+
+    long getCalls();
+
+    /**
+     * @return Calls that ended with an exception. DAOs that catch their SQLException and return
+     * an empty result are not counted here.
+     */
+    long getErrors();
+
+    /**
+     * @return Rows returned: the size of returned lists and maps, 1 for any other returned object.
+     */
+    long getRows();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    /**
+     * @return Calls per latency bucket; bucket i counts calls under 2^(i+1) microseconds (and not
+     * under 2^i, except bucket 0). The last bucket holds everything slower.
+     */
+    long[] getLatencyHistogram();
+
+    void reset();
+}
@@ -0,0 +1,231 @@
+package Dao;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing decorators for the DAO interfaces. {@link #wrap} puts a proxy in front of a DAO that
+ * records, per method, the number of calls, the calls that threw, the rows returned and a latency
+ * histogram ({@link DaoMethodStats}). Every method is published as an MXBean named
+ * {@code Greengrocer:type=Dao,dao=<interface>,impl=<class>,method=<name>}, so JConsole or
+ * VisualVM show them live, and all of them are written to a text file every
+ * {@code greengrocer.metrics.intervalSeconds} seconds (default 60) at
+ * {@code greengrocer.metrics.file} (default dao-metrics.txt in the working directory).
+ *
+ * Start with {@code -Dgreengrocer.metrics=false} to hand out the DAOs unwrapped.
+ */
+public final class DaoMetrics {
+
+    public static final boolean ENABLED =
+            Boolean.parseBoolean(System.getProperty("greengrocer.metrics", "true"));
+
+    private static final Map<String, DaoMethodStats> STATS = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService snapshotWriter;
+
+    private DaoMetrics() {
+    }
+
+    /**
+     * Wraps a DAO in a timing proxy. Returns the DAO itself when metrics are disabled.
+     *
+     * @param type The DAO interface the caller uses.
+     * @param dao  The implementation.
+     * @return A proxy implementing {@code type} that forwards to {@code dao}.
+     */
+    public static <D> D wrap(Class<D> type, D dao) {
+        if (!ENABLED || dao == null || Proxy.isProxyClass(dao.getClass())) {
+            return dao;
+        }
+        Map<Method, DaoMethodStats> byMethod = new ConcurrentHashMap<>();
+        String impl = dao.getClass().getSimpleName();
+        for (Method method : type.getMethods()) {
+            if (method.getDeclaringClass() != Object.class && !method.isDefault()) {
+                byMethod.put(method, register(type.getSimpleName(), impl, method));
+            }
+        }
+        startSnapshots();
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[]{type},
+                new Timing(dao, byMethod)));
+    }
+
+    /**
+     * @return The statistics of every wrapped DAO method seen so far.
+     */
+    public static Collection<DaoMethodStats> getAll() {
+        return new ArrayList<>(STATS.values());
+    }
+
+    /**
+     * Writes a last snapshot and stops the periodic writer.
+     */
+    public static synchronized void shutdown() {
+        if (snapshotWriter != null) {
+            snapshotWriter.shutdownNow();
+            snapshotWriter = null;
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Writes all statistics to the snapshot file, replacing it in one step so readers never see
+     * half a file.
+     */
+    public static void writeSnapshot() {
+        List<DaoMethodStats> all = new ArrayList<>(STATS.values());
+        all.sort((a, b) -> (a.getDao() + a.getImplementation() + a.getMethod())
+                .compareTo(b.getDao() + b.getImplementation() + b.getMethod()));
+
+        Path file = Paths.get(System.getProperty("greengrocer.metrics.file", "dao-metrics.txt")).toAbsolutePath();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                out.write("# DAO metrics at " + LocalDateTime.now().withNano(0) + ", cumulative, times in ms\n");
+                out.write("dao\timpl\tmethod\tcalls\terrors\trows\tmean\tp50\tp90\tp99\tmax\n");
+                for (DaoMethodStats stats : all) {
+                    if (stats.getCalls() == 0) {
+                        continue;
+                    }
+                    out.write(String.format(Locale.ROOT, "%s\t%s\t%s\t%d\t%d\t%d\t%.3f\t%.3f\t%.3f\t%.3f\t%.3f%n",
+                            stats.getDao(), stats.getImplementation(), stats.getMethod(),
+                            stats.getCalls(), stats.getErrors(), stats.getRows(), stats.getMeanMillis(),
+                            stats.getP50Millis(), stats.getP90Millis(), stats.getP99Millis(), stats.getMaxMillis()));
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write DAO metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static DaoMethodStats register(String dao, String impl, Method method) {
+        // Overloads share a name, so they are told apart by their parameter count
+        String name = method.getName();
+        for (Method other : method.getDeclaringClass().getMethods()) {
+            if (!other.equals(method) && other.getName().equals(name)) {
+                name = name + "/" + method.getParameterCount();
+                break;
+            }
+        }
+        String methodName = name;
+        return STATS.computeIfAbsent(dao + "." + impl + "." + methodName, key -> {
+            DaoMethodStats stats = new DaoMethodStats(dao, impl, methodName);
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                ObjectName objectName = new ObjectName("Greengrocer:type=Dao,dao=" + dao
+                        + ",impl=" + impl + ",method=" + methodName);
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(stats, objectName);
+                }
+            } catch (Exception e) {
+                System.err.println("Could not register DAO metrics for " + key + ": " + e.getMessage());
+            }
+            return stats;
+        });
+    }
+
+    private static synchronized void startSnapshots() {
+        if (snapshotWriter != null) {
+            return;
+        }
+        long interval = Long.getLong("greengrocer.metrics.intervalSeconds", 60);
+        if (interval <= 0) {
+            return;
+        }
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dao-metrics-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotWriter.scheduleWithFixedDelay(DaoMetrics::writeSnapshot, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return Rows in a DAO result: the size of a list, map or array, 1 for another object,
+     * 0 for nothing, flags and counts.
+     */
+    private static long rows(Object result) {
+        if (result == null || result instanceof Boolean || result instanceof Number) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result.getClass().isArray()) {
+            return java.lang.reflect.Array.getLength(result);
+        }
+        return 1;
+    }
+
+    private static final class Timing implements InvocationHandler {
+        private final Object target;
+        private final Map<Method, DaoMethodStats> byMethod;
+
+        private Timing(Object target, Map<Method, DaoMethodStats> byMethod) {
+            this.target = target;
+            this.byMethod = byMethod;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            DaoMethodStats stats = byMethod.get(method);
+            if (stats == null) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        break;
+                }
+                // toString and default methods
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = method.invoke(target, args);
+                stats.record(System.nanoTime() - start, rows(result), false);
+                return result;
+            } catch (InvocationTargetException e) {
+                stats.record(System.nanoTime() - start, 0, true);
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,5 +1,15 @@
 package Dao;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
 public interface InvoiceDAO {
-    void saveInvoice(int orderId, String invoiceText);
+    String getInvoiceText(int orderId);
+
+    boolean writeInvoiceTo(int orderId, Writer out) throws IOException;
+
+    boolean hasPdf(int orderId);
+
+    boolean writePdfTo(int orderId, OutputStream out) throws IOException;
 }
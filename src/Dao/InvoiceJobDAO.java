@@ -0,0 +1,318 @@
+package Dao;
+
+import Database.DatabaseConnection;
+import Database.InList;
+import Models.Order;
+import Models.OrderItem;
+import Models.Invoice;
+import Models.User;
+import Utils.InvoicePdfRenderer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable invoice work queue (table invoice_job, see Utils.FixSchema).
+ *
+ * A job row is written in the checkout transaction, so every committed order is guaranteed to
+ * get its invoice even if the application stops before the invoice was rendered. Workers claim a
+ * job by pushing its next_attempt_at into the future (a lease), which also works when several
+ * application instances share the database. Finishing a job stores the invoice and deletes the
+ * job in one transaction.
+ */
+public class InvoiceJobDAO {
+
+    /**
+     * Invoice state of an order as shown in the order history.
+     */
+    public enum Status { READY, PENDING, FAILED, MISSING }
+
+    /**
+     * Tries to take the job of an order.
+     *
+     * @param orderId      The order.
+     * @param leaseSeconds How long other workers leave the job alone.
+     * @return The attempt number (1 for the first try), or 0 if the job is missing, leased by
+     *         another worker or not due yet.
+     * @throws SQLException If the database rejects the update.
+     */
+    public int claimJob(int orderId, int leaseSeconds) throws SQLException {
+        String claim = "UPDATE group09_greengrocer.invoice_job SET attempts = attempts + 1, " +
+                "next_attempt_at = NOW(3) + INTERVAL ? SECOND WHERE order_id = ? AND next_attempt_at <= NOW(3)";
+        String attempts = "SELECT attempts FROM group09_greengrocer.invoice_job WHERE order_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement ps = conn.prepareStatement(claim)) {
+                ps.setInt(1, leaseSeconds);
+                ps.setInt(2, orderId);
+                if (ps.executeUpdate() == 0) {
+                    return 0;
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(attempts)) {
+                ps.setInt(1, orderId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists jobs that are due, oldest first. Used to pick up work left behind by a
+     * restart and to run scheduled retries.
+     *
+     * @param maxAttempts Jobs that failed this often are left alone.
+     * @param limit       Maximum number of jobs returned.
+     * @return Order ids of due jobs.
+     * @throws SQLException If the query fails (e.g. table missing).
+     */
+    public List<Integer> findDueJobs(int maxAttempts, int limit) throws SQLException {
+        String sql = "SELECT order_id FROM group09_greengrocer.invoice_job " +
+                "WHERE next_attempt_at <= NOW(3) AND attempts < ? ORDER BY next_attempt_at LIMIT ?";
+        List<Integer> orderIds = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, maxAttempts);
+            ps.setInt(2, limit);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    orderIds.add(rs.getInt(1));
+                }
+            }
+        }
+        return orderIds;
+    }
+
+    /**
+     * Loads what an invoice is rendered from: the order with its lines and the customer.
+     *
+     * @param orderId The order.
+     * @return The data, or null if the order no longer exists.
+     * @throws SQLException If a query fails.
+     */
+    public InvoiceSource loadInvoiceSource(int orderId) throws SQLException {
+        String orderSql = "SELECT o.id, o.customer_id, o.order_time, o.status, o.total_amount, o.customer_address_snapshot, " +
+                "o.loyalty_discount_percent, u.full_name, u.phone, u.address_line " +
+                "FROM group09_greengrocer.order_info o LEFT JOIN group09_greengrocer.user_info u ON u.id = o.customer_id WHERE o.id = ?";
+        String itemSql = "SELECT i.product_id, i.amount_kg, i.unit_price, i.line_total, p.name FROM group09_greengrocer.order_item i " +
+                "LEFT JOIN group09_greengrocer.product_info p ON p.id = i.product_id WHERE i.order_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            Order order;
+            User customer = new User();
+            try (PreparedStatement ps = conn.prepareStatement(orderSql)) {
+                ps.setInt(1, orderId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    order = new Order();
+                    order.setId(rs.getInt("id"));
+                    order.setCustomerId(rs.getInt("customer_id"));
+                    Timestamp orderTime = rs.getTimestamp("order_time");
+                    if (orderTime != null) order.setOrderTime(orderTime.toLocalDateTime());
+                    order.setStatus(rs.getString("status"));
+                    order.setTotalAmount(rs.getDouble("total_amount"));
+                    order.setCustomerAddressSnapshot(rs.getString("customer_address_snapshot"));
+                    order.setLoyaltyDiscountPercent(rs.getDouble("loyalty_discount_percent"));
+
+                    customer.setId(order.getCustomerId());
+                    customer.setFullName(rs.getString("full_name"));
+                    customer.setPhone(rs.getString("phone"));
+                    customer.setAddress(rs.getString("address_line"));
+                }
+            }
+
+            List<OrderItem> items = new ArrayList<>();
+            Map<Integer, String> productNames = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(itemSql)) {
+                ps.setInt(1, orderId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        OrderItem item = new OrderItem();
+                        item.setOrderId(orderId);
+                        item.setProductId(rs.getInt("product_id"));
+                        item.setAmountKg(rs.getDouble("amount_kg"));
+                        item.setUnitPrice(rs.getDouble("unit_price"));
+                        item.setLineTotal(rs.getDouble("line_total"));
+                        items.add(item);
+                        if (rs.getString("name") != null) {
+                            productNames.put(item.getProductId(), rs.getString("name"));
+                        }
+                    }
+                }
+            }
+            order.setItems(items);
+            return new InvoiceSource(order, customer, productNames);
+        }
+    }
+
+    /**
+     * Renders the invoice as PDF straight into invoice.pdf_blob (see Utils.InvoicePdfRenderer)
+     * and removes the job, in one transaction. Pages are produced while the driver reads them.
+     *
+     * @param orderId The order.
+     * @param invoice The invoice to render.
+     * @throws SQLException If the transaction failed; it was rolled back.
+     */
+    public void completeJob(int orderId, Invoice invoice) throws SQLException {
+        String upsert = "INSERT INTO group09_greengrocer.invoice (order_id, pdf_blob, created_at) VALUES (?, ?, NOW()) " +
+                "ON DUPLICATE KEY UPDATE invoice_text = NULL, pdf_blob = VALUES(pdf_blob)";
+        String delete = "DELETE FROM group09_greengrocer.invoice_job WHERE order_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(upsert)) {
+                    ps.setInt(1, orderId);
+                    try (InputStream pdf = InvoicePdfRenderer.openStream(invoice)) {
+                        ps.setBinaryStream(2, pdf);
+                        ps.executeUpdate();
+                    }
+                } catch (IOException e) {
+                    throw new SQLException("Could not render invoice PDF", e);
+                }
+                try (PreparedStatement ps = conn.prepareStatement(delete)) {
+                    ps.setInt(1, orderId);
+                    ps.executeUpdate();
+                } catch (SQLException e) {
+                    if (!isMissingTable(e)) {
+                        throw e;
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Drops the job of an order that no longer exists.
+     *
+     * @param orderId The order.
+     * @throws SQLException If the delete fails.
+     */
+    public void deleteJob(int orderId) throws SQLException {
+        String sql = "DELETE FROM group09_greengrocer.invoice_job WHERE order_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Records a failed attempt and schedules the next one.
+     *
+     * @param orderId      The order.
+     * @param error        What went wrong (truncated to the column size).
+     * @param delaySeconds Delay before the job is due again.
+     * @throws SQLException If the update fails.
+     */
+    public void failJob(int orderId, String error, int delaySeconds) throws SQLException {
+        String sql = "UPDATE group09_greengrocer.invoice_job SET last_error = ?, next_attempt_at = NOW(3) + INTERVAL ? SECOND WHERE order_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, error != null && error.length() > 500 ? error.substring(0, 500) : error);
+            ps.setInt(2, delaySeconds);
+            ps.setInt(3, orderId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Makes a job due again with a fresh attempt count, e.g. when the customer asks for an
+     * invoice that failed too often. Creates the job if the order has none.
+     *
+     * @param orderId The order.
+     * @throws SQLException If the statement fails.
+     */
+    public void resetJob(int orderId) throws SQLException {
+        String sql = "INSERT INTO group09_greengrocer.invoice_job (order_id) VALUES (?) " +
+                "ON DUPLICATE KEY UPDATE attempts = 0, next_attempt_at = NOW(3), last_error = NULL";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Returns the invoice state of several orders with one query.
+     *
+     * @param orderIds    The orders.
+     * @param maxAttempts Jobs that failed this often are reported as {@link Status#FAILED}.
+     * @return State per order id; orders without invoice and job are {@link Status#MISSING}.
+     */
+    public Map<Integer, Status> getStatuses(List<Integer> orderIds, int maxAttempts) {
+        Map<Integer, Status> statuses = new HashMap<>();
+        if (orderIds.isEmpty()) {
+            return statuses;
+        }
+        String sql = "SELECT o.id, i.order_id AS invoice_id, j.attempts FROM group09_greengrocer.order_info o " +
+                "LEFT JOIN group09_greengrocer.invoice i ON i.order_id = o.id " +
+                "LEFT JOIN group09_greengrocer.invoice_job j ON j.order_id = o.id WHERE o.id IN (" + InList.placeholders(orderIds.size()) + ")";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            InList.bind(ps, 1, orderIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int orderId = rs.getInt("id");
+                    rs.getObject("invoice_id");
+                    boolean hasInvoice = !rs.wasNull();
+                    int attempts = rs.getInt("attempts");
+                    boolean hasJob = !rs.wasNull();
+
+                    if (hasInvoice) {
+                        statuses.put(orderId, Status.READY);
+                    } else if (hasJob) {
+                        statuses.put(orderId, attempts >= maxAttempts ? Status.FAILED : Status.PENDING);
+                    } else {
+                        statuses.put(orderId, Status.MISSING);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return statuses;
+    }
+
+    /**
+     * @return True if the error says invoice_job does not exist (Utils.FixSchema not run yet).
+     */
+    public static boolean isMissingTable(SQLException e) {
+        return "42S02".equals(e.getSQLState());
+    }
+
+    /**
+     * An order with its lines, the customer it belongs to and the names of its products.
+     */
+    public static final class InvoiceSource {
+        private final Order order;
+        private final User customer;
+        private final Map<Integer, String> productNames;
+
+        public InvoiceSource(Order order, User customer, Map<Integer, String> productNames) {
+            this.order = order;
+            this.customer = customer;
+            this.productNames = productNames;
+        }
+
+        public Order getOrder() { return order; }
+        public User getCustomer() { return customer; }
+        public Map<Integer, String> getProductNames() { return productNames; }
+    }
+}
@@ -0,0 +1,159 @@
+package Dao;
+
+import Database.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-customer completed order counters (table customer_loyalty, see Utils.FixSchema).
+ *
+ * The counter of a customer is raised in the same transaction that marks one of their orders
+ * DELIVERED ({@link CarrierDAO#completeOrder}), so reading it is a primary key lookup instead of
+ * a COUNT over the customer's whole order history. {@link #rebuild()} recomputes all counters
+ * from order_info and {@link #findMismatches()} reports where they disagree.
+ */
+public class LoyaltyDAO {
+
+    // Order statuses that count as completed
+    static final String COMPLETED_STATUSES = "'DELIVERED', 'COMPLETED'";
+
+    private static final String COMPLETED_COUNTS =
+            "SELECT customer_id, COUNT(*) AS completed_orders FROM group09_greengrocer.order_info " +
+            "WHERE status IN (" + COMPLETED_STATUSES + ") GROUP BY customer_id";
+
+    /**
+     * Returns a customer's completed order count from the counter table.
+     *
+     * @param customerId The customer.
+     * @return The count; 0 if the customer has no counter yet.
+     * @throws SQLException If the lookup fails, e.g. when the table does not exist yet.
+     */
+    public int getCompletedOrders(int customerId) throws SQLException {
+        String sql = "SELECT completed_orders FROM group09_greengrocer.customer_loyalty WHERE customer_id = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, customerId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Raises the counter of the customer an order belongs to. Runs on the caller's connection so
+     * it commits or rolls back together with the status change.
+     *
+     * @param conn    Connection with the open transaction.
+     * @param orderId The order that was just completed.
+     * @throws SQLException If the statement fails.
+     */
+    void incrementForOrder(Connection conn, int orderId) throws SQLException {
+        String sql = "INSERT INTO group09_greengrocer.customer_loyalty (customer_id, completed_orders) " +
+                "SELECT customer_id, 1 FROM group09_greengrocer.order_info WHERE id = ? " +
+                "ON DUPLICATE KEY UPDATE completed_orders = completed_orders + 1";
+
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, orderId);
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Recomputes every counter from order_info in one transaction. Used to fill the table the
+     * first time and to repair it after {@link #findMismatches()} reported differences.
+     *
+     * @return Number of customers with completed orders.
+     * @throws SQLException If the transaction failed; it was rolled back.
+     */
+    public int rebuild() throws SQLException {
+        String upsert = "INSERT INTO group09_greengrocer.customer_loyalty (customer_id, completed_orders) " +
+                "SELECT customer_id, completed_orders FROM (" + COMPLETED_COUNTS + ") counts " +
+                "ON DUPLICATE KEY UPDATE completed_orders = counts.completed_orders";
+        String removeStale = "DELETE l FROM group09_greengrocer.customer_loyalty l " +
+                "LEFT JOIN (" + COMPLETED_COUNTS + ") counts ON counts.customer_id = l.customer_id " +
+                "WHERE counts.customer_id IS NULL";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(upsert);
+                 PreparedStatement stale = conn.prepareStatement(removeStale)) {
+                ps.executeUpdate();
+                stale.executeUpdate();
+                int customers;
+                try (Statement st = conn.createStatement();
+                     ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM group09_greengrocer.customer_loyalty")) {
+                    rs.next();
+                    customers = rs.getInt(1);
+                }
+                conn.commit();
+                return customers;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Compares every counter with a fresh count over order_info.
+     *
+     * @return The customers whose counter is wrong or missing; empty if all agree.
+     * @throws SQLException If the query fails.
+     */
+    public List<Mismatch> findMismatches() throws SQLException {
+        String sql = "SELECT l.customer_id, l.completed_orders AS counter, COALESCE(counts.completed_orders, 0) AS actual " +
+                "FROM group09_greengrocer.customer_loyalty l " +
+                "LEFT JOIN (" + COMPLETED_COUNTS + ") counts ON counts.customer_id = l.customer_id " +
+                "WHERE l.completed_orders <> COALESCE(counts.completed_orders, 0) " +
+                "UNION ALL " +
+                "SELECT counts.customer_id, 0, counts.completed_orders FROM (" + COMPLETED_COUNTS + ") counts " +
+                "LEFT JOIN group09_greengrocer.customer_loyalty l ON l.customer_id = counts.customer_id " +
+                "WHERE l.customer_id IS NULL";
+
+        List<Mismatch> mismatches = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                mismatches.add(new Mismatch(rs.getInt("customer_id"), rs.getInt("counter"), rs.getInt("actual")));
+            }
+        }
+        return mismatches;
+    }
+
+    /**
+     * @return True if the error says customer_loyalty does not exist (Utils.FixSchema not run yet).
+     */
+    public static boolean isMissingTable(SQLException e) {
+        return "42S02".equals(e.getSQLState());
+    }
+
+    /**
+     * A customer whose counter differs from the count over order_info.
+     */
+    public static final class Mismatch {
+        private final int customerId;
+        private final int counter;
+        private final int actual;
+
+        public Mismatch(int customerId, int counter, int actual) {
+            this.customerId = customerId;
+            this.counter = counter;
+            this.actual = actual;
+        }
+
+        public int getCustomerId() { return customerId; }
+        public int getCounter() { return counter; }
+        public int getActual() { return actual; }
+
+        @Override
+        public String toString() {
+            return "customer " + customerId + ": counter " + counter + ", actual " + actual;
+        }
+    }
+}
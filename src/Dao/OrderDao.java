@@ -1,6 +1,7 @@
 package Dao;
 
 import Models.Order;
+import java.sql.SQLException;
 import java.util.List;
 
 public interface OrderDao {
@@ -9,5 +10,11 @@ public interface OrderDao {
     List<Order> getOrdersByCarrier(int carrierId, String status);
     void updateOrderStatus(int orderId, String status, int carrierId);
     List<Order> getOrdersByCustomer(int customerId);
+
+    /**
+     * Unlike the other lookups, a failed query throws instead of looking like the end of the history.
+     */
+    List<Order> getOrderHistoryPage(int customerId, Order after, int limit) throws SQLException;
+
     int getCompletedOrderCount(int customerId);
 }
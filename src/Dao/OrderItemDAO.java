@@ -0,0 +1,71 @@
+package Dao;
+
+import Database.DatabaseConnection;
+import Database.InList;
+import Models.OrderItem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads order lines for many orders at once.
+ */
+public class OrderItemDAO {
+
+    // Upper bound for the IN list of one statement; larger requests are split. A power of two, so full chunks need no padding (InList)
+    static final int MAX_IDS_PER_QUERY = 512;
+
+    /**
+     * Loads the lines of several orders with one {@code IN (...)} query per
+     * {@link #MAX_IDS_PER_QUERY} orders, all on one connection. Each query is a range scan on
+     * the primary key (order_id, product_id).
+     *
+     * @param orderIds The orders.
+     * @return Lines per order id, by product id; orders without lines get an empty list.
+     * @throws SQLException If a query fails.
+     */
+    public Map<Integer, List<OrderItem>> getItemsByOrderIds(Collection<Integer> orderIds) throws SQLException {
+        Map<Integer, List<OrderItem>> itemsByOrder = new HashMap<>(orderIds.size() * 2);
+        for (Integer orderId : orderIds) {
+            itemsByOrder.put(orderId, new ArrayList<>());
+        }
+        if (itemsByOrder.isEmpty()) {
+            return itemsByOrder;
+        }
+
+        List<Integer> ids = new ArrayList<>(itemsByOrder.keySet());
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_QUERY) {
+                List<Integer> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_QUERY));
+                loadChunk(conn, chunk, itemsByOrder);
+            }
+        }
+        return itemsByOrder;
+    }
+
+    private void loadChunk(Connection conn, List<Integer> orderIds, Map<Integer, List<OrderItem>> itemsByOrder) throws SQLException {
+        StringBuilder sql = new StringBuilder("SELECT order_id, product_id, amount_kg, unit_price, line_total " +
+                "FROM group09_greengrocer.order_item WHERE order_id IN (");
+        sql.append(InList.placeholders(orderIds.size()));
+        sql.append(") ORDER BY order_id, product_id");
+
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            InList.bind(ps, 1, orderIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    OrderItem item = new OrderItem();
+                    item.setOrderId(rs.getInt("order_id"));
+                    item.setProductId(rs.getInt("product_id"));
+                    item.setAmountKg(rs.getDouble("amount_kg"));
+                    item.setUnitPrice(rs.getDouble("unit_price"));
+                    item.setLineTotal(rs.getDouble("line_total"));
+                    itemsByOrder.get(item.getOrderId()).add(item);
+                }
+            }
+        }
+    }
+}
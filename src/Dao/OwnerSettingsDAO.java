@@ -2,6 +2,19 @@ package Dao;
 
 import Models.OwnerSettings;
 
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
 public interface OwnerSettingsDAO {
     OwnerSettings getSettings();
+
+    /**
+     * Like {@link #getSettings()}, but tells a failed query apart from a missing row.
+     *
+     * @return The settings, or null if there is no settings row.
+     * @throws SQLException If the query fails.
+     */
+    OwnerSettings loadSettings() throws SQLException;
+
+    Timestamp getUpdatedAt() throws SQLException;
 }
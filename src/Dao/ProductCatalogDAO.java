@@ -0,0 +1,30 @@
+package Dao;
+
+import Models.Product;
+import Utils.ThumbnailGenerator;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * The product queries behind the in-memory catalog (Service.ProductService) and the image
+ * cache (Service.ProductImageStore), on top of the plain {@link ProductDAO}. Those services
+ * hold this interface, so the database DAO under their caches can be timed by
+ * {@link DaoMetrics#wrap}.
+ */
+public interface ProductCatalogDAO extends ProductDAO {
+    Product getProductById(int productId);
+
+    List<Product> getProductsUpdatedSince(Timestamp since) throws SQLException;
+
+    List<Integer> getAllProductIds() throws SQLException;
+
+    DBProductDAO.CatalogVersion getCatalogVersion() throws SQLException;
+
+    DBProductDAO.ImageBlob readImage(int productId) throws SQLException;
+
+    DBProductDAO.ImageBlob readThumbnail(int productId) throws SQLException;
+
+    void saveThumbnail(int productId, ThumbnailGenerator.Thumbnail thumb) throws SQLException;
+}
@@ -0,0 +1,183 @@
+package Dao;
+
+import Database.DatabaseConnection;
+import Database.InList;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Raw data for sales analysis: the order lines of a date range for Service.SalesAnalytics, the
+ * changed orders for Service.SalesSnapshot, both streamed, plus the labels of the grouping keys.
+ */
+public class SalesAnalyticsDAO {
+
+    /**
+     * Rows fetched per round trip from the server-side cursor (useCursorFetch in
+     * {@link DatabaseConnection}); bounds the driver's memory however many lines the range has.
+     */
+    public static final int FETCH_SIZE = 10_000;
+
+    /**
+     * What order lines are grouped by; each maps a line to a non-negative int key.
+     */
+    public enum Dimension {
+        PRODUCT("i.product_id"),
+        // Grouped by product first and folded into types afterwards
+        PRODUCT_TYPE("i.product_id"),
+        // 0 for orders without a carrier
+        CARRIER("COALESCE(o.carrier_id, 0)"),
+        HOUR_OF_DAY("HOUR(o.order_time)");
+
+        private final String keyExpression;
+
+        Dimension(String keyExpression) {
+            this.keyExpression = keyExpression;
+        }
+    }
+
+    /**
+     * Receives streamed order lines.
+     */
+    public interface LineConsumer {
+        void accept(int key, double amountKg, double lineTotal);
+    }
+
+    /**
+     * Streams the lines of all orders placed in {@code [from, to)} that were not cancelled.
+     * Rows are handed over one by one while the cursor is read, nothing is collected.
+     *
+     * @param dimension The key to compute per line.
+     * @param from      First order time included.
+     * @param to        First order time excluded.
+     * @param consumer  Called for every line, on the calling thread.
+     * @return Number of lines streamed.
+     * @throws SQLException If the query fails.
+     */
+    public long streamLines(Dimension dimension, LocalDateTime from, LocalDateTime to, LineConsumer consumer) throws SQLException {
+        String sql = "SELECT " + dimension.keyExpression + " AS group_key, i.amount_kg, i.line_total " +
+                "FROM group09_greengrocer.order_info o " +
+                "JOIN group09_greengrocer.order_item i ON i.order_id = o.id " +
+                "WHERE o.order_time >= ? AND o.order_time < ? AND o.status <> 'CANCELLED'";
+
+        long lines = 0;
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs.getInt(1), rs.getDouble(2), rs.getDouble(3));
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Receives streamed orders with their lines, for Service.SalesSnapshot.
+     */
+    public interface OrderLineConsumer {
+        /**
+         * Called once per order line, or once with {@code productId} 0 for an order without
+         * lines. Lines of the same order arrive one after the other.
+         *
+         * @param orderTime Order time in seconds since the epoch, read as UTC.
+         * @param updatedAt Row version of the order, epoch milliseconds.
+         */
+        void accept(int orderId, long orderTime, String status, double totalAmount, long updatedAt,
+                    int productId, double amountKg, double lineTotal);
+    }
+
+    /**
+     * Streams every order changed since a point in time (all orders when {@code since} is null)
+     * with its lines, ordered by order id. Cancelled orders are included so a cancellation can
+     * be applied to rows read earlier.
+     *
+     * @param since    Lowest order_info.updated_at included, or null.
+     * @param consumer Called for every row, on the calling thread.
+     * @throws SQLException If the query fails, e.g. when updated_at does not exist yet.
+     */
+    public void streamOrderLines(Timestamp since, OrderLineConsumer consumer) throws SQLException {
+        String sql = "SELECT o.id, o.order_time, o.status, o.total_amount, o.updated_at, " +
+                "COALESCE(i.product_id, 0), COALESCE(i.amount_kg, 0), COALESCE(i.line_total, 0) " +
+                "FROM group09_greengrocer.order_info o " +
+                "LEFT JOIN group09_greengrocer.order_item i ON i.order_id = o.id" +
+                (since != null ? " WHERE o.updated_at >= ?" : "") +
+                " ORDER BY o.id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(FETCH_SIZE);
+            if (since != null) {
+                ps.setTimestamp(1, since);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    long orderTime = rs.getTimestamp(2).toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+                    consumer.accept(rs.getInt(1), orderTime, rs.getString(3), rs.getDouble(4),
+                            rs.getTimestamp(5).getTime(), rs.getInt(6), rs.getDouble(7), rs.getDouble(8));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Product name per product id.
+     * @throws SQLException If the query fails.
+     */
+    public Map<Integer, String> getProductNames() throws SQLException {
+        return loadLabels("SELECT id, name FROM group09_greengrocer.product_info");
+    }
+
+    /**
+     * @return Product type per product id.
+     * @throws SQLException If the query fails.
+     */
+    public Map<Integer, String> getProductTypes() throws SQLException {
+        return loadLabels("SELECT id, type FROM group09_greengrocer.product_info");
+    }
+
+    /**
+     * @param userIds The users.
+     * @return Full name per user id, for the ids that exist.
+     * @throws SQLException If the query fails.
+     */
+    public Map<Integer, String> getUserNames(Collection<Integer> userIds) throws SQLException {
+        if (userIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        StringBuilder sql = new StringBuilder("SELECT id, full_name FROM group09_greengrocer.user_info WHERE id IN (");
+        sql.append(InList.placeholders(userIds.size())).append(")");
+
+        Map<Integer, String> names = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            InList.bind(ps, 1, userIds);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    names.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+        }
+        return names;
+    }
+
+    private Map<Integer, String> loadLabels(String sql) throws SQLException {
+        Map<Integer, String> labels = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                labels.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return labels;
+    }
+}
@@ -5,46 +5,98 @@ import java.security.MessageDigest;
 import java.sql.*;
 
 /**
- * Central database utility class responsible for managing the JDBC connection
+ * Central database utility class responsible for managing the JDBC connection pool
  * and handling user authentication logic.
  */
 public class DatabaseConnection {
 
     private static final String DATABASE_NAME = "group09_greengrocer";
-    private static final String DATABASE_USER = "myuser";
-    private static final String DATABASE_PASSWORD = "1234";
+    // The greengrocer.db.* system properties point the pool at another database, e.g. the
+    // embedded stand-in used by the benchmarks
+    private static final String DATABASE_USER = System.getProperty("greengrocer.db.user", "myuser");
+    private static final String DATABASE_PASSWORD = System.getProperty("greengrocer.db.password", "1234");
 
-    private static final String CONNECTION_STRING =
+    private static final String CONNECTION_STRING = System.getProperty("greengrocer.db.url",
             "jdbc:mysql://localhost:3306/" + DATABASE_NAME +
                     "?useSSL=false&allowPublicKeyRetrieval=true" +
-                    "&serverTimezone=UTC&useUnicode=true&characterEncoding=UTF-8";
-
-    private static Connection connection;
-
-    public static synchronized Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            try {
-                // Driver'ı manuel yüklemek bazı sürümlerde hatayı önler
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                connection = DriverManager.getConnection(
-                        CONNECTION_STRING,
-                        DATABASE_USER,
-                        DATABASE_PASSWORD
-                );
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("MySQL Driver not found", e);
+                    "&serverTimezone=UTC&useUnicode=true&characterEncoding=UTF-8" +
+                    "&useServerPrepStmts=true" +
+                    // Statements with a fetch size (analytics scans) read through a server-side cursor
+                    "&useCursorFetch=true");
+
+    // Pool sizing; the carrier dashboard polls in the background while customers check out
+    private static final int POOL_MIN_SIZE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_BORROW_TIMEOUT_MS = 5_000;
+    private static final long POOL_IDLE_TIMEOUT_MS = 5 * 60_000;
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = 2;
+    // Prepared statements kept per pooled connection (LRU)
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Borrows a connection from the shared pool. Closing the returned connection
+     * (e.g. at the end of a try-with-resources block) hands it back to the pool
+     * instead of tearing down the underlying socket.
+     *
+     * @return A pooled JDBC connection.
+     * @throws SQLException If the driver is missing, the database is unreachable or
+     *                      no connection became available within the borrow timeout.
+     */
+    public static Connection getConnection() throws SQLException {
+        return getPool().borrow();
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    if (CONNECTION_STRING.startsWith("jdbc:mysql:")) {
+                        try {
+                            // Driver'ı manuel yüklemek bazı sürümlerde hatayı önler
+                            Class.forName("com.mysql.cj.jdbc.Driver");
+                        } catch (ClassNotFoundException e) {
+                            throw new SQLException("MySQL Driver not found", e);
+                        }
+                    }
+                    current = new ConnectionPool(
+                            CONNECTION_STRING,
+                            DATABASE_USER,
+                            DATABASE_PASSWORD,
+                            POOL_MIN_SIZE,
+                            POOL_MAX_SIZE,
+                            POOL_BORROW_TIMEOUT_MS,
+                            POOL_IDLE_TIMEOUT_MS,
+                            POOL_VALIDATION_TIMEOUT_SECONDS,
+                            STATEMENT_CACHE_SIZE
+                    );
+                    pool = current;
+                }
             }
         }
-        return connection;
+        return current;
     }
 
+    /**
+     * @return Current pool statistics, or null if no connection has been requested yet.
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStats() : null;
+    }
+
+    /**
+     * Shuts down the connection pool and closes all idle connections.
+     * A later {@link #getConnection()} call starts a new pool.
+     */
     public static void closeConnection() {
-        if (connection != null) {
-            try {
-                if (!connection.isClosed()) {
-                    connection.close();
-                }
-            } catch (SQLException ignored) {
+        synchronized (DatabaseConnection.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
             }
         }
     }
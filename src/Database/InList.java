@@ -0,0 +1,54 @@
+package Database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * {@code IN (?, ?, ...)} lists of ids, padded to a power of two. Without padding every list
+ * length is a different SQL text and a different server-side prepared statement, which churns
+ * the {@link StatementCache}; with it a query needs at most a handful of variants. The padding
+ * repeats the last id, which does not change what an IN list matches.
+ */
+public final class InList {
+
+    private InList() {
+    }
+
+    /**
+     * @param count Number of ids, at least 1.
+     * @return The placeholders for {@code count} ids, without parentheses.
+     */
+    public static String placeholders(int count) {
+        int padded = paddedSize(count);
+        StringBuilder sb = new StringBuilder(padded * 3);
+        for (int i = 0; i < padded; i++) {
+            sb.append(i == 0 ? "?" : ", ?");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Sets the ids of a list built by {@link #placeholders}, repeating the last one into the padding.
+     *
+     * @param ps    The statement.
+     * @param index Index of the list's first parameter.
+     * @param ids   The ids, not empty.
+     * @return Index of the first parameter after the list.
+     */
+    public static int bind(PreparedStatement ps, int index, Collection<Integer> ids) throws SQLException {
+        int last = 0;
+        for (Integer id : ids) {
+            last = id;
+            ps.setInt(index++, last);
+        }
+        for (int i = ids.size(); i < paddedSize(ids.size()); i++) {
+            ps.setInt(index++, last);
+        }
+        return index;
+    }
+
+    static int paddedSize(int count) {
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+}
@@ -0,0 +1,230 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of prepared statements that lives with one pooled physical connection.
+ * Statements are keyed by their SQL text (plus the generated-keys flag). Closing a
+ * statement obtained from the cache only resets its parameters, so the next DAO call
+ * with the same SQL reuses the server-side prepared statement instead of re-parsing it.
+ * The fetch size, row limit and timeout a caller set are put back to the driver's defaults,
+ * so they do not leak into the next caller.
+ *
+ * A statement joins the cache when it is first closed, not when it is prepared, and only if
+ * it is still poolable: SQL whose text changes with the amount of data (multi-row inserts)
+ * calls {@code setPoolable(false)} and is closed for real, instead of pushing hot statements
+ * out of the LRU. IN lists are padded for the same reason ({@link InList}).
+ *
+ * A pooled connection is only ever used by one thread at a time, so this class is not
+ * synchronized. Hit/miss/eviction counters are shared with the owning pool.
+ */
+class StatementCache {
+
+    private final Connection physical;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final AtomicLong evictions;
+
+    // Access-ordered: the eldest entry is the least recently used statement
+    private final LinkedHashMap<String, CachedStatement> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    StatementCache(Connection physical, int capacity, AtomicLong hits, AtomicLong misses, AtomicLong evictions) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one if it is not
+     * already in use by the caller.
+     *
+     * @param owner             The pooled connection handle reported by {@code getConnection()}.
+     * @param sql               The SQL text.
+     * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or {@link Statement#NO_GENERATED_KEYS}.
+     */
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+
+        CachedStatement cached = entries.get(key);
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.newHandle(owner);
+        }
+
+        misses.incrementAndGet();
+        PreparedStatement ps = physical.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // Same SQL is already open (nested use); hand out a plain, uncached statement
+            return ps;
+        }
+
+        cached = new CachedStatement(key, ps);
+        cached.inUse = true;
+        return cached.newHandle(owner);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, CachedStatement>> it = entries.entrySet().iterator();
+        while (entries.size() > capacity && it.hasNext()) {
+            CachedStatement eldest = it.next().getValue();
+            if (eldest.inUse) {
+                continue;
+            }
+            it.remove();
+            evictions.incrementAndGet();
+            closeQuietly(eldest.statement);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Closes every cached statement. Called when the physical connection is discarded.
+     */
+    void clear() {
+        for (CachedStatement cached : entries.values()) {
+            closeQuietly(cached.statement);
+        }
+        entries.clear();
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private final class CachedStatement {
+        private final String key;
+        private final PreparedStatement statement;
+        private final int defaultFetchSize;
+        private final int defaultMaxRows;
+        private final int defaultMaxFieldSize;
+        private final int defaultQueryTimeout;
+        private boolean inUse;
+        // Tracked here rather than asked from the driver, some drivers always answer false
+        private boolean poolable = true;
+
+        private CachedStatement(String key, PreparedStatement statement) throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.defaultFetchSize = statement.getFetchSize();
+            this.defaultMaxRows = statement.getMaxRows();
+            this.defaultMaxFieldSize = statement.getMaxFieldSize();
+            this.defaultQueryTimeout = statement.getQueryTimeout();
+        }
+
+        private PreparedStatement newHandle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Handle(this, owner));
+        }
+
+        /**
+         * Puts the statement back into a reusable state and into the cache. Statements marked
+         * not poolable, duplicates of a cached one and statements that fail to reset are closed
+         * for real.
+         */
+        private void returnToCache() {
+            try {
+                if (!poolable) {
+                    discard();
+                    return;
+                }
+                ResultSet open = statement.getResultSet();
+                if (open != null) {
+                    open.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                statement.setFetchSize(defaultFetchSize);
+                statement.setMaxRows(defaultMaxRows);
+                statement.setMaxFieldSize(defaultMaxFieldSize);
+                statement.setQueryTimeout(defaultQueryTimeout);
+                inUse = false;
+            } catch (SQLException e) {
+                discard();
+                return;
+            }
+            CachedStatement current = entries.get(key);
+            if (current == null) {
+                entries.put(key, this);
+                evictIfNeeded();
+            } else if (current != this) {
+                closeQuietly(statement);
+            }
+        }
+
+        private void discard() {
+            entries.remove(key, this);
+            closeQuietly(statement);
+        }
+    }
+
+    private static final class Handle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean closed;
+
+        private Handle(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        cached.returnToCache();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "setPoolable":
+                    cached.poolable = (Boolean) args[0];
+                    return null;
+                case "isPoolable":
+                    return cached.poolable;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
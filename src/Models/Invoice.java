@@ -1,4 +1,103 @@
 package Models;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class Invoice {
+    private int orderId;
+    private LocalDateTime orderTime;
+    private String customerName;
+    private String address;
+    private String phone;
+    private String deliveryInfo;
+    private double loyaltyDiscountPercent;
+    private double totalAmount;
+
+    // Faturadaki satırlar, siparişteki sırayla
+    private List<Line> lines = new ArrayList<>();
+
+    public Invoice() {}
+
+    /**
+     * Collects what an invoice shows from a stored order.
+     *
+     * @param order        The order, with its items.
+     * @param customer     The customer; address and phone as they should appear on the invoice.
+     * @param deliveryInfo The delivery notes given at checkout.
+     * @param productNames Product names by id; lines of unknown products show the id instead.
+     * @return The invoice.
+     */
+    public static Invoice from(Order order, User customer, String deliveryInfo, Map<Integer, String> productNames) {
+        Invoice invoice = new Invoice();
+        invoice.setOrderId(order.getId());
+        invoice.setOrderTime(order.getOrderTime());
+        invoice.setCustomerName(customer.getFullName());
+        invoice.setAddress(customer.getAddress());
+        invoice.setPhone(customer.getPhone());
+        invoice.setDeliveryInfo(deliveryInfo);
+        invoice.setLoyaltyDiscountPercent(order.getLoyaltyDiscountPercent());
+        invoice.setTotalAmount(order.getTotalAmount());
+
+        List<Line> lines = new ArrayList<>(order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            String name = productNames.get(item.getProductId());
+            lines.add(new Line(name != null ? name : "Product ID " + item.getProductId(),
+                    item.getAmountKg(), item.getUnitPrice(), item.getLineTotal()));
+        }
+        invoice.setLines(lines);
+        return invoice;
+    }
+
+    // Getter ve Setterlar
+
+    public int getOrderId() { return orderId; }
+    public void setOrderId(int orderId) { this.orderId = orderId; }
+
+    public LocalDateTime getOrderTime() { return orderTime; }
+    public void setOrderTime(LocalDateTime orderTime) { this.orderTime = orderTime; }
+
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
+
+    public String getAddress() { return address; }
+    public void setAddress(String address) { this.address = address; }
+
+    public String getPhone() { return phone; }
+    public void setPhone(String phone) { this.phone = phone; }
+
+    public String getDeliveryInfo() { return deliveryInfo; }
+    public void setDeliveryInfo(String deliveryInfo) { this.deliveryInfo = deliveryInfo; }
+
+    public double getLoyaltyDiscountPercent() { return loyaltyDiscountPercent; }
+    public void setLoyaltyDiscountPercent(double loyaltyDiscountPercent) { this.loyaltyDiscountPercent = loyaltyDiscountPercent; }
+
+    public double getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
+
+    public List<Line> getLines() { return lines; }
+    public void setLines(List<Line> lines) { this.lines = lines; }
+
+    /**
+     * One product line of the invoice.
+     */
+    public static class Line {
+        private final String productName;
+        private final double amountKg;
+        private final double unitPrice;
+        private final double lineTotal;
+
+        public Line(String productName, double amountKg, double unitPrice, double lineTotal) {
+            this.productName = productName;
+            this.amountKg = amountKg;
+            this.unitPrice = unitPrice;
+            this.lineTotal = lineTotal;
+        }
+
+        public String getProductName() { return productName; }
+        public double getAmountKg() { return amountKg; }
+        public double getUnitPrice() { return unitPrice; }
+        public double getLineTotal() { return lineTotal; }
+    }
 }
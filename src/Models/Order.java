@@ -3,6 +3,7 @@ package Models;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Order {
     private int id;
@@ -18,6 +19,9 @@ public class Order {
 
     // Siparişin içindeki ürünleri tutan liste
     private List<OrderItem> items = new ArrayList<>();
+    // Satırlar yüklenmemişse ilk getItems() çağrısında bunları getirir (Service.OrderItemLoader);
+    // yükleme hata verirse loader kalır ve sonraki çağrı tekrar dener
+    private Supplier<List<OrderItem>> itemsLoader;
 
     public Order() {}
 
@@ -52,6 +56,19 @@ public class Order {
     public double getLoyaltyDiscountPercent() { return loyaltyDiscountPercent; }
     public void setLoyaltyDiscountPercent(double loyaltyDiscountPercent) { this.loyaltyDiscountPercent = loyaltyDiscountPercent; }
 
-    public List<OrderItem> getItems() { return items; }
-    public void setItems(List<OrderItem> items) { this.items = items; }
+    public List<OrderItem> getItems() {
+        Supplier<List<OrderItem>> loader = itemsLoader;
+        if (loader != null) {
+            items = loader.get();
+            itemsLoader = null;
+        }
+        return items;
+    }
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
+        this.itemsLoader = null;
+    }
+
+    public boolean isItemsLoaded() { return itemsLoader == null; }
+    public void setItemsLoader(Supplier<List<OrderItem>> itemsLoader) { this.itemsLoader = itemsLoader; }
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package Models;
 
+import java.time.LocalDateTime;
+
 public class OwnerSettings {
     private int id;
     private double minCartValue;
     private int loyaltyMinCompleted;
     private double loyaltyDiscountPercent;
+    private double vatRate;
+    private LocalDateTime updatedAt;
 
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
@@ -17,4 +21,10 @@ public class OwnerSettings {
 
     public double getLoyaltyDiscountPercent() { return loyaltyDiscountPercent; }
     public void setLoyaltyDiscountPercent(double loyaltyDiscountPercent) { this.loyaltyDiscountPercent = loyaltyDiscountPercent; }
+
+    public double getVatRate() { return vatRate; }
+    public void setVatRate(double vatRate) { this.vatRate = vatRate; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 }
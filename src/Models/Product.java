@@ -21,6 +21,8 @@ public class Product {
     private String imagePath;
     private byte[] imageContent;
     private String mimeType;
+    // SHA-256 of the stored image; listings load this instead of the image bytes
+    private String imageHash;
 
 
     private boolean isActive;
@@ -56,6 +58,27 @@ public class Product {
         this.isActive = true;
     }
 
+    /**
+     * Returns a field-by-field copy. Cached products are shared between threads and UI cells,
+     * so changes are made on a copy that then replaces the cached instance.
+     * The image bytes are shared, they are never modified in place.
+     */
+    public Product copy() {
+        Product copy = new Product();
+        copy.id = id;
+        copy.name = name;
+        copy.type = type;
+        copy.pricePerKg = pricePerKg;
+        copy.stockKg = stockKg;
+        copy.thresholdKg = thresholdKg;
+        copy.imagePath = imagePath;
+        copy.imageContent = imageContent;
+        copy.mimeType = mimeType;
+        copy.imageHash = imageHash;
+        copy.isActive = isActive;
+        return copy;
+    }
+
     /**
      * Calculates the current price of the product based on the stock level.
      * Implements the "Greedy Owner" rule[cite: 41].
@@ -70,11 +93,16 @@ public class Product {
 
     /**
      * Converts the stored BLOB (byte[]) to a JavaFX Image object.
+     * Products loaded from a listing carry only the image hash; their bytes are
+     * fetched on demand through {@link Service.ProductImageStore}.
      * Useful for ProductCardController.
      */
     public Image getJavaFXImage() {
         if (imageContent != null && imageContent.length > 0) {
             return new Image(new ByteArrayInputStream(imageContent));
+        } else if (imageHash != null) {
+            byte[] bytes = Service.ProductImageStore.getInstance().getImageBytes(id, imageHash);
+            return bytes != null ? new Image(new ByteArrayInputStream(bytes)) : null;
         } else if (imagePath != null && !imagePath.isEmpty()) {
             try {
                 return new Image(getClass().getResourceAsStream("/Images/" + imagePath));
@@ -85,6 +113,18 @@ public class Product {
         return null;
     }
 
+    /**
+     * Returns the card-sized variant of the product image. Falls back to the full image
+     * for products that were created in memory (image bytes or a bundled image path).
+     */
+    public Image getThumbnailImage() {
+        if (imageHash != null && (imageContent == null || imageContent.length == 0)) {
+            byte[] bytes = Service.ProductImageStore.getInstance().getThumbnailBytes(id, imageHash);
+            return bytes != null ? new Image(new ByteArrayInputStream(bytes)) : null;
+        }
+        return getJavaFXImage();
+    }
+
     // --- Getters and Setters ---
 
     public int getId() { return id; }
@@ -114,6 +154,13 @@ public class Product {
     public String getMimeType() { return mimeType; }
     public void setMimeType(String mimeType) { this.mimeType = mimeType; }
 
+    public String getImageHash() { return imageHash; }
+    public void setImageHash(String imageHash) { this.imageHash = imageHash; }
+
+    public boolean hasImage() {
+        return imageHash != null || (imageContent != null && imageContent.length > 0);
+    }
+
 
 
     public boolean isActive() { return isActive; }
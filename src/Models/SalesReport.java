@@ -0,0 +1,70 @@
+package Models;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Result of an ad-hoc sales analysis (Service.SalesAnalytics): one row per group, highest
+ * revenue first, with the totals of the whole range.
+ */
+public class SalesReport {
+    private final String dimension;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final List<Row> rows;
+    private final double totalRevenue;
+    private final double totalKg;
+    private final long totalLines;
+    private final long elapsedMillis;
+
+    public SalesReport(String dimension, LocalDate from, LocalDate to, List<Row> rows,
+                       double totalRevenue, double totalKg, long totalLines, long elapsedMillis) {
+        this.dimension = dimension;
+        this.from = from;
+        this.to = to;
+        this.rows = rows;
+        this.totalRevenue = totalRevenue;
+        this.totalKg = totalKg;
+        this.totalLines = totalLines;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // Getter'lar
+    public String getDimension() { return dimension; }
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public List<Row> getRows() { return rows; }
+    public double getTotalRevenue() { return totalRevenue; }
+    public double getTotalKg() { return totalKg; }
+    public long getTotalLines() { return totalLines; }
+    public long getElapsedMillis() { return elapsedMillis; }
+
+    /**
+     * One group (product, product type, carrier or hour of day).
+     */
+    public static class Row {
+        private final int key;
+        private final String label;
+        private final double revenue;
+        private final double kg;
+        private final long lines;
+        private final double revenueShare;
+
+        public Row(int key, String label, double revenue, double kg, long lines, double revenueShare) {
+            this.key = key;
+            this.label = label;
+            this.revenue = revenue;
+            this.kg = kg;
+            this.lines = lines;
+            this.revenueShare = revenueShare;
+        }
+
+        public int getKey() { return key; }
+        public String getLabel() { return label; }
+        public double getRevenue() { return revenue; }
+        public double getKg() { return kg; }
+        public long getLines() { return lines; }
+        // Share of the range's line revenue, 0..1
+        public double getRevenueShare() { return revenueShare; }
+    }
+}
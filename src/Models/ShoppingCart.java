@@ -1,7 +1,5 @@
 package Models;
 
-import Dao.CouponDAO;
-import Dao.DBCouponDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -16,7 +14,6 @@ public class ShoppingCart {
     // The single instance of the cart (Singleton)
     private static ShoppingCart instance;
 
-    private CouponDAO couponDAO;
     private Coupon appliedCoupon;
 
     // ObservableList allows the UI to update automatically when items are added/removed
@@ -27,7 +24,6 @@ public class ShoppingCart {
     // Private constructor so no one else can create a new cart manually
     private ShoppingCart() {
         this.items = FXCollections.observableArrayList();
-        this.couponDAO = new DBCouponDAO();
     }
 
     /**
@@ -43,6 +39,16 @@ public class ShoppingCart {
         return instance;
     }
 
+    /**
+     * Creates a cart that is not the session's cart and is not shown by any screen, e.g. one per
+     * simulated customer in tools.LoadTest.
+     *
+     * @return A new, empty cart.
+     */
+    public static ShoppingCart createDetached() {
+        return new ShoppingCart();
+    }
+
     /**
      * Adds a product to the cart.
      * If the product already exists in the cart, it merges the quantity.
@@ -100,27 +106,15 @@ public class ShoppingCart {
         return total;
     }
 
-    public boolean applyCoupon(String code) {
-        Coupon coupon = couponDAO.getCouponByCode(code);
-        if (coupon != null && coupon.isActive()) {
-            // Check date validity
-            java.time.LocalDateTime now = java.time.LocalDateTime.now();
-            boolean isDateValid = true;
-
-            if (coupon.getValidFrom() != null && now.isBefore(coupon.getValidFrom())) {
-                isDateValid = false;
-            }
-            if (coupon.getValidTo() != null && now.isAfter(coupon.getValidTo())) {
-                isDateValid = false;
-            }
-
-            if (isDateValid) {
-                this.appliedCoupon = coupon;
-                return true;
-            }
-        }
-        this.appliedCoupon = null;
-        return false;
+    /**
+     * Applies a coupon that the caller has already checked (Service.CouponService#findUsableCoupon).
+     *
+     * @param coupon The coupon, or null to apply none.
+     * @return True if a coupon was applied.
+     */
+    public boolean applyCoupon(Coupon coupon) {
+        this.appliedCoupon = coupon;
+        return appliedCoupon != null;
     }
 
     public Coupon getAppliedCoupon() {
@@ -135,7 +129,15 @@ public class ShoppingCart {
         return items;
     }
 
+    /**
+     * Empties the cart. The session cart's item list is bound to the cart table, so the change
+     * is applied on the FX thread even when checkout finishes on a background thread.
+     */
     public void clearCart() {
-        items.clear();
+        if (this != instance || javafx.application.Platform.isFxApplicationThread()) {
+            items.clear();
+        } else {
+            javafx.application.Platform.runLater(items::clear);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package Service;
+
+import Dao.CouponDAO;
+import Dao.DBOrderDAO;
+import Dao.DBReportDAO;
+import Dao.DBUserDAO;
+import Dao.DaoMetrics;
+import Dao.MessageDao;
+import Dao.OrderDao;
+import Dao.ProductDAO;
+import Dao.ReportDAO;
+import Dao.UserDAO;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Asynchronous facade over a DAO. Every call is executed on a virtual thread through
+ * {@link DbTaskExecutor} and returns a {@link CompletableFuture}; controllers hand the
+ * future to {@link DbTaskExecutor#deliver} to get the result back on the FX thread.
+ *
+ * Usage:
+ * <pre>
+ *   DbTaskExecutor.deliver(AsyncDao.products().supply(ProductDAO::getAllProducts),
+ *           products -&gt; allProducts.setAll(products), this::showError);
+ * </pre>
+ *
+ * @param <D> The wrapped DAO type.
+ */
+public class AsyncDao<D> {
+
+    private final D dao;
+    private final DbTaskExecutor executor;
+
+    public AsyncDao(D dao) {
+        this(dao, DbTaskExecutor.getInstance());
+    }
+
+    public AsyncDao(D dao, DbTaskExecutor executor) {
+        this.dao = dao;
+        this.executor = executor;
+    }
+
+    public static AsyncDao<ProductDAO> products() { return new AsyncDao<>(DaoMetrics.wrap(ProductDAO.class, ProductService.getInstance())); }
+    public static AsyncDao<OrderDao> orders() { return new AsyncDao<>(DaoMetrics.wrap(OrderDao.class, new DBOrderDAO())); }
+    public static AsyncDao<UserDAO> users() { return new AsyncDao<>(DaoMetrics.wrap(UserDAO.class, new DBUserDAO())); }
+    public static AsyncDao<CouponDAO> coupons() { return new AsyncDao<>(CouponService.getInstance()); }
+    public static AsyncDao<ReportDAO> reports() { return new AsyncDao<>(DaoMetrics.wrap(ReportDAO.class, new DBReportDAO())); }
+    public static AsyncDao<MessageDao> messages() { return new AsyncDao<>(new MessageDao()); }
+
+    /**
+     * Runs a DAO query in the background.
+     *
+     * @param call The DAO method to invoke, e.g. {@code ProductDAO::getAllProducts}.
+     * @return A future holding the query result.
+     */
+    public <T> CompletableFuture<T> supply(Function<? super D, ? extends T> call) {
+        return executor.submit(() -> call.apply(dao));
+    }
+
+    /**
+     * Runs a DAO command that has no result in the background.
+     *
+     * @param call The DAO method to invoke, e.g. {@code d -> d.deleteProduct(id)}.
+     * @return A future completed when the command has finished.
+     */
+    public CompletableFuture<Void> run(Consumer<? super D> call) {
+        return executor.submit(() -> {
+            call.accept(dao);
+            return null;
+        });
+    }
+
+    /**
+     * @return The wrapped synchronous DAO.
+     */
+    public D getDao() {
+        return dao;
+    }
+}
@@ -1,5 +1,8 @@
 package Service;
 
+import Dao.DBUserDAO;
+import Dao.DaoMetrics;
+import Dao.UserDAO;
 import Models.User;
 import Database.DatabaseConnection;
 
@@ -20,6 +23,11 @@ public class AuthService {
      */
     private User currentUser;
 
+    /**
+     * User table access for registration, timed by {@link DaoMetrics}.
+     */
+    private final UserDAO userDAO = DaoMetrics.wrap(UserDAO.class, new DBUserDAO());
+
     /**
      * Private constructor to prevent direct instantiation (Singleton pattern).
      */
@@ -92,7 +100,6 @@ public class AuthService {
     public boolean register(String username, String password, String fullName, String phone, String email, String address) {
         try {
             Models.User newUser = new Models.User(username, password, fullName, phone, email, address, "CUSTOMER");
-            Dao.DBUserDAO userDAO = new Dao.DBUserDAO();
             userDAO.addUser(newUser);
             return true;
         } catch (Exception e) {
@@ -0,0 +1,304 @@
+package Service;
+
+import Dao.CouponDAO;
+import Dao.DBCouponDAO;
+import Dao.DaoMetrics;
+import Models.Coupon;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Singleton in-memory coupon table that sits in front of {@link DBCouponDAO}.
+ *
+ * All coupons are loaded once and compiled into a hash index by code, each with its validity
+ * window precomputed as epoch milliseconds, so applying a code (including an unknown one) is a
+ * map lookup and two comparisons instead of a query. The index is an immutable map behind a
+ * volatile field: any number of sessions look up concurrently without locking, and writers
+ * publish a new copy.
+ *
+ * Coupons added or deleted through this service update their own entry right away. Changes made
+ * elsewhere (another client, manual SQL) are picked up by a full reload once the index is older
+ * than {@link #RELOAD_INTERVAL_MS}; the table is small. The reload runs on {@link DbTaskExecutor}
+ * while readers keep using the previous index, and a reload that fails keeps that index and is
+ * tried again after {@link #RETRY_INTERVAL_MS}. Only the very first load runs on the caller.
+ */
+public class CouponService implements CouponDAO {
+
+    /**
+     * Maximum age of the index before the next read reloads it from the database.
+     */
+    public static final long RELOAD_INTERVAL_MS = 60_000;
+
+    /**
+     * Wait before a failed reload is tried again.
+     */
+    public static final long RETRY_INTERVAL_MS = 5_000;
+
+    private static CouponService instance;
+
+    private final CouponDAO couponDAO;
+    // Immutable once published; replaced as a whole under the lock
+    private volatile Index index;
+    // Guarded by "this": a background reload is in flight; count of changes made through this service
+    private boolean reloading;
+    private long writes;
+
+    private CouponService(CouponDAO couponDAO) {
+        this.couponDAO = couponDAO;
+    }
+
+    /**
+     * Returns the global coupon table.
+     *
+     * @return The singleton {@link CouponService}
+     */
+    public static synchronized CouponService getInstance() {
+        if (instance == null) {
+            instance = new CouponService(DaoMetrics.wrap(CouponDAO.class, new DBCouponDAO()));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns all coupons, in id order, from memory.
+     *
+     * @return An unmodifiable list of the coupons.
+     */
+    @Override
+    public List<Coupon> getAllCoupons() {
+        return currentIndex().coupons;
+    }
+
+    /**
+     * Same as {@link #getAllCoupons()}: served from the index, which keeps its last good
+     * contents when a reload fails.
+     */
+    @Override
+    public List<Coupon> loadAllCoupons() {
+        return currentIndex().coupons;
+    }
+
+    /**
+     * Looks a coupon up by code, ignoring case and accents like the database collation does.
+     * Never queries the database unless the index has not been loaded yet.
+     *
+     * @param code The code as typed.
+     * @return The coupon, or null if no coupon has this code.
+     */
+    @Override
+    public Coupon getCouponByCode(String code) {
+        CompiledCoupon compiled = lookup(code);
+        return compiled != null ? compiled.coupon : null;
+    }
+
+    /**
+     * Returns the coupon for a code if it can be used right now: active and inside its
+     * validity window.
+     *
+     * @param code The code as typed.
+     * @return The coupon, or null if the code is unknown, inactive or out of its window.
+     */
+    public Coupon findUsableCoupon(String code) {
+        CompiledCoupon compiled = lookup(code);
+        return compiled != null && compiled.isUsableAt(System.currentTimeMillis()) ? compiled.coupon : null;
+    }
+
+    @Override
+    public void addCoupon(Coupon coupon) {
+        couponDAO.addCoupon(coupon);
+        if (coupon.getId() <= 0) {
+            return; // Not inserted
+        }
+        synchronized (this) {
+            writes++;
+            if (index != null) {
+                Map<Integer, Coupon> byId = new LinkedHashMap<>(index.byId);
+                byId.put(coupon.getId(), coupon);
+                index = new Index(byId, index.expiresAt);
+            }
+        }
+    }
+
+    @Override
+    public void deleteCoupon(int id) {
+        couponDAO.deleteCoupon(id);
+        synchronized (this) {
+            writes++;
+            if (index != null && index.byId.containsKey(id)) {
+                Map<Integer, Coupon> byId = new LinkedHashMap<>(index.byId);
+                byId.remove(id);
+                index = new Index(byId, index.expiresAt);
+            }
+        }
+    }
+
+    /**
+     * Drops the index; the next read reloads all coupons.
+     */
+    public synchronized void invalidate() {
+        writes++;
+        index = null;
+    }
+
+    private CompiledCoupon lookup(String code) {
+        if (code == null) {
+            return null;
+        }
+        return currentIndex().byCode.get(normalize(code));
+    }
+
+    private Index currentIndex() {
+        Index current = index;
+        if (current == null) {
+            return loadFirst();
+        }
+        if (System.currentTimeMillis() >= current.expiresAt) {
+            scheduleReload();
+        }
+        return current;
+    }
+
+    /**
+     * Loads the index on the caller when there is nothing to serve yet.
+     *
+     * @throws IllegalStateException If the coupons cannot be read; nothing is cached, so the
+     *                               next call tries again.
+     */
+    private synchronized Index loadFirst() {
+        Index current = index;
+        if (current == null) {
+            try {
+                current = new Index(byId(couponDAO.loadAllCoupons()), System.currentTimeMillis() + RELOAD_INTERVAL_MS);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Coupons could not be loaded: " + e.getMessage(), e);
+            }
+            index = current;
+        }
+        return current;
+    }
+
+    private void scheduleReload() {
+        long writesBefore;
+        synchronized (this) {
+            if (reloading) {
+                return;
+            }
+            reloading = true;
+            writesBefore = writes;
+        }
+        try {
+            DbTaskExecutor.getInstance().submit(() -> {
+                reload(writesBefore);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Executor shut down; a later read tries again
+            synchronized (this) {
+                reloading = false;
+            }
+        }
+    }
+
+    private void reload(long writesBefore) {
+        List<Coupon> loaded = null;
+        try {
+            loaded = couponDAO.loadAllCoupons();
+        } catch (SQLException e) {
+            System.err.println("CouponService: Could not reload coupons, keeping the current ones: " + e.getMessage());
+        }
+        synchronized (this) {
+            reloading = false;
+            Index current = index;
+            if (current == null) {
+                return; // Invalidated meanwhile; the next read loads everything
+            }
+            long now = System.currentTimeMillis();
+            if (loaded == null) {
+                index = new Index(current.byId, now + RETRY_INTERVAL_MS);
+            } else if (writes != writesBefore) {
+                // A coupon was added or deleted while loading and may be missing from the result; reload on the next read
+                index = new Index(current.byId, now);
+            } else {
+                index = new Index(byId(loaded), now + RELOAD_INTERVAL_MS);
+            }
+        }
+    }
+
+    private static Map<Integer, Coupon> byId(List<Coupon> coupons) {
+        Map<Integer, Coupon> byId = new LinkedHashMap<>();
+        for (Coupon coupon : coupons) {
+            byId.put(coupon.getId(), coupon);
+        }
+        return byId;
+    }
+
+    /**
+     * Index key for a code: trimmed, without accents and lower case, so that lookups agree with
+     * the case and accent insensitive collation of coupon.code.
+     */
+    static String normalize(String code) {
+        String stripped = Normalizer.normalize(code.trim(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One published version of the coupon table.
+     */
+    private static final class Index {
+        private final Map<Integer, Coupon> byId;
+        private final Map<String, CompiledCoupon> byCode;
+        private final List<Coupon> coupons;
+        // When the next read starts a background reload
+        private final long expiresAt;
+
+        private Index(Map<Integer, Coupon> byId, long expiresAt) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.expiresAt = expiresAt;
+            Map<String, CompiledCoupon> byCode = new HashMap<>(byId.size() * 2);
+            List<Coupon> sorted = new ArrayList<>(byId.values());
+            sorted.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+            for (Coupon coupon : sorted) {
+                if (coupon.getCode() != null) {
+                    byCode.put(normalize(coupon.getCode()), new CompiledCoupon(coupon));
+                }
+            }
+            this.byCode = byCode;
+            this.coupons = Collections.unmodifiableList(sorted);
+        }
+    }
+
+    /**
+     * A coupon with its validity window as epoch milliseconds.
+     */
+    private static final class CompiledCoupon {
+        private final Coupon coupon;
+        private final boolean active;
+        private final long validFrom;
+        private final long validTo;
+
+        private CompiledCoupon(Coupon coupon) {
+            this.coupon = coupon;
+            this.active = coupon.isActive();
+            this.validFrom = coupon.getValidFrom() != null ? toEpochMillis(coupon.getValidFrom()) : Long.MIN_VALUE;
+            this.validTo = coupon.getValidTo() != null ? toEpochMillis(coupon.getValidTo()) : Long.MAX_VALUE;
+        }
+
+        private boolean isUsableAt(long now) {
+            return active && now >= validFrom && now <= validTo;
+        }
+
+        private static long toEpochMillis(LocalDateTime time) {
+            return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Singleton executor that runs blocking JDBC work on virtual threads so the JavaFX
+ * application thread never waits on the database.
+ * The number of tasks talking to the database at the same time is capped by a semaphore,
+ * so a burst of UI requests cannot exhaust the connection pool.
+ */
+public class DbTaskExecutor {
+
+    /**
+     * Default concurrency limit; kept below the connection pool's maximum size so
+     * synchronous callers can still get a connection.
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    private static DbTaskExecutor instance;
+    private static int configuredMaxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+    private final ExecutorService executor;
+    private final Semaphore limiter;
+    private final int maxConcurrency;
+
+    private DbTaskExecutor(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.limiter = new Semaphore(maxConcurrency, true);
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("db-task-", 0).factory());
+    }
+
+    /**
+     * Returns the global instance, creating it with the configured concurrency limit.
+     *
+     * @return The singleton {@link DbTaskExecutor}
+     */
+    public static synchronized DbTaskExecutor getInstance() {
+        if (instance == null) {
+            instance = new DbTaskExecutor(configuredMaxConcurrency);
+        }
+        return instance;
+    }
+
+    /**
+     * Sets how many database tasks may run at once. Must be called before the first
+     * {@link #getInstance()} call to take effect.
+     *
+     * @param maxConcurrency The maximum number of concurrently running tasks (at least 1).
+     */
+    public static synchronized void configure(int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be at least 1");
+        }
+        if (instance != null) {
+            System.err.println("DbTaskExecutor: already started with limit " + instance.maxConcurrency + ", ignoring new limit " + maxConcurrency);
+            return;
+        }
+        configuredMaxConcurrency = maxConcurrency;
+    }
+
+    // Task states: waiting for a concurrency slot, running the task, cancelled before it ran
+    private static final int WAITING = 0;
+    private static final int RUNNING = 1;
+    private static final int CANCELLED = 2;
+
+    /**
+     * Runs the task on a virtual thread once a concurrency slot is free.
+     * Cancelling the returned future stops a task that is still waiting for a slot. A task that
+     * is already running is never interrupted, since an interrupt during JDBC socket I/O makes
+     * the driver close the physical connection; it runs to the end and its result is dropped.
+     *
+     * @param task The blocking work to run.
+     * @return A future completed with the task result or its failure.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger state = new AtomicInteger(WAITING);
+        Future<?> running = executor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                return;
+            }
+            try {
+                if (!state.compareAndSet(WAITING, RUNNING)) {
+                    return;
+                }
+                result.complete(task.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                limiter.release();
+            }
+        });
+        result.whenComplete((value, error) -> {
+            // Only interrupt the wait for a slot, never the task itself
+            if (result.isCancelled() && state.compareAndSet(WAITING, CANCELLED)) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Delivers the outcome of a future on the JavaFX application thread.
+     * Cancelled futures are silently ignored, since the caller asked for them to stop.
+     *
+     * @param future    The future to observe.
+     * @param onSuccess Called with the result on the FX thread.
+     * @param onError   Called with the unwrapped failure on the FX thread; may be null.
+     */
+    public static <T> void deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                javafx.application.Platform.runLater(() -> onSuccess.accept(value));
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                return;
+            }
+            if (onError != null) {
+                javafx.application.Platform.runLater(() -> onError.accept(cause));
+            } else {
+                cause.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * @return How many tasks are currently allowed to hit the database at once.
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return How many tasks are running right now.
+     */
+    public int getRunningCount() {
+        return maxConcurrency - limiter.availablePermits();
+    }
+
+    /**
+     * Stops accepting new tasks and interrupts running ones. Called on application exit.
+     */
+    public static synchronized void shutdown() {
+        if (instance != null) {
+            instance.executor.shutdownNow();
+            instance = null;
+        }
+    }
+}
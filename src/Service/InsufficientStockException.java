@@ -0,0 +1,27 @@
+package Service;
+
+import Dao.CheckoutDAO;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown by {@link OrderService#placeOrder} when one or more cart lines exceed the available
+ * stock. Nothing was written; {@link #getShortages()} lists every line that fell short.
+ */
+public class InsufficientStockException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    // Not serialized; a deserialized exception reports no shortages
+    private final transient List<CheckoutDAO.StockShortage> shortages;
+
+    public InsufficientStockException(List<CheckoutDAO.StockShortage> shortages) {
+        super("Insufficient stock for " + shortages.size() + " product(s)");
+        this.shortages = Collections.unmodifiableList(shortages);
+    }
+
+    public List<CheckoutDAO.StockShortage> getShortages() {
+        return shortages != null ? shortages : Collections.emptyList();
+    }
+}
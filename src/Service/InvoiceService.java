@@ -0,0 +1,314 @@
+package Service;
+
+import Dao.DBInvoiceDAO;
+import Dao.DaoMetrics;
+import Dao.InvoiceDAO;
+import Dao.InvoiceJobDAO;
+import Models.Invoice;
+import Models.Order;
+import Models.User;
+import Utils.InvoicePdfRenderer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Singleton service that renders and stores invoices in the background.
+ *
+ * Checkout only writes an invoice_job row in its transaction (see {@link Dao.CheckoutDAO}) and
+ * then calls {@link #enqueue(int)}; the customer does not wait for rendering or for the invoice
+ * insert. Worker threads claim the job and render the invoice as PDF straight into the
+ * database with {@link InvoiceJobDAO#completeJob} (see {@link InvoicePdfRenderer}). A failed
+ * attempt is retried with exponential backoff, up to {@link #MAX_ATTEMPTS} times.
+ *
+ * The in-memory queue only wakes the workers up; the job table is the source of truth. A
+ * scanner re-reads due jobs every {@link #SCAN_INTERVAL_SECONDS}, so retries and jobs left by a
+ * restart are picked up without anyone calling {@link #enqueue(int)}.
+ */
+public class InvoiceService {
+
+    public static final int MAX_ATTEMPTS = 8;
+    static final int WORKER_COUNT = 2;
+    static final int SCAN_INTERVAL_SECONDS = 30;
+    static final int SCAN_LIMIT = 200;
+    // A claimed job is left alone this long, in case the worker dies mid-render
+    static final int LEASE_SECONDS = 120;
+    static final int BASE_RETRY_SECONDS = 5;
+    static final int MAX_RETRY_SECONDS = 600;
+
+    private static InvoiceService instance;
+
+    private final InvoiceJobDAO jobDAO = new InvoiceJobDAO();
+    private final InvoiceDAO invoiceDAO = DaoMetrics.wrap(InvoiceDAO.class, new DBInvoiceDAO());
+    private final OrderService orderService = new OrderService();
+    private final BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+    // Order ids currently in the queue, so the scanner does not queue the same job twice
+    private final Set<Integer> queued = ConcurrentHashMap.newKeySet();
+    private final Thread[] workers = new Thread[WORKER_COUNT];
+    private final ScheduledExecutorService scanner;
+    private volatile boolean running = true;
+
+    private InvoiceService() {
+        for (int i = 0; i < WORKER_COUNT; i++) {
+            workers[i] = new Thread(this::runWorker, "invoice-worker-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "invoice-scanner");
+            t.setDaemon(true);
+            return t;
+        });
+        scanner.scheduleWithFixedDelay(this::scanDueJobs, 0, SCAN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the global invoice service, starting its workers on first use.
+     *
+     * @return The singleton {@link InvoiceService}
+     */
+    public static synchronized InvoiceService getInstance() {
+        if (instance == null) {
+            instance = new InvoiceService();
+        }
+        return instance;
+    }
+
+    /**
+     * Wakes a worker for an order whose invoice job was just committed. Returns immediately.
+     *
+     * @param orderId The order.
+     */
+    public void enqueue(int orderId) {
+        if (running && queued.add(orderId)) {
+            queue.offer(orderId);
+        }
+    }
+
+    /**
+     * Gives a failed invoice a fresh set of attempts, or queues one for an order that never had
+     * a job (e.g. placed while the job table was missing). Blocks on the database.
+     *
+     * @param orderId The order.
+     * @return True if the job was queued.
+     */
+    public boolean retry(int orderId) {
+        try {
+            jobDAO.resetJob(orderId);
+        } catch (SQLException e) {
+            System.err.println("InvoiceService: Could not reset invoice job for Order ID " + orderId + ": " + e.getMessage());
+            return false;
+        }
+        enqueue(orderId);
+        return true;
+    }
+
+    /**
+     * Returns the invoice state of several orders with one query. Blocks on the database.
+     *
+     * @param orderIds The orders.
+     * @return State per order id.
+     */
+    public Map<Integer, InvoiceJobDAO.Status> getStatuses(List<Integer> orderIds) {
+        return jobDAO.getStatuses(orderIds, MAX_ATTEMPTS);
+    }
+
+    /**
+     * Returns the text version of an order's invoice. Invoices stored as PDF keep no text copy;
+     * their text is generated from the order, which the PDF was rendered from. Blocks on the
+     * database.
+     *
+     * @param orderId The order.
+     * @return The invoice text, or null if the order does not exist.
+     */
+    public String getInvoiceText(int orderId) {
+        String stored = invoiceDAO.getInvoiceText(orderId);
+        if (stored != null) {
+            return stored;
+        }
+        try {
+            InvoiceJobDAO.InvoiceSource source = jobDAO.loadInvoiceSource(orderId);
+            if (source == null) {
+                return null;
+            }
+            String deliveryInfo = applySnapshot(source.getOrder(), source.getCustomer());
+            return orderService.generateInvoice(source.getOrder(), source.getCustomer(), deliveryInfo);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Writes the PDF invoice of an order to a file, rendering it on the spot for orders whose
+     * stored invoice predates the PDF format. Blocks on the database.
+     *
+     * @param orderId The order.
+     * @param target  The file to write; not created if the order does not exist, and removed
+     *                if writing it fails.
+     * @return False if the order does not exist.
+     * @throws IOException If the file cannot be written.
+     */
+    public boolean exportPdf(int orderId, Path target) throws IOException {
+        // Resolve what to write before the target is created or truncated
+        InvoiceJobDAO.InvoiceSource source = null;
+        if (!invoiceDAO.hasPdf(orderId)) {
+            try {
+                source = jobDAO.loadInvoiceSource(orderId);
+            } catch (SQLException e) {
+                throw new IOException("Could not load Order ID " + orderId, e);
+            }
+            if (source == null) {
+                return false;
+            }
+        }
+
+        boolean written = false;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target))) {
+            if (source != null) {
+                InvoicePdfRenderer.render(toInvoice(source), out);
+                written = true;
+            } else {
+                written = invoiceDAO.writePdfTo(orderId, out);
+            }
+        } finally {
+            if (!written) {
+                Files.deleteIfExists(target);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Builds the invoice model of a stored order.
+     *
+     * @param source The order with its customer and product names.
+     * @return The invoice, with address and delivery notes as given at checkout.
+     */
+    public static Invoice toInvoice(InvoiceJobDAO.InvoiceSource source) {
+        String deliveryInfo = applySnapshot(source.getOrder(), source.getCustomer());
+        return Invoice.from(source.getOrder(), source.getCustomer(), deliveryInfo, source.getProductNames());
+    }
+
+    /**
+     * Puts the checkout address from the order snapshot on the customer.
+     *
+     * @return The delivery notes from the snapshot.
+     */
+    private static String applySnapshot(Order order, User customer) {
+        // The snapshot holds the address and delivery notes as they were at checkout
+        String snapshot = order.getCustomerAddressSnapshot();
+        if (snapshot == null) {
+            return "";
+        }
+        int split = snapshot.indexOf(OrderService.DELIVERY_SEPARATOR);
+        if (split < 0) {
+            customer.setAddress(snapshot);
+            return "";
+        }
+        customer.setAddress(snapshot.substring(0, split));
+        return snapshot.substring(split + OrderService.DELIVERY_SEPARATOR.length());
+    }
+
+    private void runWorker() {
+        while (running) {
+            Integer orderId;
+            try {
+                orderId = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (orderId == null) {
+                continue;
+            }
+            queued.remove(orderId);
+            process(orderId);
+        }
+    }
+
+    private void process(int orderId) {
+        int attempt;
+        try {
+            attempt = jobDAO.claimJob(orderId, LEASE_SECONDS);
+        } catch (SQLException e) {
+            System.err.println("InvoiceService: Could not claim invoice job for Order ID " + orderId + ": " + e.getMessage());
+            return; // The scanner finds the job again
+        }
+        if (attempt == 0) {
+            return; // Done, leased by another worker, or waiting for its retry time
+        }
+
+        try {
+            InvoiceJobDAO.InvoiceSource source = jobDAO.loadInvoiceSource(orderId);
+            if (source == null) {
+                jobDAO.deleteJob(orderId);
+                return;
+            }
+            jobDAO.completeJob(orderId, toInvoice(source));
+            System.out.println("DB: Invoice saved for Order ID: " + orderId + " (attempt " + attempt + ")");
+        } catch (SQLException | RuntimeException e) {
+            int delay = retryDelaySeconds(attempt);
+            System.err.println("InvoiceService: Invoice for Order ID " + orderId + " failed (attempt " + attempt + "): " + e.getMessage());
+            try {
+                jobDAO.failJob(orderId, e.toString(), delay);
+            } catch (SQLException ex) {
+                ex.printStackTrace(); // The lease expires and the scanner retries anyway
+            }
+        }
+    }
+
+    private void scanDueJobs() {
+        try {
+            for (Integer orderId : jobDAO.findDueJobs(MAX_ATTEMPTS, SCAN_LIMIT)) {
+                enqueue(orderId);
+            }
+        } catch (SQLException e) {
+            if (!InvoiceJobDAO.isMissingTable(e)) {
+                System.err.println("InvoiceService: Scanning invoice jobs failed: " + e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // Keep the schedule alive
+        }
+    }
+
+    /**
+     * @return Seconds to wait after the given failed attempt: 5, 10, 20, ... up to 10 minutes.
+     */
+    static int retryDelaySeconds(int attempt) {
+        long delay = (long) BASE_RETRY_SECONDS << Math.min(Math.max(attempt - 1, 0), 20);
+        return (int) Math.min(MAX_RETRY_SECONDS, delay);
+    }
+
+    /**
+     * Stops the scanner and the workers. Queued jobs stay in the database and are picked up on
+     * the next start. Called on application exit, before the connection pool is closed.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        instance.running = false;
+        instance.scanner.shutdownNow();
+        for (Thread worker : instance.workers) {
+            try {
+                worker.join(2_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        instance = null;
+    }
+}
@@ -0,0 +1,105 @@
+package Service;
+
+import Dao.DBOrderDAO;
+import Dao.DaoMetrics;
+import Dao.LoyaltyDAO;
+import Dao.OrderDao;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Singleton in-memory cache of the customers' completed order counts, used for the loyalty
+ * discount at checkout.
+ *
+ * A count is read once from the customer_loyalty counter (a primary key lookup, see
+ * {@link LoyaltyDAO}) and then served from memory. Deliveries made in this application drop
+ * the cached value right away ({@link #orderCompleted(int)}); entries expire after
+ * {@link #TTL_MILLIS}, which bounds how long a delivery made by another instance goes unseen.
+ * Without the counter table (Utils.FixSchema not run) counts fall back to a COUNT over
+ * order_info.
+ */
+public class LoyaltyLedger {
+
+    static final long TTL_MILLIS = 60_000;
+
+    private static LoyaltyLedger instance;
+
+    private final LoyaltyDAO loyaltyDAO = new LoyaltyDAO();
+    private final OrderDao orderDao = DaoMetrics.wrap(OrderDao.class, new DBOrderDAO());
+    private final Map<Integer, Entry> counts = new ConcurrentHashMap<>();
+
+    private LoyaltyLedger() {}
+
+    /**
+     * Returns the global ledger.
+     *
+     * @return The singleton {@link LoyaltyLedger}
+     */
+    public static synchronized LoyaltyLedger getInstance() {
+        if (instance == null) {
+            instance = new LoyaltyLedger();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns a customer's number of completed orders. Served from memory when cached;
+     * otherwise blocks on one primary key lookup.
+     *
+     * @param customerId The customer.
+     * @return The completed order count.
+     */
+    public int getCompletedOrders(int customerId) {
+        long now = System.currentTimeMillis();
+        Entry entry = counts.get(customerId);
+        if (entry != null && now - entry.loadedAt < TTL_MILLIS) {
+            return entry.completedOrders;
+        }
+
+        int completed = load(customerId);
+        counts.put(customerId, new Entry(completed, now));
+        return completed;
+    }
+
+    /**
+     * Records that one of a customer's orders was just delivered. Call after
+     * {@link Dao.CarrierDAO#completeOrder} succeeded; the counter table was raised in its
+     * transaction, so the next read loads the new value. (Incrementing the cached value
+     * instead could count the delivery twice if a read loaded it in between.)
+     *
+     * @param customerId The customer.
+     */
+    public void orderCompleted(int customerId) {
+        counts.remove(customerId);
+    }
+
+    /**
+     * Drops all cached counts, e.g. after the counters were rebuilt.
+     */
+    public void invalidateAll() {
+        counts.clear();
+    }
+
+    private int load(int customerId) {
+        try {
+            return loyaltyDAO.getCompletedOrders(customerId);
+        } catch (SQLException e) {
+            if (!LoyaltyDAO.isMissingTable(e)) {
+                e.printStackTrace();
+            }
+            return orderDao.getCompletedOrderCount(customerId);
+        }
+    }
+
+    private static final class Entry {
+        private final int completedOrders;
+        private final long loadedAt;
+
+        private Entry(int completedOrders, long loadedAt) {
+            this.completedOrders = completedOrders;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package Service;
+
+import Dao.CarrierDAO;
+import Models.Order;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order change feed for one carrier dashboard.
+ *
+ * The first {@link #poll()} loads the three order lists in full and remembers the newest
+ * order_info.updated_at it has seen. Later polls only fetch the rows changed since then, so a
+ * quiet system costs one index range scan per poll instead of three full selects. Each changed
+ * order is classified into the list it now belongs to (or none, e.g. when another carrier
+ * picked it up); the dashboard patches its tables with the result.
+ *
+ * The delta query re-reads a short {@link #OVERLAP_MS} window before the high-water mark, so a
+ * transaction that committed late with an older timestamp is not missed; rows already applied
+ * at the same version are filtered out.
+ *
+ * The feed also decides how long to wait before the next poll: it starts at
+ * {@link #MIN_POLL_INTERVAL_MS} and doubles up to {@link #MAX_POLL_INTERVAL_MS} while nothing
+ * changes. Polls must not overlap; a dashboard runs at most one at a time.
+ */
+public class OrderChangeFeed {
+
+    public static final long MIN_POLL_INTERVAL_MS = 3_000;
+    public static final long MAX_POLL_INTERVAL_MS = 30_000;
+    static final long OVERLAP_MS = 1_000;
+
+    private final CarrierDAO carrierDAO;
+    private final int carrierId;
+
+    // Null until a full load succeeded with updated_at available
+    private Timestamp highWaterMark;
+    // Versions already applied inside the overlap window, by order id
+    private final Map<Integer, Timestamp> appliedVersions = new HashMap<>();
+    // Read by the FX thread to schedule the next poll
+    private volatile long pollInterval = MIN_POLL_INTERVAL_MS;
+
+    public OrderChangeFeed(CarrierDAO carrierDAO, int carrierId) {
+        this.carrierDAO = carrierDAO;
+        this.carrierId = carrierId;
+    }
+
+    /**
+     * Fetches what changed since the previous poll. Blocks on the database, so call it from
+     * a background thread (see {@link DbTaskExecutor}).
+     *
+     * @return The changes; a full snapshot on the first call or when deltas are unavailable.
+     */
+    public Changes poll() {
+        if (highWaterMark == null) {
+            return fullLoad();
+        }
+
+        List<CarrierDAO.OrderChange> rows;
+        try {
+            rows = carrierDAO.getOrdersChangedSince(new Timestamp(highWaterMark.getTime() - OVERLAP_MS));
+        } catch (SQLException e) {
+            System.err.println("OrderChangeFeed: Delta query failed, reloading: " + e.getMessage());
+            highWaterMark = null;
+            return fullLoad();
+        }
+
+        Changes changes = new Changes(false);
+        for (CarrierDAO.OrderChange row : rows) {
+            Order order = row.getOrder();
+            Timestamp version = row.getUpdatedAt();
+            if (version == null || version.equals(appliedVersions.get(order.getId()))) {
+                continue;
+            }
+            appliedVersions.put(order.getId(), version);
+            if (version.after(highWaterMark)) {
+                highWaterMark = version;
+            }
+            changes.add(classify(order), order);
+        }
+        pruneAppliedVersions();
+        adjustInterval(!changes.isEmpty());
+        return changes;
+    }
+
+    /**
+     * Returns the delay before the next poll, based on whether recent polls found anything.
+     *
+     * @return Delay in milliseconds.
+     */
+    public long getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Resets the backoff, e.g. after the carrier acted on an order and expects a change.
+     */
+    public void resetBackoff() {
+        pollInterval = MIN_POLL_INTERVAL_MS;
+    }
+
+    private Changes fullLoad() {
+        // Read the version first so a change racing with the load is seen by the next delta
+        Timestamp version;
+        try {
+            version = carrierDAO.getOrderVersion();
+            if (version == null) {
+                version = new Timestamp(0);
+            }
+        } catch (SQLException e) {
+            version = null; // order_info.updated_at missing; run Utils.FixSchema. Every poll is a full load.
+        }
+
+        Changes changes = new Changes(true);
+        for (Order order : carrierDAO.getAvailableOrders()) {
+            changes.add(Target.AVAILABLE, order);
+        }
+        for (Order order : carrierDAO.getOrdersByCarrier(carrierId, "ASSIGNED")) {
+            changes.add(Target.ACTIVE, order);
+        }
+        for (Order order : carrierDAO.getOrdersByCarrier(carrierId, "DELIVERED")) {
+            changes.add(Target.COMPLETED, order);
+        }
+
+        highWaterMark = version;
+        appliedVersions.clear();
+        pollInterval = MIN_POLL_INTERVAL_MS;
+        return changes;
+    }
+
+    private Target classify(Order order) {
+        String status = order.getStatus();
+        Integer assignedTo = order.getCarrierId();
+        if (assignedTo == null) {
+            return "PLACED".equals(status) || "CREATED".equals(status) ? Target.AVAILABLE : Target.NONE;
+        }
+        if (assignedTo != carrierId) {
+            return Target.NONE;
+        }
+        if ("ASSIGNED".equals(status)) {
+            return Target.ACTIVE;
+        }
+        if ("DELIVERED".equals(status)) {
+            return Target.COMPLETED;
+        }
+        return Target.NONE;
+    }
+
+    private void adjustInterval(boolean changed) {
+        pollInterval = changed ? MIN_POLL_INTERVAL_MS : Math.min(MAX_POLL_INTERVAL_MS, pollInterval * 2);
+    }
+
+    private void pruneAppliedVersions() {
+        long cutoff = highWaterMark.getTime() - OVERLAP_MS;
+        Iterator<Timestamp> it = appliedVersions.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().getTime() < cutoff) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * The dashboard list an order belongs in after a change.
+     */
+    public enum Target { AVAILABLE, ACTIVE, COMPLETED, NONE }
+
+    /**
+     * Result of one poll. A full result replaces the lists; a delta result moves each order to
+     * its target list (removing it from the others), with {@link Target#NONE} meaning "remove".
+     */
+    public static final class Changes {
+        private final boolean full;
+        private final List<Order> orders = new ArrayList<>();
+        private final List<Target> targets = new ArrayList<>();
+
+        Changes(boolean full) {
+            this.full = full;
+        }
+
+        void add(Target target, Order order) {
+            orders.add(order);
+            targets.add(target);
+        }
+
+        public boolean isFull() { return full; }
+        public boolean isEmpty() { return orders.isEmpty(); }
+        public int size() { return orders.size(); }
+        public Order getOrder(int index) { return orders.get(index); }
+        public Target getTarget(int index) { return targets.get(index); }
+    }
+}
@@ -0,0 +1,92 @@
+package Service;
+
+import Dao.DBOrderDAO;
+import Dao.DaoMetrics;
+import Dao.OrderDao;
+import Models.Order;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Pages through one customer's order history for an order history table.
+ *
+ * Pages are read newest first with keyset paging ({@link OrderDao#getOrderHistoryPage}), so
+ * opening the history costs one small query however many orders the customer has. As soon as a
+ * page has arrived the following one is requested in the background, so when the table is
+ * scrolled to the end the next rows are usually already in memory. The orders come without
+ * their lines; {@link Order#getItems()} loads them for the whole page at once on first use
+ * (see {@link OrderItemLoader}).
+ *
+ * Not thread safe; used from the FX thread of the view it belongs to, which must wait for a
+ * page before asking for the next one. A failed page fails the ones after it; to refresh the view
+ * or to recover, start a new pager.
+ */
+public class OrderHistoryPager {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private final OrderDao orderDao;
+    private final int customerId;
+    private final int pageSize;
+
+    // The page the next call to nextPage() hands out, already requested
+    private CompletableFuture<List<Order>> next;
+    private volatile boolean exhausted;
+
+    public OrderHistoryPager(int customerId) {
+        this(DaoMetrics.wrap(OrderDao.class, new DBOrderDAO()), customerId, DEFAULT_PAGE_SIZE);
+    }
+
+    public OrderHistoryPager(OrderDao orderDao, int customerId, int pageSize) {
+        this.orderDao = orderDao;
+        this.customerId = customerId;
+        this.pageSize = pageSize;
+        this.next = fetchAfter(null);
+    }
+
+    /**
+     * Returns the next page and starts loading the one after it once this one has arrived.
+     *
+     * @return A future holding the orders of the next page; empty when the history is exhausted.
+     */
+    public CompletableFuture<List<Order>> nextPage() {
+        if (exhausted) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        CompletableFuture<List<Order>> page = next;
+        next = page.thenCompose(this::fetchAfter);
+        return page.thenApply(orders -> {
+            if (orders.size() < pageSize) {
+                exhausted = true;
+            }
+            return orders;
+        });
+    }
+
+    /**
+     * @return False once a page shorter than the page size was handed out.
+     */
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Requests the page that follows {@code previous}, or the first page if it is null.
+     */
+    private CompletableFuture<List<Order>> fetchAfter(List<Order> previous) {
+        if (previous != null && previous.size() < pageSize) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        Order last = previous != null ? previous.get(previous.size() - 1) : null;
+        return DbTaskExecutor.getInstance().submit(() -> {
+            List<Order> page = orderDao.getOrderHistoryPage(customerId, last, pageSize);
+            OrderItemLoader.getInstance().attach(page);
+            return page;
+        });
+    }
+}
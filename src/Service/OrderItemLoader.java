@@ -0,0 +1,111 @@
+package Service;
+
+import Dao.OrderItemDAO;
+import Models.Order;
+import Models.OrderItem;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton loader for the lines of orders that were read without them (e.g. the order history
+ * pages of {@link OrderHistoryPager}).
+ *
+ * {@link #attach(List)} gives each order of a list a lazy loader. The first time any of them is
+ * asked for its items, the lines of every order of that list that are not cached yet are read
+ * with one {@code IN (...)} query ({@link OrderItemDAO}), instead of one query per order.
+ * Order lines do not change once the order is placed, so loaded lines stay cached (least
+ * recently used first out, at most {@link #MAX_CACHED_ORDERS} orders).
+ */
+public class OrderItemLoader {
+
+    static final int MAX_CACHED_ORDERS = 5_000;
+
+    private static OrderItemLoader instance;
+
+    private final OrderItemDAO itemDAO = new OrderItemDAO();
+    // Access ordered for LRU eviction; guarded by "this"
+    private final Map<Integer, List<OrderItem>> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<OrderItem>> eldest) {
+            return size() > MAX_CACHED_ORDERS;
+        }
+    };
+
+    private OrderItemLoader() {}
+
+    /**
+     * Returns the global loader.
+     *
+     * @return The singleton {@link OrderItemLoader}
+     */
+    public static synchronized OrderItemLoader getInstance() {
+        if (instance == null) {
+            instance = new OrderItemLoader();
+        }
+        return instance;
+    }
+
+    /**
+     * Makes the orders load their lines on first access, together with the other orders of
+     * the list. Nothing is queried here. The first access blocks on the database, so it belongs
+     * on a background thread. If it fails, the order keeps its loader and the next access tries
+     * again.
+     *
+     * @param orders Orders whose lines were not read.
+     */
+    public void attach(List<Order> orders) {
+        List<Order> batch = new ArrayList<>(orders);
+        for (Order order : batch) {
+            int orderId = order.getId();
+            order.setItemsLoader(() -> load(orderId, batch));
+        }
+    }
+
+    /**
+     * Returns the lines of one order, from the cache if possible.
+     *
+     * @param orderId The order.
+     * @return The lines (read only).
+     * @throws IllegalStateException If the lines could not be loaded; nothing is cached.
+     */
+    public List<OrderItem> getItems(int orderId) {
+        return load(orderId, List.of());
+    }
+
+    private List<OrderItem> load(int orderId, List<Order> batch) {
+        List<Integer> missing = new ArrayList<>();
+        synchronized (this) {
+            List<OrderItem> cached = cache.get(orderId);
+            if (cached != null) {
+                return cached;
+            }
+            missing.add(orderId);
+            for (Order order : batch) {
+                if (order.getId() != orderId && !cache.containsKey(order.getId())) {
+                    missing.add(order.getId());
+                }
+            }
+        }
+
+        // Queried without the lock; two threads may load the same orders, which is harmless
+        Map<Integer, List<OrderItem>> loaded;
+        try {
+            loaded = itemDAO.getItemsByOrderIds(missing);
+        } catch (SQLException e) {
+            // Not cached as empty: the order keeps its loader, so the next getItems() retries
+            throw new IllegalStateException("Could not load the lines of Order ID " + orderId + ": " + e.getMessage(), e);
+        }
+        List<OrderItem> items = Collections.unmodifiableList(loaded.get(orderId));
+        synchronized (this) {
+            for (Map.Entry<Integer, List<OrderItem>> entry : loaded.entrySet()) {
+                cache.put(entry.getKey(), entry.getKey() == orderId ? items : Collections.unmodifiableList(entry.getValue()));
+            }
+        }
+        return items;
+    }
+}
@@ -1,12 +1,15 @@
 package Service;
 
-import Dao.DBOrderDAO;
-import Dao.OrderDao;
+import Dao.CheckoutDAO;
 import Models.*;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 /**
  * Service class responsible for managing the order lifecycle, including placement,
@@ -17,18 +20,26 @@ import java.util.List;
  */
 public class OrderService {
 
-    private OrderDao orderDao = new DBOrderDAO();
+    /**
+     * Separates the address from the delivery notes in order_info.customer_address_snapshot.
+     */
+    public static final String DELIVERY_SEPARATOR = " | Delivery: ";
 
     /**
      * Processes the placement of a new order. This includes validating the cart,
      * calculating delivery times, applying loyalty discounts if applicable,
-     * updating product stock levels, and persisting the order and invoice.
+     * updating product stock levels, and persisting the order.
+     * Stock, order, order lines and an invoice job are written in one transaction (see {@link CheckoutDAO}):
+     * either all of them are stored or none. The invoice is rendered and stored afterwards by the
+     * {@link InvoiceService}, so the customer does not wait for it. The write goes through the {@link OrderWriter}, which
+     * shares the transaction with other checkouts arriving at the same moment.
      *
      * @param user         The user placing the order.
      * @param cart         The shopping cart containing the items to be purchased.
      * @param deliveryInfo A string containing delivery preferences or time slots.
      * @return The completed {@link Order} object.
      * @throws IllegalStateException If the provided shopping cart is empty.
+     * @throws InsufficientStockException If any line exceeds the available stock; nothing is stored.
      */
     public Order placeOrder(User user, ShoppingCart cart, String deliveryInfo) {
         if (cart.getItems().isEmpty()) {
@@ -64,40 +75,37 @@ public class OrderService {
             orderItems.add(oi);
         }
 
-        Dao.OwnerSettingsDAO settingsDAO = new Dao.DBOwnerSettingsDAO();
-        Models.OwnerSettings settings = settingsDAO.getSettings();
-
         order.setLoyaltyDiscountPercent(0.0);
+        order.setItems(orderItems);
 
-        if (settings != null) {
-            int completedOrders = orderDao.getCompletedOrderCount(user.getId());
-            if (completedOrders >= settings.getLoyaltyMinCompleted()) {
-                double discountPercent = settings.getLoyaltyDiscountPercent();
-                order.setLoyaltyDiscountPercent(discountPercent);
-                System.out.println("Loyalty Discount Applied: " + discountPercent + "% (Completed Orders: " + completedOrders + ")");
+        String fullAddressInfo = user.getAddress() + DELIVERY_SEPARATOR + deliveryInfo;
+        order.setCustomerAddressSnapshot(fullAddressInfo);
 
-                double currentTotal = order.getTotalAmount();
-                double discountAmount = currentTotal * (discountPercent / 100.0);
-                order.setTotalAmount(currentTotal - discountAmount);
-            }
-        }
+        // Loyalty eligibility from the ledger cache instead of counting the customer's order history;
+        // the rules come from the settings snapshot, so pricing needs no query
+        int completedOrders = LoyaltyLedger.getInstance().getCompletedOrders(user.getId());
+        applyLoyaltyDiscount(order, SettingsService.getInstance().awaitLoaded(), completedOrders);
 
-        Dao.ProductDAO productDAO = new Dao.DBProductDAO();
+        // Written together with other concurrent checkouts (group commit); waits for this order's outcome
+        CheckoutDAO.CheckoutRequest request = new CheckoutDAO.CheckoutRequest(order);
+        List<CheckoutDAO.StockShortage> shortages;
+        try {
+            shortages = OrderWriter.getInstance().submit(request).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        if (!shortages.isEmpty()) {
+            throw new InsufficientStockException(shortages);
+        }
+        InvoiceService.getInstance().enqueue(order.getId());
+        System.out.println("Invoice queued for Order ID: " + order.getId());
 
+        // Keep the cached catalog in line with the stock just sold
+        Map<Integer, Double> soldKg = new HashMap<>();
         for (OrderItem oi : orderItems) {
-            boolean success = productDAO.decreaseStock(oi.getProductId(), oi.getAmountKg());
-            if (!success) {
-                System.err.println("Warning: Could not decrease stock for Product ID: " + oi.getProductId());
-            }
+            soldKg.merge(oi.getProductId(), oi.getAmountKg(), Double::sum);
         }
-        order.setItems(orderItems);
-
-        String fullAddressInfo = user.getAddress() + " | Delivery: " + deliveryInfo;
-        order.setCustomerAddressSnapshot(fullAddressInfo);
-
-        orderDao.saveOrder(order);
-
-        saveInvoiceToFile(order, user, deliveryInfo);
+        ProductService.getInstance().stockDecreased(soldKg);
 
         cart.clearCart();
 
@@ -105,19 +113,22 @@ public class OrderService {
     }
 
     /**
-     * Generates the invoice content and persists it to the database for a specific order.
+     * Applies the loyalty discount when the customer has enough completed orders.
      *
-     * @param order        The finalized order object.
-     * @param user         The user who placed the order.
-     * @param deliveryInfo Information regarding the delivery.
+     * @param order           The order being placed, with its subtotal as total amount.
+     * @param settings        The current owner settings.
+     * @param completedOrders The customer's number of completed orders.
      */
-    private void saveInvoiceToFile(Order order, User user, String deliveryInfo) {
-        String invoiceContent = generateInvoice(order, user, deliveryInfo);
-
-        Dao.InvoiceDAO invoiceDAO = new Dao.DBInvoiceDAO();
-        invoiceDAO.saveInvoice(order.getId(), invoiceContent);
-
-        System.out.println("Invoice generated and saved to database for Order ID: " + order.getId());
+    private void applyLoyaltyDiscount(Order order, SettingsService.Snapshot settings, int completedOrders) {
+        if (settings.isLoyaltyEligible(completedOrders)) {
+            double discountPercent = settings.getLoyaltyDiscountPercent();
+            order.setLoyaltyDiscountPercent(discountPercent);
+            System.out.println("Loyalty Discount Applied: " + discountPercent + "% (Completed Orders: " + completedOrders + ")");
+
+            double subtotal = order.getTotalAmount();
+            double discountAmount = subtotal * (discountPercent / 100.0);
+            order.setTotalAmount(subtotal - discountAmount);
+        }
     }
 
     /**
@@ -130,7 +141,9 @@ public class OrderService {
      * @return A formatted string containing the full invoice details.
      */
     public String generateInvoice(Order order, User user, String deliveryInfo) {
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(512 + order.getItems().size() * 64);
+        // One Formatter for all lines instead of a String.format (and its parse) per line
+        Formatter fmt = new Formatter(sb);
         sb.append("============= INVOICE =============\n");
         sb.append("Order ID: ").append(order.getId()).append("\n");
         sb.append("Date: ").append(order.getOrderTime()).append("\n");
@@ -140,15 +153,15 @@ public class OrderService {
         sb.append("Delivery Info: ").append(deliveryInfo).append("\n");
         sb.append("-----------------------------------\n");
         for (OrderItem item : order.getItems()) {
-            sb.append(String.format("Product ID %d : %.2f kg x %.2f TL = %.2f TL\n",
-                    item.getProductId(), item.getAmountKg(), item.getUnitPrice(), item.getLineTotal()));
+            fmt.format("Product ID %d : %.2f kg x %.2f TL = %.2f TL\n",
+                    item.getProductId(), item.getAmountKg(), item.getUnitPrice(), item.getLineTotal());
         }
         sb.append("-----------------------------------\n");
         sb.append("-----------------------------------\n");
         if (order.getLoyaltyDiscountPercent() > 0) {
-            sb.append(String.format("Loyalty Discount: %.2f%%\n", order.getLoyaltyDiscountPercent()));
+            fmt.format("Loyalty Discount: %.2f%%\n", order.getLoyaltyDiscountPercent());
         }
-        sb.append(String.format("TOTAL AMOUNT: %.2f TL\n", order.getTotalAmount()));
+        fmt.format("TOTAL AMOUNT: %.2f TL\n", order.getTotalAmount());
         sb.append("===================================\n");
         return sb.toString();
     }
@@ -0,0 +1,287 @@
+package Service;
+
+import Dao.CheckoutDAO;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Singleton group-commit pipeline for checkouts.
+ *
+ * Callers put their order on a bounded queue and get a future back. A single writer thread
+ * takes the first waiting order, keeps collecting for up to {@link #DEFAULT_LINGER_MILLIS}
+ * (or until {@link #DEFAULT_BATCH_SIZE} orders are waiting), and writes the whole batch with
+ * {@link CheckoutDAO#placeOrders} in one transaction. Under load, many checkouts share one set
+ * of multi-row statements and one commit; a lone checkout only waits for the linger time.
+ *
+ * Every caller still gets its own order id and its own outcome: an order short on stock is
+ * failed on its own while the rest of the batch commits. If the batch transaction itself fails,
+ * its orders are retried one by one so a single bad order cannot fail its neighbours.
+ */
+public class OrderWriter {
+
+    public static final int DEFAULT_BATCH_SIZE = 32;
+    public static final long DEFAULT_LINGER_MILLIS = 5;
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long ENQUEUE_TIMEOUT_MILLIS = 5_000;
+
+    private static OrderWriter instance;
+    private static int configuredBatchSize = DEFAULT_BATCH_SIZE;
+    private static long configuredLingerMillis = DEFAULT_LINGER_MILLIS;
+
+    private final CheckoutDAO checkoutDAO;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<Submission> queue = new ArrayBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Metrics, guarded by "this"
+    private long batchCount;
+    private long orderCount;
+    private long retriedBatchCount;
+    private int largestBatch;
+    private long totalCommitNanos;
+    private long maxCommitNanos;
+
+    private OrderWriter(CheckoutDAO checkoutDAO, int batchSize, long lingerMillis) {
+        this.checkoutDAO = checkoutDAO;
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.writer = new Thread(this::runLoop, "order-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Returns the global writer, starting its thread with the configured batch settings.
+     *
+     * @return The singleton {@link OrderWriter}
+     */
+    public static synchronized OrderWriter getInstance() {
+        if (instance == null) {
+            instance = new OrderWriter(new CheckoutDAO(), configuredBatchSize, configuredLingerMillis);
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the batch size and linger time. Must be called before the first
+     * {@link #getInstance()} call to take effect.
+     *
+     * @param batchSize    Maximum number of orders written in one transaction (at least 1).
+     * @param lingerMillis How long the writer waits for more orders after the first one arrived.
+     */
+    public static synchronized void configure(int batchSize, long lingerMillis) {
+        if (batchSize < 1 || lingerMillis < 0) {
+            throw new IllegalArgumentException("batchSize must be at least 1 and lingerMillis not negative");
+        }
+        if (instance != null) {
+            System.err.println("OrderWriter: already started with batch size " + instance.batchSize + ", ignoring new settings");
+            return;
+        }
+        configuredBatchSize = batchSize;
+        configuredLingerMillis = lingerMillis;
+    }
+
+    /**
+     * Queues an order for the next batch. Blocks only while the queue is full.
+     *
+     * @param request The priced order.
+     * @return A future completed with the short lines (empty when the order was placed, with its
+     *         id set), or failed with the database error.
+     */
+    public CompletableFuture<List<CheckoutDAO.StockShortage>> submit(CheckoutDAO.CheckoutRequest request) {
+        Submission submission = new Submission(request);
+        if (!running) {
+            submission.result.completeExceptionally(new IllegalStateException("Order writer is shut down"));
+            return submission.result;
+        }
+        try {
+            if (!queue.offer(submission, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                submission.result.completeExceptionally(new IllegalStateException("Too many orders in progress, please try again"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            submission.result.completeExceptionally(e);
+        }
+        return submission.result;
+    }
+
+    private void runLoop() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } catch (Throwable t) {
+                for (Submission submission : batch) {
+                    submission.result.completeExceptionally(t);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Submission> batch) {
+        List<CheckoutDAO.CheckoutRequest> requests = new ArrayList<>(batch.size());
+        for (Submission submission : batch) {
+            requests.add(submission.request);
+        }
+
+        long start = System.nanoTime();
+        try {
+            List<List<CheckoutDAO.StockShortage>> results = checkoutDAO.placeOrders(requests);
+            recordBatch(batch.size(), System.nanoTime() - start, false);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(results.get(i));
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (batch.size() == 1) {
+                recordBatch(1, System.nanoTime() - start, false);
+                batch.get(0).result.completeExceptionally(new RuntimeException("Database Error: Failed to place order.", e));
+                return;
+            }
+            // Find out which order broke the batch by writing each one on its own
+            System.err.println("OrderWriter: Batch of " + batch.size() + " failed, retrying one by one: " + e.getMessage());
+            recordBatch(0, System.nanoTime() - start, true);
+            for (Submission submission : batch) {
+                write(List.of(submission));
+            }
+        }
+    }
+
+    private synchronized void recordBatch(int orders, long commitNanos, boolean retried) {
+        if (retried) {
+            retriedBatchCount++;
+            return;
+        }
+        batchCount++;
+        orderCount += orders;
+        largestBatch = Math.max(largestBatch, orders);
+        totalCommitNanos += commitNanos;
+        maxCommitNanos = Math.max(maxCommitNanos, commitNanos);
+    }
+
+    /**
+     * Returns a snapshot of the writer's metrics.
+     *
+     * @return Batch fill and commit latency figures.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(batchSize, queue.size(), batchCount, orderCount, retriedBatchCount,
+                largestBatch, totalCommitNanos, maxCommitNanos);
+    }
+
+    /**
+     * Stops taking new orders, writes the ones already queued and waits briefly for the
+     * writer thread. Called on application exit, before the connection pool is closed.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        instance.running = false;
+        try {
+            instance.writer.join(ENQUEUE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        instance = null;
+    }
+
+    /**
+     * A queued order and the future its caller waits on.
+     */
+    private static final class Submission {
+        private final CheckoutDAO.CheckoutRequest request;
+        private final CompletableFuture<List<CheckoutDAO.StockShortage>> result = new CompletableFuture<>();
+
+        private Submission(CheckoutDAO.CheckoutRequest request) {
+            this.request = request;
+        }
+    }
+
+    /**
+     * Point-in-time metrics of the writer.
+     */
+    public static final class Stats {
+        private final int batchSize;
+        private final int queued;
+        private final long batchCount;
+        private final long orderCount;
+        private final long retriedBatchCount;
+        private final int largestBatch;
+        private final long totalCommitNanos;
+        private final long maxCommitNanos;
+
+        private Stats(int batchSize, int queued, long batchCount, long orderCount, long retriedBatchCount,
+                      int largestBatch, long totalCommitNanos, long maxCommitNanos) {
+            this.batchSize = batchSize;
+            this.queued = queued;
+            this.batchCount = batchCount;
+            this.orderCount = orderCount;
+            this.retriedBatchCount = retriedBatchCount;
+            this.largestBatch = largestBatch;
+            this.totalCommitNanos = totalCommitNanos;
+            this.maxCommitNanos = maxCommitNanos;
+        }
+
+        public int getBatchSize() { return batchSize; }
+        public int getQueued() { return queued; }
+        public long getBatchCount() { return batchCount; }
+        public long getOrderCount() { return orderCount; }
+        public long getRetriedBatchCount() { return retriedBatchCount; }
+        public int getLargestBatch() { return largestBatch; }
+        public long getMaxCommitNanos() { return maxCommitNanos; }
+
+        /**
+         * @return Average number of orders per committed batch.
+         */
+        public double getAverageBatchFill() {
+            return batchCount == 0 ? 0.0 : (double) orderCount / batchCount;
+        }
+
+        /**
+         * @return Average batch fill relative to the configured batch size, between 0 and 1.
+         */
+        public double getBatchFillRatio() {
+            return getAverageBatchFill() / batchSize;
+        }
+
+        /**
+         * @return Average time to write and commit one batch, in milliseconds.
+         */
+        public double getAverageCommitMillis() {
+            return batchCount == 0 ? 0.0 : totalCommitNanos / 1_000_000.0 / batchCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("OrderWriter[batches=%d, orders=%d, avgFill=%.1f/%d, largest=%d, retried=%d, avgCommit=%.2fms, maxCommit=%.2fms, queued=%d]",
+                    batchCount, orderCount, getAverageBatchFill(), batchSize, largestBatch, retriedBatchCount,
+                    getAverageCommitMillis(), maxCommitNanos / 1_000_000.0, queued);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package Service;
+
+import Dao.DBProductDAO;
+import Dao.DaoMetrics;
+import Dao.ProductCatalogDAO;
+import Utils.ThumbnailGenerator;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Singleton store for product images, kept apart from the product metadata.
+ * Product listings only carry the image hash; the bytes are read from
+ * product_info.image_blob the first time a card actually needs them.
+ *
+ * Entries are keyed by product id plus content hash, so replacing an image never serves
+ * stale bytes. The cache is an LRU bounded by total byte size rather than entry count.
+ * Product cards use {@link #getThumbnailBytes}; the full image is only read when asked for.
+ */
+public class ProductImageStore {
+
+    /**
+     * Default byte budget for cached images (32 MB).
+     */
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static ProductImageStore instance;
+
+    private final ProductCatalogDAO productDAO;
+    private final long maxBytes;
+
+    // Access-ordered LRU, guarded by "this"
+    private final LinkedHashMap<String, byte[]> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ProductImageStore(ProductCatalogDAO productDAO, long maxBytes) {
+        this.productDAO = productDAO;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the global image store.
+     *
+     * @return The singleton {@link ProductImageStore}
+     */
+    public static synchronized ProductImageStore getInstance() {
+        if (instance == null) {
+            instance = new ProductImageStore(DaoMetrics.wrap(ProductCatalogDAO.class, new DBProductDAO()), DEFAULT_MAX_BYTES);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the image bytes for a product, reading them from the database on a miss.
+     *
+     * @param productId The product id.
+     * @param hash      The image hash from the product listing.
+     * @return The image bytes, or null if the product has no image.
+     */
+    public byte[] getImageBytes(int productId, String hash) {
+        String key = key(productId, hash);
+        synchronized (this) {
+            byte[] cached = cache.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        DBProductDAO.ImageBlob blob;
+        try {
+            blob = productDAO.readImage(productId);
+        } catch (SQLException e) {
+            System.err.println("ProductImageStore: Could not load image for product " + productId + ": " + e.getMessage());
+            return null;
+        }
+        if (blob == null) {
+            return null;
+        }
+
+        // The image may have been replaced since the listing was loaded; cache it under its real hash
+        put(key(productId, blob.getHash() != null ? blob.getHash() : hash), blob.getBytes());
+        return blob.getBytes();
+    }
+
+    /**
+     * Returns the card-sized thumbnail of a product. Rows stored before thumbnails existed
+     * get one generated from the original on first use, and it is written back so the
+     * work is done only once.
+     *
+     * @param productId The product id.
+     * @param hash      The image hash from the product listing.
+     * @return The thumbnail bytes, or null if the product has no image.
+     */
+    public byte[] getThumbnailBytes(int productId, String hash) {
+        String key = thumbnailKey(productId, hash);
+        synchronized (this) {
+            byte[] cached = cache.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        try {
+            DBProductDAO.ImageBlob thumb = productDAO.readThumbnail(productId);
+            if (thumb != null) {
+                put(thumbnailKey(productId, thumb.getHash() != null ? thumb.getHash() : hash), thumb.getBytes());
+                return thumb.getBytes();
+            }
+
+            DBProductDAO.ImageBlob original = productDAO.readImage(productId);
+            if (original == null) {
+                return null;
+            }
+            ThumbnailGenerator.Thumbnail generated = ThumbnailGenerator.createThumbnail(original.getBytes());
+            if (generated == null) {
+                return original.getBytes(); // Not decodable by ImageIO; let JavaFX try the original
+            }
+            productDAO.saveThumbnail(productId, generated);
+            put(thumbnailKey(productId, original.getHash() != null ? original.getHash() : hash), generated.getBytes());
+            return generated.getBytes();
+        } catch (SQLException e) {
+            System.err.println("ProductImageStore: Could not load thumbnail for product " + productId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drops every cached image of a product, e.g. after the owner uploaded a new one.
+     *
+     * @param productId The product id.
+     */
+    public synchronized void evict(int productId) {
+        String prefix = productId + ":";
+        Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, byte[]> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                currentBytes -= entry.getValue().length;
+                it.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        currentBytes = 0;
+    }
+
+    private synchronized void put(String key, byte[] bytes) {
+        if (bytes.length > maxBytes) {
+            return; // Larger than the whole budget; serve it but do not cache it
+        }
+        byte[] previous = cache.put(key, bytes);
+        if (previous != null) {
+            currentBytes -= previous.length;
+        }
+        currentBytes += bytes.length;
+
+        Iterator<Map.Entry<String, byte[]>> it = cache.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, byte[]> eldest = it.next();
+            if (eldest.getKey().equals(key)) {
+                continue;
+            }
+            currentBytes -= eldest.getValue().length;
+            it.remove();
+            evictions++;
+        }
+    }
+
+    private static String key(int productId, String hash) {
+        return productId + ":" + hash;
+    }
+
+    private static String thumbnailKey(int productId, String hash) {
+        return productId + ":t:" + hash;
+    }
+
+    public synchronized long getCachedBytes() { return currentBytes; }
+    public synchronized int getCachedCount() { return cache.size(); }
+    public synchronized long getHitCount() { return hits; }
+    public synchronized long getMissCount() { return misses; }
+    public synchronized long getEvictionCount() { return evictions; }
+}
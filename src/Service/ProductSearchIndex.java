@@ -0,0 +1,500 @@
+package Service;
+
+import Models.Product;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * In-memory full text index over product names, used by the customer search box.
+ *
+ * Names are folded with Turkish case rules ("I" → "ı", "İ" → "i") and then stripped of the
+ * Turkish diacritics, so "cilek", "ÇİLEK" and "Çilek" all find "Çilek". Every word of a folded
+ * name is split into its 1, 2 and 3 character n-grams; each n-gram maps to a sorted posting list
+ * of document slots. A query is answered by intersecting the posting lists of its words' n-grams
+ * (trigrams for longer words) and verifying the surviving candidates, instead of scanning every
+ * product.
+ *
+ * Results are ranked: exact name, name prefix, word prefix, then substring matches; ties keep
+ * the alphabetical (Turkish collation) order. The index is kept in sync with the catalog by
+ * {@link #sync(List)}, which only re-indexes products whose name or type changed.
+ *
+ * All methods are synchronized. The query path reuses its intersection and ranking buffers,
+ * so a keystroke allocates little beyond the returned result list.
+ */
+public class ProductSearchIndex {
+
+    public static final Locale TURKISH = Locale.forLanguageTag("tr-TR");
+
+    private static final int GRAM = 3;
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_NAME_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_SUBSTRING = 3;
+    private static final int RANK_COUNT = 4;
+
+    // Document slots; a removed product leaves a null slot that is reused by the next insert
+    private Product[] products = new Product[64];
+    private String[] foldedNames = new String[64];
+    private String[] foldedTypes = new String[64];
+    private int slotCount;
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private final Map<Integer, Integer> slotByProductId = new HashMap<>();
+
+    private final Map<String, IntList> postings = new HashMap<>();
+
+    // Slots in alphabetical order of the product name; rebuilt lazily after changes
+    private int[] alphabetical = new int[0];
+    private int[] alphabeticalRank = new int[64];
+    private boolean orderDirty;
+    private final Collator collator = Collator.getInstance(TURKISH);
+
+    // Query scratch space, reused between searches
+    private final StringBuilder foldBuffer = new StringBuilder(32);
+    private int[] candidates = new int[64];
+    private int[] intersection = new int[64];
+    private final IntList[] rankBuckets = new IntList[RANK_COUNT];
+    private long[] sortScratch = new long[64];
+    private String[] queryWords = new String[8];
+
+    public ProductSearchIndex() {
+        for (int i = 0; i < RANK_COUNT; i++) {
+            rankBuckets[i] = new IntList();
+        }
+    }
+
+    /**
+     * Brings the index in line with the given catalog. Products that kept their name and type
+     * only have their reference swapped (so stock and price shown are current); new, renamed and
+     * removed products update their postings.
+     *
+     * @param catalog The full product catalog.
+     */
+    public synchronized void sync(List<Product> catalog) {
+        Map<Integer, Product> incoming = new HashMap<>(catalog.size() * 2);
+        for (Product p : catalog) {
+            incoming.put(p.getId(), p);
+        }
+
+        for (Integer productId : new ArrayList<>(slotByProductId.keySet())) {
+            if (!incoming.containsKey(productId)) {
+                remove(productId);
+            }
+        }
+        for (Product p : catalog) {
+            put(p);
+        }
+    }
+
+    /**
+     * Adds or replaces one product.
+     *
+     * @param product The product to index.
+     */
+    public synchronized void put(Product product) {
+        String name = fold(product.getName());
+        String type = product.getType() == null ? "" : product.getType().toUpperCase(Locale.ROOT);
+
+        Integer existing = slotByProductId.get(product.getId());
+        if (existing != null) {
+            int slot = existing;
+            if (name.equals(foldedNames[slot]) && type.equals(foldedTypes[slot])) {
+                if (!product.getName().equals(products[slot].getName())) {
+                    orderDirty = true; // Same folded text, different display name
+                }
+                products[slot] = product;
+                return;
+            }
+            remove(product.getId());
+        }
+
+        int slot = allocateSlot();
+        products[slot] = product;
+        foldedNames[slot] = name;
+        foldedTypes[slot] = type;
+        slotByProductId.put(product.getId(), slot);
+        forEachKey(name, key -> postings.computeIfAbsent(key, k -> new IntList()).addSorted(slot));
+        orderDirty = true;
+    }
+
+    /**
+     * Removes a product from the index.
+     *
+     * @param productId The product id.
+     */
+    public synchronized void remove(int productId) {
+        Integer slot = slotByProductId.remove(productId);
+        if (slot == null) {
+            return;
+        }
+        forEachKey(foldedNames[slot], key -> {
+            IntList list = postings.get(key);
+            if (list != null) {
+                list.removeSorted(slot);
+                if (list.size() == 0) {
+                    postings.remove(key);
+                }
+            }
+        });
+        products[slot] = null;
+        foldedNames[slot] = null;
+        foldedTypes[slot] = null;
+        freeSlots.add(slot);
+        orderDirty = true;
+    }
+
+    /**
+     * Finds the products whose name contains every word of the query.
+     *
+     * @param query The raw search text; blank returns every product.
+     * @param type  Product type to restrict to ("FRUIT"/"VEGETABLE"), or null for all.
+     * @return Matching products, best match first.
+     */
+    public synchronized List<Product> search(String query, String type) {
+        ensureOrder();
+        String folded = foldInto(query == null ? "" : query);
+
+        for (IntList bucket : rankBuckets) {
+            bucket.clear();
+        }
+
+        if (folded.isBlank()) {
+            List<Product> all = new ArrayList<>(alphabetical.length);
+            for (int slot : alphabetical) {
+                if (matchesType(slot, type)) {
+                    all.add(products[slot]);
+                }
+            }
+            return all;
+        }
+
+        int count = collectCandidates(folded);
+        String trimmed = folded.trim();
+        int wordCount = splitWords(folded);
+        for (int i = 0; i < count; i++) {
+            int slot = candidates[i];
+            if (!matchesType(slot, type)) {
+                continue;
+            }
+            int rank = rank(foldedNames[slot], trimmed, queryWords, wordCount);
+            if (rank >= 0) {
+                rankBuckets[rank].add(slot);
+            }
+        }
+
+        int total = 0;
+        for (IntList bucket : rankBuckets) {
+            total += bucket.size();
+        }
+        List<Product> result = new ArrayList<>(total);
+        for (IntList bucket : rankBuckets) {
+            sortScratch = bucket.sortBy(alphabeticalRank, sortScratch);
+            for (int i = 0; i < bucket.size(); i++) {
+                result.add(products[bucket.get(i)]);
+            }
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return slotByProductId.size();
+    }
+
+    /**
+     * Case folds text for matching: Turkish lower-casing, then the Turkish letters
+     * mapped to their closest ASCII letter so queries typed without diacritics still match.
+     *
+     * @param text Raw text.
+     * @return The folded form.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        appendFolded(text, sb);
+        return sb.toString();
+    }
+
+    private String foldInto(String text) {
+        foldBuffer.setLength(0);
+        appendFolded(text, foldBuffer);
+        return foldBuffer.toString();
+    }
+
+    private static void appendFolded(String text, StringBuilder out) {
+        String lower = text.toLowerCase(TURKISH);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            switch (c) {
+                case 'ç': c = 'c'; break;
+                case 'ğ': c = 'g'; break;
+                case 'ı': c = 'i'; break;
+                case 'ö': c = 'o'; break;
+                case 'ş': c = 's'; break;
+                case 'ü': c = 'u'; break;
+                case 'â': c = 'a'; break;
+                case 'î': c = 'i'; break;
+                case 'û': c = 'u'; break;
+                case '\u0307': continue; // Combining dot left by some upper-case input
+                default:
+                    if (Character.isWhitespace(c)) {
+                        c = ' ';
+                    }
+            }
+            out.append(c);
+        }
+    }
+
+    private int splitWords(String folded) {
+        int count = 0;
+        int start = 0;
+        int length = folded.length();
+        while (start < length) {
+            while (start < length && folded.charAt(start) == ' ') {
+                start++;
+            }
+            int end = start;
+            while (end < length && folded.charAt(end) != ' ') {
+                end++;
+            }
+            if (end > start) {
+                if (count == queryWords.length) {
+                    queryWords = Arrays.copyOf(queryWords, count * 2);
+                }
+                queryWords[count++] = folded.substring(start, end);
+            }
+            start = end;
+        }
+        return count;
+    }
+
+    /**
+     * Intersects the posting lists for every word of the query into {@link #candidates}.
+     *
+     * @return Number of candidate slots.
+     */
+    private int collectCandidates(String folded) {
+        int count = -1;
+        int start = 0;
+        int length = folded.length();
+        while (start < length) {
+            while (start < length && folded.charAt(start) == ' ') {
+                start++;
+            }
+            int end = start;
+            while (end < length && folded.charAt(end) != ' ') {
+                end++;
+            }
+            if (end > start) {
+                count = intersectWord(folded, start, end, count);
+                if (count == 0) {
+                    return 0;
+                }
+            }
+            start = end;
+        }
+        return Math.max(count, 0);
+    }
+
+    private int intersectWord(String folded, int start, int end, int count) {
+        if (end - start < GRAM) {
+            // Short words have their own 1- and 2-gram postings
+            return intersect(postings.get(folded.substring(start, end)), count);
+        }
+        for (int i = start; i + GRAM <= end; i++) {
+            count = intersect(postings.get(folded.substring(i, i + GRAM)), count);
+            if (count == 0) {
+                return 0;
+            }
+        }
+        return count;
+    }
+
+    private int intersect(IntList list, int count) {
+        if (list == null) {
+            return 0;
+        }
+        if (count < 0) {
+            candidates = ensureCapacity(candidates, list.size());
+            System.arraycopy(list.values, 0, candidates, 0, list.size());
+            return list.size();
+        }
+        intersection = ensureCapacity(intersection, count);
+        int n = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size(); ) {
+            int a = candidates[i];
+            int b = list.values[j];
+            if (a == b) {
+                intersection[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int[] swap = candidates;
+        candidates = intersection;
+        intersection = swap;
+        return n;
+    }
+
+    /**
+     * Verifies a candidate and ranks it; n-gram postings alone may match grams out of order.
+     *
+     * @return The rank bucket, or -1 if the name does not contain every query word.
+     */
+    private static int rank(String name, String query, String[] words, int wordCount) {
+        if (wordCount == 1 && name.equals(words[0])) {
+            return RANK_EXACT;
+        }
+        int best = RANK_NAME_PREFIX;
+        for (int w = 0; w < wordCount; w++) {
+            int wordRank = rankWord(name, words[w]);
+            if (wordRank < 0) {
+                return -1;
+            }
+            best = Math.max(best, wordRank);
+        }
+        if (best > RANK_EXACT && name.equals(query)) {
+            return RANK_EXACT;
+        }
+        return best;
+    }
+
+    private static int rankWord(String name, String word) {
+        int at = name.indexOf(word);
+        if (at < 0) {
+            return -1;
+        }
+        if (at == 0) {
+            return RANK_NAME_PREFIX;
+        }
+        for (; at > 0; at = name.indexOf(word, at + 1)) {
+            if (name.charAt(at - 1) == ' ') {
+                return RANK_WORD_PREFIX;
+            }
+        }
+        return RANK_SUBSTRING;
+    }
+
+    private boolean matchesType(int slot, String type) {
+        return type == null || foldedTypes[slot].equalsIgnoreCase(type);
+    }
+
+    private void ensureOrder() {
+        if (!orderDirty) {
+            return;
+        }
+        Integer[] slots = slotByProductId.values().toArray(new Integer[0]);
+        Arrays.sort(slots, (a, b) -> collator.compare(products[a].getName(), products[b].getName()));
+        alphabetical = new int[slots.length];
+        alphabeticalRank = ensureCapacity(alphabeticalRank, products.length);
+        for (int i = 0; i < slots.length; i++) {
+            alphabetical[i] = slots[i];
+            alphabeticalRank[slots[i]] = i;
+        }
+        orderDirty = false;
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.remove(freeSlots.size() - 1);
+        }
+        if (slotCount == products.length) {
+            int capacity = products.length * 2;
+            products = Arrays.copyOf(products, capacity);
+            foldedNames = Arrays.copyOf(foldedNames, capacity);
+            foldedTypes = Arrays.copyOf(foldedTypes, capacity);
+        }
+        return slotCount++;
+    }
+
+    /**
+     * Emits the index keys of a folded name: every 1, 2 and 3 character n-gram inside a word.
+     */
+    private static void forEachKey(String name, Consumer<String> sink) {
+        Set<String> seen = new HashSet<>();
+        int length = name.length();
+        for (int i = 0; i < length; i++) {
+            for (int n = 1; n <= GRAM && i + n <= length; n++) {
+                if (name.charAt(i + n - 1) == ' ') {
+                    break;
+                }
+                String key = name.substring(i, i + n);
+                if (seen.add(key)) {
+                    sink.accept(key);
+                }
+            }
+        }
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return array.length >= size ? array : new int[Math.max(size, array.length * 2)];
+    }
+
+    /**
+     * Growable int array used for posting lists and rank buckets.
+     */
+    private static final class IntList {
+        private int[] values = new int[8];
+        private int size;
+
+        int size() { return size; }
+        int get(int index) { return values[index]; }
+        void clear() { size = 0; }
+
+        void add(int value) {
+            values = ensureCapacity(values, size + 1);
+            values[size++] = value;
+        }
+
+        void addSorted(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            values = ensureCapacity(values, size + 1);
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = value;
+            size++;
+        }
+
+        void removeSorted(int value) {
+            int pos = Arrays.binarySearch(values, 0, size, value);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+            size--;
+        }
+
+        /**
+         * Sorts the values by the given key. Key and value are packed into one long so the
+         * sort runs on primitives; {@code scratch} is reused between calls.
+         */
+        long[] sortBy(int[] key, long[] scratch) {
+            scratch = scratch.length >= size ? scratch : new long[Math.max(size, scratch.length * 2)];
+            for (int i = 0; i < size; i++) {
+                scratch[i] = ((long) key[values[i]] << 32) | values[i];
+            }
+            Arrays.sort(scratch, 0, size);
+            for (int i = 0; i < size; i++) {
+                values[i] = (int) scratch[i];
+            }
+            return scratch;
+        }
+    }
+}
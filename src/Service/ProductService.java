@@ -1,4 +1,279 @@
 package Service;
 
-public class ProductService {
+import Dao.DBProductDAO;
+import Dao.DaoMetrics;
+import Dao.ProductCatalogDAO;
+import Dao.ProductDAO;
+import Models.Product;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Singleton in-memory product catalog that sits in front of {@link DBProductDAO}.
+ * Reads are served from an immutable snapshot; writes made through this service update
+ * the cached entry for exactly the product they touched. Cached products are never changed
+ * in place (UI cells and cart items hold them): a change puts a modified copy into a new
+ * snapshot, and the volatile snapshot write publishes it to other threads.
+ *
+ * Changes made by other processes (another client, the ImageSeeder tool, manual SQL) are
+ * picked up with a cheap version check on product_info (row count, max id and max
+ * updated_at) at most once every {@link #VERSION_CHECK_INTERVAL_MS}. When the version moved,
+ * only the rows updated since the last high-water mark are reloaded. updated_at is taken when a
+ * statement runs, not when it commits, so the delta re-reads a short {@link #OVERLAP_MS} window
+ * before the mark, and once more at the next check after the version moved: a checkout that
+ * commits late lands below the mark without changing the version.
+ *
+ * Every published snapshot is also applied to the {@link ProductSearchIndex}, which only
+ * re-indexes the products whose name or type changed.
+ */
+public class ProductService implements ProductDAO {
+
+    /**
+     * Minimum time between two version checks against the database.
+     */
+    public static final long VERSION_CHECK_INTERVAL_MS = 2_000;
+    static final long OVERLAP_MS = 1_000;
+
+    private static ProductService instance;
+
+    private final ProductCatalogDAO productDAO;
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    // Guarded by "this"; ordered by id like the unsorted SELECT it replaces
+    private final Map<Integer, Product> catalog = new LinkedHashMap<>();
+    private volatile List<Product> snapshot;
+    private DBProductDAO.CatalogVersion version;
+    private volatile long lastCheckedAt;
+    // Guarded by "this": the version moved at the last check, so the overlap window is read once more
+    private boolean overlapPending;
+
+    private long fullLoadCount;
+    private long deltaLoadCount;
+
+    private ProductService(ProductCatalogDAO productDAO) {
+        this.productDAO = productDAO;
+    }
+
+    /**
+     * Returns the global catalog instance.
+     *
+     * @return The singleton {@link ProductService}
+     */
+    public static synchronized ProductService getInstance() {
+        if (instance == null) {
+            instance = new ProductService(DaoMetrics.wrap(ProductCatalogDAO.class, new DBProductDAO()));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns all products. Served from memory unless the version check interval has
+     * elapsed, in which case the catalog is first synchronised with the database.
+     *
+     * @return An unmodifiable list of the cached products.
+     */
+    @Override
+    public List<Product> getAllProducts() {
+        List<Product> current = snapshot;
+        if (current != null && System.currentTimeMillis() - lastCheckedAt < VERSION_CHECK_INTERVAL_MS) {
+            return current;
+        }
+        synchronized (this) {
+            syncWithDatabase();
+            return snapshot;
+        }
+    }
+
+    @Override
+    public void addProduct(Product product) {
+        productDAO.addProduct(product);
+        if (product.getId() > 0) {
+            reloadProduct(product.getId());
+        } else {
+            invalidate();
+        }
+    }
+
+    @Override
+    public void updateProduct(Product product) {
+        productDAO.updateProduct(product);
+        if (product.getImageContent() != null) {
+            ProductImageStore.getInstance().evict(product.getId());
+        }
+        reloadProduct(product.getId());
+    }
+
+    @Override
+    public void deleteProduct(int productId) {
+        productDAO.deleteProduct(productId);
+        ProductImageStore.getInstance().evict(productId);
+        synchronized (this) {
+            if (catalog.remove(productId) != null) {
+                publishSnapshot();
+            }
+        }
+    }
+
+    @Override
+    public boolean decreaseStock(int productId, double amount) {
+        boolean success = productDAO.decreaseStock(productId, amount);
+        if (success) {
+            stockDecreased(productId, amount);
+        }
+        return success;
+    }
+
+    /**
+     * Applies a stock decrease that was already committed elsewhere (e.g. by the
+     * checkout transaction) to the cached product.
+     *
+     * @param productId The product sold.
+     * @param amount    The amount in kg.
+     */
+    public void stockDecreased(int productId, double amount) {
+        stockDecreased(Map.of(productId, amount));
+    }
+
+    /**
+     * Applies the stock decreases of one order at once, publishing a single new snapshot.
+     *
+     * @param soldKg Amount sold in kg per product id.
+     */
+    public synchronized void stockDecreased(Map<Integer, Double> soldKg) {
+        boolean changed = false;
+        for (Map.Entry<Integer, Double> sold : soldKg.entrySet()) {
+            Product cached = catalog.get(sold.getKey());
+            if (cached != null) {
+                Product updated = cached.copy();
+                updated.setStockKg(cached.getStockKg() - sold.getValue());
+                catalog.put(updated.getId(), updated);
+                changed = true;
+            }
+        }
+        if (changed && snapshot != null) {
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * Drops the cached catalog; the next read performs a full reload.
+     */
+    public synchronized void invalidate() {
+        snapshot = null;
+        version = null;
+        catalog.clear();
+    }
+
+    /**
+     * Re-reads one product from the database and replaces (or removes) its cached entry.
+     *
+     * @param productId The product that changed.
+     */
+    public void reloadProduct(int productId) {
+        Product fresh = productDAO.getProductById(productId);
+        synchronized (this) {
+            if (snapshot == null) {
+                return; // Nothing cached yet, the first read loads everything anyway
+            }
+            if (fresh != null) {
+                catalog.put(productId, fresh);
+            } else {
+                catalog.remove(productId);
+            }
+            publishSnapshot();
+        }
+    }
+
+    /**
+     * Returns the search index over the cached catalog. Call {@link #getAllProducts()} first
+     * to make sure it reflects the database.
+     *
+     * @return The product search index.
+     */
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public synchronized long getFullLoadCount() {
+        return fullLoadCount;
+    }
+
+    public synchronized long getDeltaLoadCount() {
+        return deltaLoadCount;
+    }
+
+    /**
+     * Brings the cache up to date. Caller must hold the lock.
+     */
+    private void syncWithDatabase() {
+        if (snapshot != null && System.currentTimeMillis() - lastCheckedAt < VERSION_CHECK_INTERVAL_MS) {
+            return; // Another thread synchronised while we were waiting for the lock
+        }
+        if (snapshot == null || version == null || version.getMaxUpdatedAt() == null) {
+            fullReload();
+            return;
+        }
+
+        try {
+            DBProductDAO.CatalogVersion current = productDAO.getCatalogVersion();
+            lastCheckedAt = System.currentTimeMillis();
+            if (current.equals(version) && !overlapPending) {
+                return;
+            }
+
+            Timestamp since = new Timestamp(version.getMaxUpdatedAt().getTime() - OVERLAP_MS);
+            for (Product changed : productDAO.getProductsUpdatedSince(since)) {
+                catalog.put(changed.getId(), changed);
+            }
+            if (catalog.size() != current.getRowCount()) {
+                // Rows were deleted elsewhere
+                catalog.keySet().retainAll(new HashSet<>(productDAO.getAllProductIds()));
+            }
+            if (catalog.size() != current.getRowCount()) {
+                // Rows appeared that the delta did not cover (e.g. a concurrent insert); start over
+                fullReload();
+                return;
+            }
+
+            overlapPending = !current.equals(version);
+            version = current;
+            deltaLoadCount++;
+            publishSnapshot();
+        } catch (SQLException e) {
+            System.err.println("ProductService: Version check failed, reloading catalog: " + e.getMessage());
+            fullReload();
+        }
+    }
+
+    private void fullReload() {
+        // Read the version first so a change racing with the load is seen by the next check
+        DBProductDAO.CatalogVersion current;
+        try {
+            current = productDAO.getCatalogVersion();
+        } catch (SQLException e) {
+            current = null; // product_info.updated_at missing; run Utils.FixSchema
+        }
+
+        catalog.clear();
+        for (Product p : productDAO.getAllProducts()) {
+            catalog.put(p.getId(), p);
+        }
+        version = current;
+        overlapPending = true;
+        lastCheckedAt = System.currentTimeMillis();
+        fullLoadCount++;
+        publishSnapshot();
+    }
+
+    private void publishSnapshot() {
+        snapshot = Collections.unmodifiableList(new ArrayList<>(catalog.values()));
+        searchIndex.sync(snapshot);
+    }
 }
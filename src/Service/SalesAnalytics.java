@@ -0,0 +1,317 @@
+package Service;
+
+import Dao.SalesAnalyticsDAO;
+import Dao.SalesAnalyticsDAO.Dimension;
+import Models.SalesReport;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ad-hoc sales analysis over order_item: any date range, grouped by product, product type,
+ * carrier or hour of day, with the top N groups by revenue and their share.
+ *
+ * The lines are streamed from a server-side cursor ({@link SalesAnalyticsDAO#streamLines}) into
+ * column chunks of {@link #CHUNK_ROWS} primitive values. Each full chunk is aggregated on a
+ * fork/join pool while the next one is read: the task splits the chunk down to
+ * {@link #LEAF_ROWS} rows, sums them into double/long arrays indexed by a dense group number and
+ * adds the arrays up on the way back. Only a few chunks are in memory at any time, and no boxed
+ * value is created per line, so long ranges cost a scan of the data and little else.
+ */
+public class SalesAnalytics {
+
+    static final int CHUNK_ROWS = 65_536;
+    static final int LEAF_ROWS = 8_192;
+
+    private static SalesAnalytics instance;
+
+    private final SalesAnalyticsDAO analyticsDAO;
+    private final ForkJoinPool pool;
+
+    SalesAnalytics(SalesAnalyticsDAO analyticsDAO, ForkJoinPool pool) {
+        this.analyticsDAO = analyticsDAO;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the global engine, which aggregates on the common fork/join pool.
+     *
+     * @return The singleton {@link SalesAnalytics}
+     */
+    public static synchronized SalesAnalytics getInstance() {
+        if (instance == null) {
+            instance = new SalesAnalytics(new SalesAnalyticsDAO(), ForkJoinPool.commonPool());
+        }
+        return instance;
+    }
+
+    /**
+     * Analyses the orders placed between two dates. Blocks on the database.
+     *
+     * @param dimension What to group by.
+     * @param from      First day included.
+     * @param to        Last day included.
+     * @param topN      Number of groups returned, highest revenue first; 0 for all.
+     * @return The report.
+     * @throws SQLException If reading the lines or labels fails.
+     */
+    public SalesReport analyze(Dimension dimension, LocalDate from, LocalDate to, int topN) throws SQLException {
+        long start = System.nanoTime();
+
+        Aggregator aggregator = new Aggregator();
+        analyticsDAO.streamLines(dimension, from.atStartOfDay(), to.plusDays(1).atStartOfDay(), aggregator);
+        Totals totals = aggregator.finish();
+
+        // Labels per dense group number; product types fold several products into one row
+        int[] keys = aggregator.keys();
+        boolean byType = dimension == Dimension.PRODUCT_TYPE;
+        Map<Object, Group> groups = new LinkedHashMap<>();
+        Map<Integer, String> labels = loadLabels(dimension, keys, totals);
+        for (int g = 0; g < totals.size(); g++) {
+            if (totals.lines[g] == 0) {
+                continue;
+            }
+            int key = keys[g];
+            String label = labels.getOrDefault(key, fallbackLabel(dimension, key));
+            Group group = groups.computeIfAbsent(byType ? label : key, k -> new Group(byType ? -1 : key, label));
+            group.revenue += totals.revenue[g];
+            group.kg += totals.kg[g];
+            group.lines += totals.lines[g];
+        }
+
+        double totalRevenue = 0;
+        double totalKg = 0;
+        long totalLines = 0;
+        for (Group group : groups.values()) {
+            totalRevenue += group.revenue;
+            totalKg += group.kg;
+            totalLines += group.lines;
+        }
+
+        List<Group> sorted = new ArrayList<>(groups.values());
+        sorted.sort((a, b) -> Double.compare(b.revenue, a.revenue));
+        int limit = topN > 0 ? Math.min(topN, sorted.size()) : sorted.size();
+        List<SalesReport.Row> rows = new ArrayList<>(limit);
+        for (Group group : sorted.subList(0, limit)) {
+            double share = totalRevenue > 0 ? group.revenue / totalRevenue : 0;
+            rows.add(new SalesReport.Row(group.key, group.label, group.revenue, group.kg, group.lines, share));
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new SalesReport(dimension.name(), from, to, rows, totalRevenue, totalKg, totalLines, elapsed);
+    }
+
+    private Map<Integer, String> loadLabels(Dimension dimension, int[] keys, Totals totals) throws SQLException {
+        switch (dimension) {
+            case PRODUCT:
+                return analyticsDAO.getProductNames();
+            case PRODUCT_TYPE:
+                return analyticsDAO.getProductTypes();
+            case CARRIER:
+                List<Integer> carrierIds = new ArrayList<>();
+                for (int g = 0; g < totals.size(); g++) {
+                    if (totals.lines[g] > 0 && keys[g] != 0) {
+                        carrierIds.add(keys[g]);
+                    }
+                }
+                return analyticsDAO.getUserNames(carrierIds);
+            default:
+                return Map.of();
+        }
+    }
+
+    private static String fallbackLabel(Dimension dimension, int key) {
+        switch (dimension) {
+            case PRODUCT: return "Product #" + key;
+            case PRODUCT_TYPE: return "UNKNOWN";
+            case CARRIER: return key == 0 ? "No carrier" : "Carrier #" + key;
+            default: return String.format("%02d:00", key);
+        }
+    }
+
+    /**
+     * Collects streamed lines into chunks and hands full chunks to the pool. Runs on the thread
+     * reading the cursor.
+     */
+    private final class Aggregator implements SalesAnalyticsDAO.LineConsumer {
+        // Keep the reader at most this many chunks ahead of the pool
+        private final int maxInFlight = Math.max(2, pool.getParallelism() * 2);
+        private final Deque<ForkJoinTask<Totals>> inFlight = new ArrayDeque<>();
+        private final Totals result = new Totals(0);
+
+        // Raw key -> dense group number + 1 (0 = not seen yet), and back
+        private int[] groupByKey = new int[1024];
+        private int[] keyByGroup = new int[64];
+        private int groupCount;
+
+        private Chunk chunk = new Chunk();
+
+        @Override
+        public void accept(int key, double amountKg, double lineTotal) {
+            chunk.add(group(key), amountKg, lineTotal);
+            if (chunk.size == CHUNK_ROWS) {
+                submit();
+            }
+        }
+
+        private int group(int key) {
+            if (key >= groupByKey.length) {
+                groupByKey = Arrays.copyOf(groupByKey, Math.max(key + 1, groupByKey.length * 2));
+            }
+            int group = groupByKey[key] - 1;
+            if (group < 0) {
+                group = groupCount++;
+                groupByKey[key] = group + 1;
+                if (group == keyByGroup.length) {
+                    keyByGroup = Arrays.copyOf(keyByGroup, keyByGroup.length * 2);
+                }
+                keyByGroup[group] = key;
+            }
+            return group;
+        }
+
+        private void submit() {
+            inFlight.add(pool.submit(new AggregateTask(chunk, 0, chunk.size, groupCount)));
+            chunk = new Chunk();
+            while (inFlight.size() > maxInFlight) {
+                result.add(inFlight.poll().join());
+            }
+        }
+
+        private Totals finish() {
+            if (chunk.size > 0) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                result.add(inFlight.poll().join());
+            }
+            result.ensureSize(groupCount);
+            return result;
+        }
+
+        private int[] keys() {
+            return Arrays.copyOf(keyByGroup, groupCount);
+        }
+    }
+
+    /**
+     * Lines in column form.
+     */
+    private static final class Chunk {
+        private final int[] groups = new int[CHUNK_ROWS];
+        private final double[] kg = new double[CHUNK_ROWS];
+        private final double[] revenue = new double[CHUNK_ROWS];
+        private int size;
+
+        private void add(int group, double amountKg, double lineTotal) {
+            groups[size] = group;
+            kg[size] = amountKg;
+            revenue[size] = lineTotal;
+            size++;
+        }
+    }
+
+    /**
+     * Sums per group, indexed by dense group number.
+     */
+    private static final class Totals {
+        private double[] revenue;
+        private double[] kg;
+        private long[] lines;
+
+        private Totals(int groups) {
+            revenue = new double[groups];
+            kg = new double[groups];
+            lines = new long[groups];
+        }
+
+        private int size() {
+            return lines.length;
+        }
+
+        private void ensureSize(int groups) {
+            if (groups > lines.length) {
+                revenue = Arrays.copyOf(revenue, groups);
+                kg = Arrays.copyOf(kg, groups);
+                lines = Arrays.copyOf(lines, groups);
+            }
+        }
+
+        private void add(Totals other) {
+            ensureSize(other.size());
+            for (int g = 0; g < other.size(); g++) {
+                revenue[g] += other.revenue[g];
+                kg[g] += other.kg[g];
+                lines[g] += other.lines[g];
+            }
+        }
+    }
+
+    /**
+     * Sums a range of a chunk, splitting it in halves down to {@link #LEAF_ROWS} rows.
+     */
+    private static final class AggregateTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks are never serialized; the chunk is only read while the pool runs them
+        private final transient Chunk chunk;
+        private final int from;
+        private final int to;
+        // Groups known when the chunk was full; every group in it is below this
+        private final int groups;
+
+        private AggregateTask(Chunk chunk, int from, int to, int groups) {
+            this.chunk = chunk;
+            this.from = from;
+            this.to = to;
+            this.groups = groups;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= LEAF_ROWS) {
+                Totals totals = new Totals(groups);
+                for (int i = from; i < to; i++) {
+                    int g = chunk.groups[i];
+                    totals.revenue[g] += chunk.revenue[i];
+                    totals.kg[g] += chunk.kg[i];
+                    totals.lines[g]++;
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(chunk, from, middle, groups);
+            left.fork();
+            Totals right = new AggregateTask(chunk, middle, to, groups).compute();
+            Totals totals = left.join();
+            totals.add(right);
+            return totals;
+        }
+    }
+
+    /**
+     * One report row while it is being assembled.
+     */
+    private static final class Group {
+        private final int key;
+        private final String label;
+        private double revenue;
+        private double kg;
+        private long lines;
+
+        private Group(int key, String label) {
+            this.key = key;
+            this.label = label;
+        }
+    }
+}
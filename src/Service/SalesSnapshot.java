@@ -0,0 +1,509 @@
+package Service;
+
+import Dao.SalesAnalyticsDAO;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory columnar copy of order_info and order_item for the owner's Reports screen.
+ *
+ * Orders are kept sorted by (order_time, id) in primitive arrays: id, order time (epoch
+ * seconds), status code, total, and the end offset of their lines. The lines of an order sit
+ * next to each other in three more arrays: product code, kilos and line total. Statuses and
+ * product ids are dictionary-encoded into small dense codes. An order costs about 25 bytes and
+ * a line 20, a fraction of an {@link Models.Order} with its items, so the whole history fits.
+ *
+ * Queries binary-search the time range and run tight loops over the arrays; re-charting another
+ * range or category does not touch the database.
+ *
+ * {@link #refresh()} loads everything the first time and afterwards only the orders whose
+ * updated_at changed since the last refresh (with a short overlap, see {@link OrderChangeFeed}).
+ * New orders are appended, normally in time order already; status changes are applied in place
+ * on a copy of the status column. Readers work on an immutable {@link View} published through a
+ * volatile field: appends only write past the sizes of the published view, so a query never sees
+ * a half-applied refresh.
+ */
+public class SalesSnapshot {
+
+    static final long OVERLAP_MS = 1_000;
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    /**
+     * What line totals are grouped by.
+     */
+    public enum Category { PRODUCT, PRODUCT_TYPE }
+
+    /**
+     * What is summed per group.
+     */
+    public enum Measure { REVENUE, KG }
+
+    private static SalesSnapshot instance;
+
+    private final SalesAnalyticsDAO analyticsDAO;
+
+    // Written by refresh() only, which is synchronized
+    private Store store = new Store();
+    private int[] rowById = new int[1024];
+    private final List<String> statuses = new ArrayList<>();
+    private final Map<String, Byte> statusCodes = new HashMap<>();
+    private int[] codeByProductId = new int[256];
+    private int[] productIds = new int[64];
+    private int productCount;
+    private long highWaterMark = -1;
+
+    private volatile View view;
+
+    SalesSnapshot(SalesAnalyticsDAO analyticsDAO) {
+        this.analyticsDAO = analyticsDAO;
+    }
+
+    public static synchronized SalesSnapshot getInstance() {
+        if (instance == null) {
+            instance = new SalesSnapshot(new SalesAnalyticsDAO());
+        }
+        return instance;
+    }
+
+    /**
+     * @return True once the first refresh succeeded.
+     */
+    public boolean isLoaded() {
+        return view != null;
+    }
+
+    /**
+     * Brings the snapshot up to date. Blocks on the database, so call it from a background
+     * thread (see {@link DbTaskExecutor}).
+     *
+     * @return True if the snapshot is usable; false if it could not be loaded at all.
+     */
+    public synchronized boolean refresh() {
+        long start = System.currentTimeMillis();
+        boolean full = highWaterMark < 0;
+        Timestamp since = full ? null : new Timestamp(highWaterMark - OVERLAP_MS);
+
+        Store added = new Store();
+        Delta delta = new Delta(added);
+        Map<Integer, String> productNames;
+        Map<Integer, String> productTypes;
+        try {
+            analyticsDAO.streamOrderLines(since, delta);
+            productNames = analyticsDAO.getProductNames();
+            productTypes = analyticsDAO.getProductTypes();
+        } catch (SQLException e) {
+            System.err.println("SalesSnapshot: Refresh failed: " + e.getMessage());
+            return view != null;
+        }
+
+        if (delta.statusChanged) {
+            store.status = delta.status;
+        }
+        if (added.orders > 0) {
+            added.sortByTime();
+            int firstChanged = store.orders;
+            if (store.orders == 0 || !added.before(0, store, store.orders - 1)) {
+                for (int row = 0; row < added.orders; row++) {
+                    store.copyOrder(added, row);
+                }
+            } else {
+                // A late commit with an older order time: merge into new arrays
+                store = Store.merge(store, added);
+                firstChanged = 0;
+            }
+            for (int row = firstChanged; row < store.orders; row++) {
+                rowById = put(rowById, store.orderId[row], row + 1);
+            }
+        }
+        highWaterMark = Math.max(highWaterMark, delta.maxUpdatedAt);
+
+        view = new View(store, statuses.toArray(new String[0]), labels(productNames, productTypes));
+        if (full) {
+            System.out.println("SalesSnapshot: Loaded " + store.orders + " orders, " + store.lines + " lines ("
+                    + view.estimatedBytes() / 1024 + " KB) in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return true;
+    }
+
+    /**
+     * Drops the snapshot, e.g. when the owner logs out. The next refresh loads everything again.
+     */
+    public synchronized void clear() {
+        store = new Store();
+        rowById = new int[1024];
+        statuses.clear();
+        statusCodes.clear();
+        codeByProductId = new int[256];
+        productIds = new int[64];
+        productCount = 0;
+        highWaterMark = -1;
+        view = null;
+    }
+
+    /**
+     * Revenue per day of a date range, every day included (0 when nothing was sold). Without a
+     * product type this is the sum of the order totals after discounts, like Dao.DailySalesDAO;
+     * with one, the sum of the line totals of that type.
+     *
+     * @param from        First day included.
+     * @param to          Last day included.
+     * @param productType FRUIT, VEGETABLE, ... or null for all orders.
+     * @return Revenue per date (yyyy-MM-dd) in date order; empty while not loaded.
+     */
+    public Map<String, Double> getDailyRevenue(LocalDate from, LocalDate to, String productType) {
+        View v = view;
+        Map<String, Double> revenue = new LinkedHashMap<>();
+        if (v == null || to.isBefore(from)) {
+            return revenue;
+        }
+
+        long fromDay = from.toEpochDay();
+        double[] perDay = new double[(int) (to.toEpochDay() - fromDay + 1)];
+        int end = v.rowAtOrAfter((to.toEpochDay() + 1) * SECONDS_PER_DAY);
+        if (productType == null) {
+            for (int row = v.rowAtOrAfter(fromDay * SECONDS_PER_DAY); row < end; row++) {
+                if (v.counted[v.status[row]]) {
+                    perDay[(int) (v.orderTime[row] / SECONDS_PER_DAY - fromDay)] += v.total[row];
+                }
+            }
+        } else {
+            boolean[] matches = v.productsOfType(productType);
+            for (int row = v.rowAtOrAfter(fromDay * SECONDS_PER_DAY); row < end; row++) {
+                if (!v.counted[v.status[row]]) {
+                    continue;
+                }
+                double sum = 0;
+                for (int line = v.lineStart(row); line < v.lineEnd[row]; line++) {
+                    if (matches[v.lineProduct[line]]) {
+                        sum += v.lineTotal[line];
+                    }
+                }
+                perDay[(int) (v.orderTime[row] / SECONDS_PER_DAY - fromDay)] += sum;
+            }
+        }
+
+        for (int day = 0; day < perDay.length; day++) {
+            revenue.put(LocalDate.ofEpochDay(fromDay + day).toString(), perDay[day]);
+        }
+        return revenue;
+    }
+
+    /**
+     * Sums the lines of a date range per product or product type.
+     *
+     * @param category What to group by.
+     * @param measure  Revenue (line totals) or kilos.
+     * @param from     First day included.
+     * @param to       Last day included.
+     * @return Value per product name or type, highest first, groups without sales left out;
+     * empty while not loaded.
+     */
+    public Map<String, Double> getTotalsBy(Category category, Measure measure, LocalDate from, LocalDate to) {
+        View v = view;
+        Map<String, Double> totals = new LinkedHashMap<>();
+        if (v == null) {
+            return totals;
+        }
+
+        double[] values = measure == Measure.KG ? v.lineKg : v.lineTotal;
+        double[] perProduct = new double[v.productLabels.length];
+        int end = v.rowAtOrAfter((to.toEpochDay() + 1) * SECONDS_PER_DAY);
+        for (int row = v.rowAtOrAfter(from.toEpochDay() * SECONDS_PER_DAY); row < end; row++) {
+            if (!v.counted[v.status[row]]) {
+                continue;
+            }
+            for (int line = v.lineStart(row); line < v.lineEnd[row]; line++) {
+                perProduct[v.lineProduct[line]] += values[line];
+            }
+        }
+
+        Map<String, Double> grouped = new HashMap<>();
+        String[] labels = category == Category.PRODUCT ? v.productLabels : v.productTypes;
+        for (int code = 0; code < perProduct.length; code++) {
+            if (perProduct[code] != 0) {
+                grouped.merge(labels[code], perProduct[code], Double::sum);
+            }
+        }
+        grouped.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .forEach(e -> totals.put(e.getKey(), e.getValue()));
+        return totals;
+    }
+
+    private byte statusCode(String status) {
+        Byte code = statusCodes.get(status);
+        if (code == null) {
+            code = (byte) statuses.size();
+            statuses.add(status);
+            statusCodes.put(status, code);
+        }
+        return code;
+    }
+
+    private int productCode(int productId) {
+        int code = productId < codeByProductId.length ? codeByProductId[productId] - 1 : -1;
+        if (code < 0) {
+            code = productCount++;
+            codeByProductId = put(codeByProductId, productId, code + 1);
+            if (code == productIds.length) {
+                productIds = Arrays.copyOf(productIds, productIds.length * 2);
+            }
+            productIds[code] = productId;
+        }
+        return code;
+    }
+
+    private String[][] labels(Map<Integer, String> productNames, Map<Integer, String> productTypes) {
+        String[] names = new String[productCount];
+        String[] types = new String[productCount];
+        for (int code = 0; code < productCount; code++) {
+            int productId = productIds[code];
+            names[code] = productNames.getOrDefault(productId, "Product #" + productId);
+            types[code] = productTypes.getOrDefault(productId, "UNKNOWN");
+        }
+        return new String[][] {names, types};
+    }
+
+    private static int[] put(int[] table, int index, int value) {
+        if (index >= table.length) {
+            table = Arrays.copyOf(table, Math.max(index + 1, table.length * 2));
+        }
+        table[index] = value;
+        return table;
+    }
+
+    /**
+     * Applies streamed rows: orders already in the store get their new status, new ones are
+     * collected into {@code added}.
+     */
+    private final class Delta implements SalesAnalyticsDAO.OrderLineConsumer {
+        private final Store added;
+        private byte[] status = store.status;
+        private boolean statusChanged;
+        private int lastOrderId = -1;
+        private boolean lastIsNew;
+        private long maxUpdatedAt = -1;
+
+        private Delta(Store added) {
+            this.added = added;
+        }
+
+        @Override
+        public void accept(int orderId, long orderTime, String orderStatus, double totalAmount, long updatedAt,
+                           int productId, double amountKg, double lineTotal) {
+            maxUpdatedAt = Math.max(maxUpdatedAt, updatedAt);
+            if (orderId != lastOrderId) {
+                lastOrderId = orderId;
+                byte code = statusCode(orderStatus);
+                int row = orderId < rowById.length ? rowById[orderId] - 1 : -1;
+                lastIsNew = row < 0;
+                if (lastIsNew) {
+                    added.addOrder(orderId, orderTime, code, totalAmount);
+                } else if (status[row] != code) {
+                    if (!statusChanged) {
+                        // Published views keep reading the old column
+                        status = status.clone();
+                        statusChanged = true;
+                    }
+                    status[row] = code;
+                }
+            }
+            if (lastIsNew && productId != 0) {
+                added.addLine(productCode(productId), amountKg, lineTotal);
+            }
+        }
+    }
+
+    /**
+     * Growable columns, written by refresh() only.
+     */
+    private static final class Store {
+        private int orders;
+        private int lines;
+        private int[] orderId = new int[1024];
+        private long[] orderTime = new long[1024];
+        private byte[] status = new byte[1024];
+        private double[] total = new double[1024];
+        private int[] lineEnd = new int[1024];
+        private int[] lineProduct = new int[4096];
+        private double[] lineKg = new double[4096];
+        private double[] lineTotal = new double[4096];
+
+        private void addOrder(int id, long time, byte statusCode, double totalAmount) {
+            if (orders == orderId.length) {
+                int capacity = orders * 2;
+                orderId = Arrays.copyOf(orderId, capacity);
+                orderTime = Arrays.copyOf(orderTime, capacity);
+                status = Arrays.copyOf(status, capacity);
+                total = Arrays.copyOf(total, capacity);
+                lineEnd = Arrays.copyOf(lineEnd, capacity);
+            }
+            orderId[orders] = id;
+            orderTime[orders] = time;
+            status[orders] = statusCode;
+            total[orders] = totalAmount;
+            lineEnd[orders] = lines;
+            orders++;
+        }
+
+        private void addLine(int productCode, double kg, double lineTotalAmount) {
+            if (lines == lineProduct.length) {
+                int capacity = lines * 2;
+                lineProduct = Arrays.copyOf(lineProduct, capacity);
+                lineKg = Arrays.copyOf(lineKg, capacity);
+                lineTotal = Arrays.copyOf(lineTotal, capacity);
+            }
+            lineProduct[lines] = productCode;
+            lineKg[lines] = kg;
+            lineTotal[lines] = lineTotalAmount;
+            lines++;
+            lineEnd[orders - 1] = lines;
+        }
+
+        private int lineStart(int row) {
+            return row == 0 ? 0 : lineEnd[row - 1];
+        }
+
+        private void copyOrder(Store from, int row) {
+            addOrder(from.orderId[row], from.orderTime[row], from.status[row], from.total[row]);
+            for (int line = from.lineStart(row); line < from.lineEnd[row]; line++) {
+                addLine(from.lineProduct[line], from.lineKg[line], from.lineTotal[line]);
+            }
+        }
+
+        // (order_time, id) of this row comes before that of the other row
+        private boolean before(int row, Store other, int otherRow) {
+            if (orderTime[row] != other.orderTime[otherRow]) {
+                return orderTime[row] < other.orderTime[otherRow];
+            }
+            return orderId[row] < other.orderId[otherRow];
+        }
+
+        /**
+         * Sorts the orders by (order_time, id). Rows arrive by id, which is almost always time
+         * order already, so the check usually saves the sort.
+         */
+        private void sortByTime() {
+            boolean sorted = true;
+            for (int row = 1; row < orders && sorted; row++) {
+                sorted = !before(row, this, row - 1);
+            }
+            if (sorted) {
+                return;
+            }
+            Integer[] order = new Integer[orders];
+            for (int row = 0; row < orders; row++) {
+                order[row] = row;
+            }
+            Arrays.sort(order, (a, b) -> before(a, this, b) ? -1 : before(b, this, a) ? 1 : 0);
+
+            Store copy = new Store();
+            for (Integer row : order) {
+                copy.copyOrder(this, row);
+            }
+            orders = copy.orders;
+            lines = copy.lines;
+            orderId = copy.orderId;
+            orderTime = copy.orderTime;
+            status = copy.status;
+            total = copy.total;
+            lineEnd = copy.lineEnd;
+            lineProduct = copy.lineProduct;
+            lineKg = copy.lineKg;
+            lineTotal = copy.lineTotal;
+        }
+
+        private static Store merge(Store a, Store b) {
+            Store merged = new Store();
+            int i = 0;
+            int j = 0;
+            while (i < a.orders || j < b.orders) {
+                if (j == b.orders || (i < a.orders && a.before(i, b, j))) {
+                    merged.copyOrder(a, i++);
+                } else {
+                    merged.copyOrder(b, j++);
+                }
+            }
+            return merged;
+        }
+    }
+
+    /**
+     * What queries read: the columns up to the sizes they had when the view was published.
+     */
+    private static final class View {
+        private final int orders;
+        private final long[] orderTime;
+        private final byte[] status;
+        private final double[] total;
+        private final int[] lineEnd;
+        private final int lines;
+        private final int[] lineProduct;
+        private final double[] lineKg;
+        private final double[] lineTotal;
+        // Per status code: not cancelled
+        private final boolean[] counted;
+        // Per product code
+        private final String[] productLabels;
+        private final String[] productTypes;
+
+        private View(Store store, String[] statuses, String[][] labels) {
+            orders = store.orders;
+            orderTime = store.orderTime;
+            status = store.status;
+            total = store.total;
+            lineEnd = store.lineEnd;
+            lines = store.lines;
+            lineProduct = store.lineProduct;
+            lineKg = store.lineKg;
+            lineTotal = store.lineTotal;
+            counted = new boolean[statuses.length];
+            for (int code = 0; code < statuses.length; code++) {
+                counted[code] = !"CANCELLED".equals(statuses[code]);
+            }
+            productLabels = labels[0];
+            productTypes = labels[1];
+        }
+
+        private int lineStart(int row) {
+            return row == 0 ? 0 : lineEnd[row - 1];
+        }
+
+        /**
+         * @return First row with an order time at or after {@code time}, or the order count.
+         */
+        private int rowAtOrAfter(long time) {
+            int low = 0;
+            int high = orders;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (orderTime[middle] < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private boolean[] productsOfType(String productType) {
+            boolean[] matches = new boolean[productTypes.length];
+            for (int code = 0; code < productTypes.length; code++) {
+                matches[code] = productType.equals(productTypes[code]);
+            }
+            return matches;
+        }
+
+        private long estimatedBytes() {
+            return orders * (4L + 8 + 1 + 8 + 4) + lines * (4L + 8 + 8);
+        }
+    }
+}
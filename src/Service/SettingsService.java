@@ -0,0 +1,208 @@
+package Service;
+
+import Dao.DBOwnerSettingsDAO;
+import Dao.DaoMetrics;
+import Dao.OwnerSettingsDAO;
+import Models.OwnerSettings;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Singleton view of owner_settings (VAT rate, minimum cart value, loyalty rules).
+ *
+ * The row is loaded once and published as an immutable {@link Snapshot}; {@link #get()} is a
+ * single volatile read, so checkout and the cart view use the settings without a query and
+ * always see one consistent set of values. A background check compares owner_settings.updated_at
+ * every {@link #CHECK_INTERVAL_SECONDS} and reloads when the owner changed the settings.
+ *
+ * The first load also runs on the background thread, so creating the service never waits on the
+ * database (App.Group09 creates it at startup). Until it finishes {@link #get()} returns the
+ * defaults; checkout prices with {@link #awaitLoaded()} instead.
+ */
+public class SettingsService {
+
+    public static final long CHECK_INTERVAL_SECONDS = 10;
+    // Used while there is no settings row; the value the cart view had hard-coded before
+    static final double DEFAULT_MIN_CART_VALUE = 50.0;
+    // How long checkout waits for the first load before pricing with what is there
+    static final long FIRST_LOAD_TIMEOUT_SECONDS = 5;
+
+    private static SettingsService instance;
+
+    private final OwnerSettingsDAO settingsDAO;
+    private final ScheduledExecutorService checker;
+    private final CountDownLatch firstLoad = new CountDownLatch(1);
+    private volatile Snapshot snapshot = Snapshot.DEFAULTS;
+    // Set by the first successful load; until then every check loads again
+    private volatile boolean loaded;
+
+    private SettingsService(OwnerSettingsDAO settingsDAO) {
+        this.settingsDAO = settingsDAO;
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "settings-check");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.execute(() -> {
+            try {
+                refresh();
+            } finally {
+                firstLoad.countDown();
+            }
+        });
+        checker.scheduleWithFixedDelay(this::checkForChanges, CHECK_INTERVAL_SECONDS, CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the global settings service. The settings are loaded in the background.
+     *
+     * @return The singleton {@link SettingsService}
+     */
+    public static synchronized SettingsService getInstance() {
+        if (instance == null) {
+            instance = new SettingsService(DaoMetrics.wrap(OwnerSettingsDAO.class, new DBOwnerSettingsDAO()));
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the current settings. Never queries the database.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot get() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the current settings, waiting a few seconds for the first load if it has not
+     * finished yet. Blocks, so not for the FX thread.
+     *
+     * @return The current snapshot; the defaults if the settings could not be loaded.
+     */
+    public Snapshot awaitLoaded() {
+        try {
+            firstLoad.await(FIRST_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Reloads the settings now. If the database cannot be read the current snapshot stays in
+     * place. Blocks on the database.
+     */
+    public synchronized void refresh() {
+        Snapshot current;
+        try {
+            current = load();
+        } catch (SQLException e) {
+            System.err.println("SettingsService: Could not load settings, keeping the current ones: " + e.getMessage());
+            return;
+        }
+        snapshot = current;
+        loaded = true;
+    }
+
+    private void checkForChanges() {
+        try {
+            if (!loaded) {
+                refresh();
+                return;
+            }
+            Timestamp updatedAt = settingsDAO.getUpdatedAt();
+            long version = updatedAt != null ? updatedAt.getTime() : Snapshot.NO_VERSION;
+            if (version != snapshot.version) {
+                refresh();
+            }
+        } catch (SQLException e) {
+            System.err.println("SettingsService: Could not check settings: " + e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // Keep the schedule alive
+        }
+    }
+
+    private Snapshot load() throws SQLException {
+        OwnerSettings settings = settingsDAO.loadSettings();
+        if (settings == null) {
+            return Snapshot.DEFAULTS;
+        }
+        long version = settings.getUpdatedAt() != null
+                ? Timestamp.valueOf(settings.getUpdatedAt()).getTime()
+                : Snapshot.NO_VERSION;
+        return new Snapshot(settings.getVatRate(), settings.getMinCartValue(), settings.getLoyaltyMinCompleted(),
+                settings.getLoyaltyDiscountPercent(), version);
+    }
+
+    /**
+     * Stops the background check. Called on application exit.
+     */
+    public static synchronized void shutdown() {
+        if (instance == null) {
+            return;
+        }
+        instance.checker.shutdownNow();
+        instance = null;
+    }
+
+    /**
+     * Immutable set of owner settings.
+     */
+    public static final class Snapshot {
+        static final long NO_VERSION = Long.MIN_VALUE;
+
+        // No settings row: the old minimum cart value and no loyalty discount
+        static final Snapshot DEFAULTS = new Snapshot(0.0, DEFAULT_MIN_CART_VALUE, Integer.MAX_VALUE, 0.0, NO_VERSION);
+
+        private final double vatRate;
+        private final double minCartValue;
+        private final int loyaltyMinCompleted;
+        private final double loyaltyDiscountPercent;
+        private final long version;
+
+        Snapshot(double vatRate, double minCartValue, int loyaltyMinCompleted, double loyaltyDiscountPercent, long version) {
+            this.vatRate = vatRate;
+            this.minCartValue = minCartValue;
+            this.loyaltyMinCompleted = loyaltyMinCompleted;
+            this.loyaltyDiscountPercent = loyaltyDiscountPercent;
+            this.version = version;
+        }
+
+        public double getVatRate() { return vatRate; }
+        public double getMinCartValue() { return minCartValue; }
+        public int getLoyaltyMinCompleted() { return loyaltyMinCompleted; }
+        public double getLoyaltyDiscountPercent() { return loyaltyDiscountPercent; }
+
+        /**
+         * @param completedOrders A customer's number of completed orders.
+         * @return True if the customer gets the loyalty discount.
+         */
+        public boolean isLoyaltyEligible(int completedOrders) {
+            return loyaltyDiscountPercent > 0 && completedOrders >= loyaltyMinCompleted;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Snapshot)) return false;
+            Snapshot other = (Snapshot) o;
+            return Double.compare(vatRate, other.vatRate) == 0
+                    && Double.compare(minCartValue, other.minCartValue) == 0
+                    && loyaltyMinCompleted == other.loyaltyMinCompleted
+                    && Double.compare(loyaltyDiscountPercent, other.loyaltyDiscountPercent) == 0
+                    && version == other.version;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vatRate, minCartValue, loyaltyMinCompleted, loyaltyDiscountPercent, version);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package Utils;
 
+import Dao.DailySalesDAO;
 import Database.DatabaseConnection;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 
 public class FixSchema {
@@ -28,6 +30,120 @@ public class FixSchema {
                 System.err.println("Note: ID auto-increment fix might have failed or not needed: " + e.getMessage());
             }
 
+            // 3. Track product changes so the catalog cache (Service.ProductService) can detect them cheaply
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "ALTER TABLE group09_greengrocer.product_info ADD COLUMN updated_at TIMESTAMP(3) NOT NULL " +
+                            "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3), ADD INDEX idx_product_updated_at (updated_at)")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: product_info.updated_at column added.");
+            } catch (SQLException e) {
+                System.err.println("Note: product_info.updated_at might already exist: " + e.getMessage());
+            }
+
+            // 4. Content hash of the product image, so listings can skip image_blob (Service.ProductImageStore)
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "ALTER TABLE group09_greengrocer.product_info ADD COLUMN image_hash CHAR(64) " +
+                            "GENERATED ALWAYS AS (SHA2(image_blob, 256)) STORED")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: product_info.image_hash column added.");
+            } catch (SQLException e) {
+                System.err.println("Note: product_info.image_hash might already exist: " + e.getMessage());
+            }
+
+            // 5. Card-sized image variant (Utils.ThumbnailGenerator); fill existing rows with tools.ThumbnailBackfill
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "ALTER TABLE group09_greengrocer.product_info ADD COLUMN thumb_blob MEDIUMBLOB NULL, " +
+                            "ADD COLUMN thumb_mime VARCHAR(50) NULL")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: product_info.thumb_blob / thumb_mime columns added.");
+            } catch (SQLException e) {
+                System.err.println("Note: product_info thumbnail columns might already exist: " + e.getMessage());
+            }
+
+            // 6. Track order changes so carrier dashboards can poll deltas (Service.OrderChangeFeed)
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "ALTER TABLE group09_greengrocer.order_info ADD COLUMN updated_at TIMESTAMP(3) NOT NULL " +
+                            "DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3), ADD INDEX idx_order_updated_at (updated_at)")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: order_info.updated_at column added.");
+            } catch (SQLException e) {
+                System.err.println("Note: order_info.updated_at might already exist: " + e.getMessage());
+            }
+
+            // 7. Durable invoice work queue, drained by Service.InvoiceService
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "CREATE TABLE IF NOT EXISTS group09_greengrocer.invoice_job (" +
+                            "order_id INT NOT NULL PRIMARY KEY, " +
+                            "attempts INT NOT NULL DEFAULT 0, " +
+                            "next_attempt_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), " +
+                            "last_error VARCHAR(500) NULL, " +
+                            "created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), " +
+                            "INDEX idx_invoice_job_due (next_attempt_at))")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: invoice_job table created.");
+            } catch (SQLException e) {
+                System.err.println("Note: invoice_job table might not have been created: " + e.getMessage());
+            }
+
+            // 8. Completed order counters for the loyalty discount (Dao.LoyaltyDAO), seeded from order_info
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "CREATE TABLE IF NOT EXISTS group09_greengrocer.customer_loyalty (" +
+                            "customer_id INT NOT NULL PRIMARY KEY, " +
+                            "completed_orders INT NOT NULL DEFAULT 0, " +
+                            "updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3))")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: customer_loyalty table created.");
+            } catch (SQLException e) {
+                System.err.println("Note: customer_loyalty table might not have been created: " + e.getMessage());
+            }
+            // A missing row reads as 0 completed orders, so every past customer needs one before the
+            // app uses the table. Existing counters are kept; tools.LoyaltyLedgerTool rebuild resets them.
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT IGNORE INTO group09_greengrocer.customer_loyalty (customer_id, completed_orders) " +
+                            "SELECT customer_id, COUNT(*) FROM group09_greengrocer.order_info " +
+                            "WHERE status IN ('DELIVERED', 'COMPLETED') GROUP BY customer_id")) {
+                int seeded = ps.executeUpdate();
+                System.out.println("FIXED: customer_loyalty seeded for " + seeded + " customer(s).");
+            } catch (SQLException e) {
+                System.err.println("Note: customer_loyalty could not be seeded, run tools.LoyaltyLedgerTool rebuild: " + e.getMessage());
+            }
+
+            // 9. Keyset paging of a customer's order history (Service.OrderHistoryPager)
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "ALTER TABLE group09_greengrocer.order_info ADD INDEX idx_order_customer_history (customer_id, order_time, id)")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: order_info.idx_order_customer_history index added.");
+            } catch (SQLException e) {
+                System.err.println("Note: idx_order_customer_history might already exist: " + e.getMessage());
+            }
+
+            // 10. Daily sales rollup for the reports (Dao.DailySalesDAO), seeded from order_info
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "CREATE TABLE IF NOT EXISTS group09_greengrocer.daily_sales (" +
+                            "sales_date DATE NOT NULL, " +
+                            "product_type VARCHAR(20) NOT NULL, " +
+                            "revenue DECIMAL(14,2) NOT NULL DEFAULT 0, " +
+                            "order_count INT NOT NULL DEFAULT 0, " +
+                            "kg_sold DECIMAL(14,3) NOT NULL DEFAULT 0, " +
+                            "delivered_count INT NOT NULL DEFAULT 0, " +
+                            "PRIMARY KEY (sales_date, product_type))")) {
+                ps.executeUpdate();
+                System.out.println("FIXED: daily_sales table created.");
+            } catch (SQLException e) {
+                System.err.println("Note: daily_sales table might not have been created: " + e.getMessage());
+            }
+            // The income report reads only the rollup once the table exists, so fill it with the past
+            // orders now. A table that already has rows is kept; tools.DailySalesTool rebuild resets it.
+            try (PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM group09_greengrocer.daily_sales LIMIT 1");
+                 ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    int rows = new DailySalesDAO().rebuild();
+                    System.out.println("FIXED: daily_sales seeded with " + rows + " row(s).");
+                }
+            } catch (SQLException e) {
+                System.err.println("Note: daily_sales could not be seeded, run tools.DailySalesTool rebuild: " + e.getMessage());
+            }
+
         } catch (SQLException e) {
             e.printStackTrace();
         }
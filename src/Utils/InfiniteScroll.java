@@ -0,0 +1,54 @@
+package Utils;
+
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.control.TableView;
+
+/**
+ * Loads more rows into a table when it is scrolled close to the bottom.
+ */
+public final class InfiniteScroll {
+
+    /**
+     * Scroll position (0 = top, 1 = bottom) from which more rows are requested.
+     */
+    public static final double THRESHOLD = 0.9;
+
+    private InfiniteScroll() {}
+
+    /**
+     * Calls {@code loadMore} whenever the table's vertical scroll bar moves past
+     * {@link #THRESHOLD}. The callback runs on the FX thread and may be called again before the
+     * rows arrive, so it has to ignore calls while it is loading.
+     *
+     * @param table    The table to watch.
+     * @param loadMore Appends the next rows to the table.
+     */
+    public static void install(TableView<?> table, Runnable loadMore) {
+        // The scroll bars only exist once the table has its skin
+        if (table.getSkin() != null) {
+            attach(table, loadMore);
+        } else {
+            table.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+                if (newSkin != null && oldSkin == null) {
+                    attach(table, loadMore);
+                }
+            });
+        }
+    }
+
+    private static void attach(TableView<?> table, Runnable loadMore) {
+        for (Node node : table.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                ScrollBar bar = (ScrollBar) node;
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMin() + (bar.getMax() - bar.getMin()) * THRESHOLD) {
+                        loadMore.run();
+                    }
+                });
+                return;
+            }
+        }
+    }
+}
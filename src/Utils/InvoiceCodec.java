@@ -0,0 +1,240 @@
+package Utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Storage format of invoice.pdf_blob: one compressed copy of the invoice text.
+ *
+ * <pre>
+ *   0  4 bytes  magic "GGIV"
+ *   4  1 byte   format version ({@link #VERSION})
+ *   5  1 byte   codec: 0 = stored, 1 = deflate (zlib)
+ *   6  4 bytes  length of the UTF-8 text
+ *  10  4 bytes  CRC32 of the UTF-8 text
+ *  14  ...      payload
+ * </pre>
+ *
+ * Invoices are plain text with many repeated lines, so deflate usually saves well over half;
+ * very short texts are stored as they are when compression would not help. The checksum is
+ * verified when a reader reaches the end of the text, so a damaged row is reported instead of
+ * shown. Rows written before this format (raw text bytes without header) are still readable.
+ */
+public class InvoiceCodec {
+
+    public static final int VERSION = 1;
+    static final byte[] MAGIC = {'G', 'G', 'I', 'V'};
+    static final int HEADER_LENGTH = 14;
+    static final int CODEC_STORED = 0;
+    static final int CODEC_DEFLATE = 1;
+
+    private InvoiceCodec() {}
+
+    /**
+     * Encodes an invoice for storage.
+     *
+     * @param text The invoice text.
+     * @return Header and (compressed) payload.
+     */
+    public static byte[] encode(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+
+        byte[] payload = deflate(raw);
+        int codec = CODEC_DEFLATE;
+        if (payload.length >= raw.length) {
+            payload = raw;
+            codec = CODEC_STORED;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+        out.put(MAGIC).put((byte) VERSION).put((byte) codec).putInt(raw.length).putInt((int) crc.getValue());
+        out.put(payload);
+        return out.array();
+    }
+
+    /**
+     * Decodes a stored invoice completely.
+     *
+     * @param data The stored bytes.
+     * @return The invoice text.
+     * @throws IOException If the data is damaged or of an unknown version.
+     */
+    public static String decode(byte[] data) throws IOException {
+        StringWriter out = new StringWriter(data.length * 3);
+        try (Reader reader = openReader(new ByteArrayInputStream(data))) {
+            reader.transferTo(out);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Opens a reader that decompresses the stored invoice while it is read, so large invoices
+     * never have to be held in memory as a whole.
+     *
+     * @param in The stored bytes, e.g. {@link java.sql.ResultSet#getBinaryStream}.
+     * @return A reader over the invoice text; it throws an IOException at the end of the text if
+     *         the checksum does not match.
+     * @throws IOException If the header is damaged or of an unknown version.
+     */
+    public static Reader openReader(InputStream in) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in);
+        buffered.mark(HEADER_LENGTH);
+        byte[] header = buffered.readNBytes(HEADER_LENGTH);
+        if (!hasMagic(header)) {
+            buffered.reset(); // Written before this format: raw text bytes
+            return new InputStreamReader(buffered, StandardCharsets.UTF_8);
+        }
+
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(header, MAGIC.length, HEADER_LENGTH - MAGIC.length));
+        int version = fields.readUnsignedByte();
+        int codec = fields.readUnsignedByte();
+        int length = fields.readInt();
+        int checksum = fields.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported invoice format version " + version);
+        }
+
+        InputStream payload;
+        if (codec == CODEC_DEFLATE) {
+            payload = new InflaterInputStream(buffered, new Inflater(), 4096) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    inf.end(); // Own Inflater: InflaterInputStream only ends the ones it created
+                }
+            };
+        } else if (codec == CODEC_STORED) {
+            payload = buffered;
+        } else {
+            throw new IOException("Unknown invoice codec " + codec);
+        }
+        return new InputStreamReader(new VerifyingInputStream(payload, length, checksum), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param data The first bytes of a stored invoice (at least {@link #HEADER_LENGTH}).
+     * @return True if they start with the header of this format.
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && hasMagic(data);
+    }
+
+    private static boolean hasMagic(byte[] data) {
+        if (data.length < HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Passes the decoded bytes through and checks length and CRC32 once the end is reached.
+     */
+    private static final class VerifyingInputStream extends FilterInputStream {
+        private final CRC32 crc = new CRC32();
+        private final long expectedLength;
+        private final int expectedChecksum;
+        private long length;
+        private boolean verified;
+
+        private VerifyingInputStream(InputStream in, long expectedLength, int expectedChecksum) {
+            super(in);
+            this.expectedLength = expectedLength;
+            this.expectedChecksum = expectedChecksum;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            try {
+                n = in.read(b, off, len);
+            } catch (EOFException e) {
+                throw new IOException("Invoice data is truncated", e);
+            }
+            if (n < 0) {
+                verify();
+                return -1;
+            }
+            crc.update(b, off, n);
+            length += n;
+            if (length > expectedLength) {
+                throw new IOException("Invoice data is longer than its header says");
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes must still be checksummed
+            byte[] buffer = new byte[(int) Math.min(n, 4096)];
+            long skipped = 0;
+            while (skipped < n) {
+                int r = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (r < 0) {
+                    break;
+                }
+                skipped += r;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void verify() throws IOException {
+            if (verified) {
+                return;
+            }
+            verified = true;
+            if (length != expectedLength || (int) crc.getValue() != expectedChecksum) {
+                throw new IOException("Invoice checksum mismatch (" + length + " of " + expectedLength + " bytes)");
+            }
+        }
+    }
+}
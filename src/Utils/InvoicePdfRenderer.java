@@ -0,0 +1,470 @@
+package Utils;
+
+import Models.Invoice;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Renders {@link Invoice}s as PDF (invoice.pdf_blob) without a PDF library.
+ *
+ * {@link #openStream(Invoice)} returns an InputStream that produces the document while it is
+ * read, one page at a time: only the current page is held in memory, however many lines the
+ * invoice has, so it can be handed to {@link java.sql.PreparedStatement#setBinaryStream}
+ * directly. Page contents are deflate-compressed.
+ *
+ * The fonts are the standard PDF fonts Courier, Courier-Bold and Helvetica-Bold, which every
+ * viewer has, so nothing is embedded. Their dictionaries, including an encoding that adds the
+ * Turkish letters missing from WinAnsi, and the static parts of every page (table header,
+ * rules) are built once and shared by all invoices. Courier is monospaced, so numbers are
+ * right-aligned without font metrics.
+ */
+public class InvoicePdfRenderer {
+
+    // A4 in points
+    static final int PAGE_WIDTH = 595;
+    static final int PAGE_HEIGHT = 842;
+    static final int MARGIN = 50;
+    static final int LINE_HEIGHT = 14;
+    static final int FOOTER_Y = 30;
+    // Lowest baseline a table line may use; leaves room for the page footer
+    static final int BOTTOM = 70;
+    // Height of the totals block at the end of the table
+    static final int TOTALS_HEIGHT = 3 * LINE_HEIGHT + 6;
+    // Courier is 600/1000 em wide; at 10 pt a character is 6 pt
+    static final int CHAR_WIDTH = 6;
+    static final int MAX_NAME_CHARS = 40;
+
+    // Right edges of the number columns
+    static final int KG_RIGHT = 370;
+    static final int PRICE_RIGHT = 460;
+    static final int TOTAL_RIGHT = PAGE_WIDTH - MARGIN;
+
+    // Fixed object numbers; pages take two objects each starting at FIRST_PAGE_OBJECT
+    static final int CATALOG_OBJECT = 1;
+    static final int PAGES_OBJECT = 2;
+    static final int FONT_OBJECT = 3;
+    static final int BOLD_FONT_OBJECT = 4;
+    static final int TITLE_FONT_OBJECT = 5;
+    static final int FIRST_PAGE_OBJECT = 6;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+
+    // WinAnsi plus the Turkish letters it lacks, placed on codes WinAnsi leaves unused
+    private static final byte[] ENCODING = buildEncoding();
+    private static final String FONT_ENCODING = "<< /Type /Encoding /BaseEncoding /WinAnsiEncoding "
+            + "/Differences [127 /Idotaccent 129 /gbreve 141 /Gbreve 143 /scedilla 144 /Scedilla 157 /dotlessi] >>";
+
+    // The second line marks the file as binary for transfer tools
+    private static final byte[] FILE_HEADER = "%PDF-1.4\n%\u00e2\u00e3\u00cf\u00d3\n".getBytes(StandardCharsets.ISO_8859_1);
+    private static final byte[][] FONT_OBJECTS = {
+            ascii(FONT_OBJECT + " 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding " + FONT_ENCODING + " >>\nendobj\n"),
+            ascii(BOLD_FONT_OBJECT + " 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Courier-Bold /Encoding " + FONT_ENCODING + " >>\nendobj\n"),
+            ascii(TITLE_FONT_OBJECT + " 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding " + FONT_ENCODING + " >>\nendobj\n")
+    };
+    private static final String PAGE_RESOURCES = "/Resources << /Font << /F1 " + FONT_OBJECT + " 0 R /F2 "
+            + BOLD_FONT_OBJECT + " 0 R /F3 " + TITLE_FONT_OBJECT + " 0 R >> >>";
+
+    private InvoicePdfRenderer() {}
+
+    /**
+     * Writes the PDF of an invoice to a stream.
+     *
+     * @param invoice The invoice.
+     * @param out     Receives the document; not closed.
+     * @throws IOException If writing fails.
+     */
+    public static void render(Invoice invoice, OutputStream out) throws IOException {
+        try (InputStream in = openStream(invoice)) {
+            in.transferTo(out);
+        }
+    }
+
+    /**
+     * Returns a stream that renders the PDF of an invoice page by page as it is read.
+     *
+     * @param invoice The invoice; must not change until the stream is closed.
+     * @return The document.
+     */
+    public static InputStream openStream(Invoice invoice) {
+        return new PdfStream(invoice);
+    }
+
+    /**
+     * Pull-based document writer: each refill appends the next part of the file (header and
+     * fonts, one page, or the closing objects and cross-reference table).
+     */
+    private static final class PdfStream extends InputStream {
+        private final Invoice invoice;
+        private final Layout layout = new Layout();
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final Chunk chunk = new Chunk();
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream(8 * 1024);
+        private final StringBuilder text = new StringBuilder(128);
+
+        private byte[] buffer = new byte[0];
+        private int position;
+        private int bufferLength;
+
+        // Byte offset of every object, by object number
+        private long[] offsets = new long[16];
+        private long written;
+        private int nextLine;
+        private int pageCount;
+        private boolean headerWritten;
+        private boolean finished;
+
+        private PdfStream(Invoice invoice) {
+            this.invoice = invoice;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, bufferLength - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return bufferLength - position;
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+            finished = true;
+            bufferLength = position = 0;
+        }
+
+        private boolean fill() throws IOException {
+            while (position >= bufferLength) {
+                if (finished) {
+                    return false;
+                }
+                chunk.reset();
+                if (!headerWritten) {
+                    writeHeader();
+                    headerWritten = true;
+                } else if (pageCount == 0 || nextLine < invoice.getLines().size() || !layout.totalsWritten) {
+                    writePage();
+                } else {
+                    writeTrailer();
+                    finished = true;
+                }
+                // Hand out the chunk's array without copying it
+                buffer = chunk.array();
+                bufferLength = chunk.size();
+                position = 0;
+                written += bufferLength;
+            }
+            return true;
+        }
+
+        private void writeHeader() throws IOException {
+            chunk.write(FILE_HEADER);
+            for (int i = 0; i < FONT_OBJECTS.length; i++) {
+                markObject(FONT_OBJECT + i, chunk.size());
+                chunk.write(FONT_OBJECTS[i]);
+            }
+        }
+
+        private void writePage() throws IOException {
+            int pageNumber = ++pageCount;
+            content.reset();
+            layout.start();
+
+            if (pageNumber == 1) {
+                writeInvoiceHeader();
+            }
+            writeTableHeader();
+
+            List<Invoice.Line> lines = invoice.getLines();
+            while (nextLine < lines.size() && layout.y - LINE_HEIGHT >= BOTTOM) {
+                writeLine(lines.get(nextLine++));
+            }
+            if (nextLine == lines.size() && layout.y - TOTALS_HEIGHT >= BOTTOM) {
+                writeTotals();
+            }
+            text(1, 9, MARGIN, FOOTER_Y, text().append("Invoice ").append(invoice.getOrderId()).append(" - Page ").append(pageNumber));
+
+            // Content stream, compressed
+            int contentObject = FIRST_PAGE_OBJECT + 2 * (pageNumber - 1);
+            deflater.reset();
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.size() / 2 + 64);
+            try (DeflaterOutputStream zip = new DeflaterOutputStream(compressed, deflater, 4096)) {
+                content.writeTo(zip);
+            }
+            markObject(contentObject, chunk.size());
+            writeAscii(contentObject + " 0 obj\n<< /Length " + compressed.size() + " /Filter /FlateDecode >>\nstream\n");
+            compressed.writeTo(chunk);
+            writeAscii("\nendstream\nendobj\n");
+
+            markObject(contentObject + 1, chunk.size());
+            writeAscii((contentObject + 1) + " 0 obj\n<< /Type /Page /Parent " + PAGES_OBJECT + " 0 R /MediaBox [0 0 "
+                    + PAGE_WIDTH + " " + PAGE_HEIGHT + "] " + PAGE_RESOURCES + " /Contents " + contentObject + " 0 R >>\nendobj\n");
+        }
+
+        private void writeInvoiceHeader() throws IOException {
+            text(3, 20, MARGIN, layout.y, text().append("INVOICE"));
+            layout.y -= 30;
+            field("Order ID:", text().append(invoice.getOrderId()));
+            field("Date:", text().append(invoice.getOrderTime() != null ? DATE_FORMAT.format(invoice.getOrderTime()) : "-"));
+            field("Customer:", text().append(orDash(invoice.getCustomerName())));
+            field("Address:", text().append(orDash(invoice.getAddress())));
+            field("Phone:", text().append(orDash(invoice.getPhone())));
+            field("Delivery:", text().append(orDash(invoice.getDeliveryInfo())));
+            layout.y -= LINE_HEIGHT;
+        }
+
+        private void field(String label, StringBuilder value) throws IOException {
+            // The label is written as is; value is the shared builder and must not be reset first
+            text(2, 10, MARGIN, layout.y, label);
+            text(1, 10, MARGIN + 72, layout.y, value);
+            layout.y -= LINE_HEIGHT;
+        }
+
+        private void writeTableHeader() throws IOException {
+            content.write(TableTemplate.bytesAt(layout.y));
+            layout.y -= TableTemplate.HEIGHT;
+        }
+
+        private void writeLine(Invoice.Line line) throws IOException {
+            StringBuilder name = text().append(line.getProductName());
+            if (name.length() > MAX_NAME_CHARS) {
+                name.setLength(MAX_NAME_CHARS - 3);
+                name.append("...");
+            }
+            text(1, 10, MARGIN, layout.y, name);
+            rightText(1, KG_RIGHT, layout.y, appendAmount(text(), line.getAmountKg()));
+            rightText(1, PRICE_RIGHT, layout.y, appendAmount(text(), line.getUnitPrice()));
+            rightText(1, TOTAL_RIGHT, layout.y, appendAmount(text(), line.getLineTotal()));
+            layout.y -= LINE_HEIGHT;
+        }
+
+        private void writeTotals() throws IOException {
+            layout.y -= 6;
+            rule(layout.y + LINE_HEIGHT - 3);
+            if (invoice.getLoyaltyDiscountPercent() > 0) {
+                text(1, 10, MARGIN, layout.y, text().append("Loyalty Discount"));
+                rightText(1, TOTAL_RIGHT, layout.y, appendAmount(text(), invoice.getLoyaltyDiscountPercent()).append('%'));
+                layout.y -= LINE_HEIGHT;
+            }
+            text(2, 10, MARGIN, layout.y, text().append("TOTAL AMOUNT"));
+            rightText(2, TOTAL_RIGHT, layout.y, appendAmount(text(), invoice.getTotalAmount()).append(" TL"));
+            layout.y -= LINE_HEIGHT;
+            layout.totalsWritten = true;
+        }
+
+        private void writeTrailer() throws IOException {
+            markObject(PAGES_OBJECT, chunk.size());
+            StringBuilder kids = new StringBuilder(pageCount * 8);
+            for (int i = 0; i < pageCount; i++) {
+                kids.append(FIRST_PAGE_OBJECT + 2 * i + 1).append(" 0 R ");
+            }
+            writeAscii(PAGES_OBJECT + " 0 obj\n<< /Type /Pages /Kids [" + kids + "] /Count " + pageCount + " >>\nendobj\n");
+
+            markObject(CATALOG_OBJECT, chunk.size());
+            writeAscii(CATALOG_OBJECT + " 0 obj\n<< /Type /Catalog /Pages " + PAGES_OBJECT + " 0 R >>\nendobj\n");
+
+            int objectCount = FIRST_PAGE_OBJECT + 2 * pageCount;
+            long xref = written + chunk.size();
+            StringBuilder table = new StringBuilder(objectCount * 20 + 64);
+            table.append("xref\n0 ").append(objectCount).append("\n0000000000 65535 f \n");
+            for (int i = 1; i < objectCount; i++) {
+                String offset = Long.toString(offsets[i]);
+                for (int pad = offset.length(); pad < 10; pad++) {
+                    table.append('0');
+                }
+                table.append(offset).append(" 00000 n \n");
+            }
+            table.append("trailer\n<< /Size ").append(objectCount).append(" /Root ").append(CATALOG_OBJECT)
+                    .append(" 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+            writeAscii(table.toString());
+        }
+
+        private void markObject(int number, int offsetInChunk) {
+            if (number >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, Math.max(number + 1, offsets.length * 2));
+            }
+            offsets[number] = written + offsetInChunk;
+        }
+
+        private StringBuilder text() {
+            text.setLength(0);
+            return text;
+        }
+
+        private void rightText(int font, int right, int y, StringBuilder value) throws IOException {
+            text(font, 10, right - value.length() * CHAR_WIDTH, y, value);
+        }
+
+        private void text(int font, int size, int x, int y, CharSequence value) throws IOException {
+            writeContent("BT /F" + font + " " + size + " Tf 1 0 0 1 " + x + " " + y + " Tm (");
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                byte b = c < ENCODING.length ? ENCODING[c] : encodeExtra(c);
+                if (b == '(' || b == ')' || b == '\\') {
+                    content.write('\\');
+                }
+                content.write(b);
+            }
+            writeContent(") Tj ET\n");
+        }
+
+        private void rule(int y) throws IOException {
+            writeContent("0.5 w " + MARGIN + " " + y + " m " + TOTAL_RIGHT + " " + y + " l S\n");
+        }
+
+        private void writeContent(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                content.write(s.charAt(i));
+            }
+        }
+
+        private void writeAscii(String s) {
+            for (int i = 0; i < s.length(); i++) {
+                chunk.write(s.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * Vertical position while a page is laid out.
+     */
+    private static final class Layout {
+        private int y;
+        private boolean totalsWritten;
+
+        private void start() {
+            y = PAGE_HEIGHT - MARGIN - 20;
+        }
+    }
+
+    /**
+     * Column headings and rules of the item table, identical on every page apart from the
+     * vertical position; built once per position and reused.
+     */
+    static final class TableTemplate {
+        static final int HEIGHT = 2 * LINE_HEIGHT;
+        private static final Map<Integer, byte[]> BY_Y = new ConcurrentHashMap<>();
+
+        static byte[] bytesAt(int y) {
+            return BY_Y.computeIfAbsent(y, TableTemplate::build);
+        }
+
+        private static byte[] build(int y) {
+            StringBuilder sb = new StringBuilder(256);
+            sb.append("BT /F2 10 Tf 1 0 0 1 ").append(MARGIN).append(' ').append(y).append(" Tm (Product) Tj ET\n");
+            appendRight(sb, "Kg", KG_RIGHT, y);
+            appendRight(sb, "Unit Price", PRICE_RIGHT, y);
+            appendRight(sb, "Line Total", TOTAL_RIGHT, y);
+            int ruleY = y - 5;
+            sb.append("0.5 w ").append(MARGIN).append(' ').append(ruleY).append(" m ")
+                    .append(TOTAL_RIGHT).append(' ').append(ruleY).append(" l S\n");
+            return ascii(sb.toString());
+        }
+
+        private static void appendRight(StringBuilder sb, String label, int right, int y) {
+            sb.append("BT /F2 10 Tf 1 0 0 1 ").append(right - label.length() * CHAR_WIDTH).append(' ').append(y)
+                    .append(" Tm (").append(label).append(") Tj ET\n");
+        }
+    }
+
+    /**
+     * Appends an amount with two decimals, without going through String.format.
+     */
+    static StringBuilder appendAmount(StringBuilder sb, double value) {
+        long cents = Math.round(Math.abs(value) * 100);
+        if (value < 0 && cents != 0) {
+            sb.append('-');
+        }
+        sb.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction);
+    }
+
+    private static String orDash(String value) {
+        return value == null || value.isBlank() ? "-" : value;
+    }
+
+    private static byte[] buildEncoding() {
+        byte[] map = new byte[256];
+        Arrays.fill(map, (byte) '?');
+        for (int c = 32; c < 127; c++) {
+            map[c] = (byte) c;
+        }
+        for (int c = 0xA0; c < 0x100; c++) {
+            map[c] = (byte) c; // WinAnsi matches Latin-1 here
+        }
+        map['\t'] = ' ';
+        return map;
+    }
+
+    private static byte encodeExtra(char c) {
+        switch (c) {
+            // Codes of the /Differences in FONT_ENCODING
+            case 'İ': return (byte) 127;
+            case 'ğ': return (byte) 129;
+            case 'Ğ': return (byte) 141;
+            case 'ş': return (byte) 143;
+            case 'Ş': return (byte) 144;
+            case 'ı': return (byte) 157;
+            // WinAnsi's own punctuation
+            case '€': return (byte) 0x80;
+            case '‘': return (byte) 0x91;
+            case '’': return (byte) 0x92;
+            case '“': return (byte) 0x93;
+            case '”': return (byte) 0x94;
+            case '•': return (byte) 0x95;
+            case '–': return (byte) 0x96;
+            case '—': return (byte) 0x97;
+            default: return (byte) '?';
+        }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Byte buffer whose backing array can be read without a copy.
+     */
+    private static final class Chunk extends ByteArrayOutputStream {
+        private Chunk() {
+            super(8 * 1024);
+        }
+
+        private byte[] array() {
+            return buf;
+        }
+    }
+}
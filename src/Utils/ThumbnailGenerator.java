@@ -0,0 +1,133 @@
+package Utils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Produces the card-sized image variant stored next to the original product image
+ * (product_info.thumb_blob). Uses ImageIO so it also works in the command line tools,
+ * where no JavaFX toolkit is running.
+ */
+public class ThumbnailGenerator {
+
+    // Product card ImageView is 120x100; twice that keeps thumbnails sharp on HiDPI screens
+    public static final int MAX_WIDTH = 240;
+    public static final int MAX_HEIGHT = 200;
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private ThumbnailGenerator() {}
+
+    /**
+     * Decodes the original image and scales it down to fit {@link #MAX_WIDTH} x {@link #MAX_HEIGHT}.
+     * Images with transparency are encoded as PNG, everything else as JPEG.
+     *
+     * @param original The uploaded JPEG/PNG bytes.
+     * @return The thumbnail, or null if the bytes could not be decoded as an image.
+     */
+    public static Thumbnail createThumbnail(byte[] original) {
+        if (original == null || original.length == 0) {
+            return null;
+        }
+        try {
+            BufferedImage source = ImageIO.read(new ByteArrayInputStream(original));
+            if (source == null) {
+                return null;
+            }
+
+            boolean alpha = source.getColorModel().hasAlpha();
+            BufferedImage scaled = scale(source, alpha);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            if (alpha) {
+                ImageIO.write(scaled, "png", out);
+                return new Thumbnail(out.toByteArray(), "image/png", scaled.getWidth(), scaled.getHeight());
+            }
+            writeJpeg(scaled, out);
+            return new Thumbnail(out.toByteArray(), "image/jpeg", scaled.getWidth(), scaled.getHeight());
+        } catch (IOException e) {
+            System.err.println("ThumbnailGenerator: Could not create thumbnail: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Downscales in halving steps before the final resize; a single bilinear step from a
+     * multi-megapixel photo to a card-sized image would alias badly.
+     */
+    private static BufferedImage scale(BufferedImage source, boolean alpha) {
+        double ratio = Math.min(1.0, Math.min(
+                (double) MAX_WIDTH / source.getWidth(),
+                (double) MAX_HEIGHT / source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, width, height, null);
+            g.dispose();
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, ByteArrayOutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            ImageIO.write(image, "jpeg", out);
+            return;
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    /**
+     * Encoded thumbnail bytes with their MIME type.
+     */
+    public static final class Thumbnail {
+        private final byte[] bytes;
+        private final String mimeType;
+        private final int width;
+        private final int height;
+
+        public Thumbnail(byte[] bytes, String mimeType, int width, int height) {
+            this.bytes = bytes;
+            this.mimeType = mimeType;
+            this.width = width;
+            this.height = height;
+        }
+
+        public byte[] getBytes() { return bytes; }
+        public String getMimeType() { return mimeType; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+    }
+}
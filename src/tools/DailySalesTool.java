@@ -0,0 +1,32 @@
+package tools;
+
+import Dao.DailySalesDAO;
+
+/**
+ * Maintains the daily sales rollup (daily_sales, see Dao.DailySalesDAO).
+ * <ul>
+ *     <li>{@code rebuild}: recomputes every row from order_info and order_item. Run once after
+ *     Utils.FixSchema; safe to run again.</li>
+ * </ul>
+ */
+public class DailySalesTool {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "";
+        int status = 0;
+
+        switch (command) {
+            case "rebuild":
+                long start = System.currentTimeMillis();
+                int rows = new DailySalesDAO().rebuild();
+                System.out.println("Rebuilt daily_sales: " + rows + " rows in " + (System.currentTimeMillis() - start) + " ms");
+                break;
+            default:
+                System.err.println("Usage: DailySalesTool rebuild");
+                status = 2;
+        }
+
+        Database.DatabaseConnection.closeConnection();
+        System.exit(status);
+    }
+}
@@ -20,6 +20,18 @@ public class ImageSeeder {
         return "application/octet-stream";
     }
 
+    private static boolean hasThumbnailColumns(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeQuery("SELECT thumb_blob, thumb_mime FROM product_info WHERE 1 = 0").close();
+            return true;
+        } catch (SQLException e) {
+            if (Dao.DBProductDAO.isMissingThumbnailColumns(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
     public static void main(String[] args) throws Exception {
 
         if (args.length < 1) {
@@ -33,39 +45,48 @@ public class ImageSeeder {
         // String user = "myuser";
         // String pass = "1234";
 
-        String sql = """
-            UPDATE product_info
-            SET image_blob = ?, image_mime = ?
-            WHERE LOWER(name) = ?
-        """;
-
-        try (Connection conn = Database.DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            int updated = 0;
-            int skipped = 0;
-
-            try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(folder))) {
-                for (Path p : stream) {
-                    String fn = p.getFileName().toString().toLowerCase(Locale.ROOT);
-                    if (!(fn.endsWith(".jpg") || fn.endsWith(".jpeg") || fn.endsWith(".png"))) continue;
-
-                    byte[] bytes = Files.readAllBytes(p);
-                    String mime = mimeFromExt(p);
-                    String nameKey = baseNameLower(p); // "broccoli"
-
-                    ps.setBytes(1, bytes);
-                    ps.setString(2, mime);
-                    ps.setString(3, nameKey);
-
-                    int count = ps.executeUpdate();
-                    if (count == 1) updated++;
-                    else skipped++; // DB'de name eşleşmedi
+        try (Connection conn = Database.DatabaseConnection.getConnection()) {
+
+            // Utils.FixSchema çalıştırılmamışsa thumbnail kolonları yok; sadece orijinal görsel yazılır
+            boolean withThumbnail = hasThumbnailColumns(conn);
+            String sql = withThumbnail
+                    ? "UPDATE product_info SET image_blob = ?, image_mime = ?, thumb_blob = ?, thumb_mime = ? WHERE LOWER(name) = ?"
+                    : "UPDATE product_info SET image_blob = ?, image_mime = ? WHERE LOWER(name) = ?";
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                int updated = 0;
+                int skipped = 0;
+
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(folder))) {
+                    for (Path p : stream) {
+                        String fn = p.getFileName().toString().toLowerCase(Locale.ROOT);
+                        if (!(fn.endsWith(".jpg") || fn.endsWith(".jpeg") || fn.endsWith(".png"))) continue;
+
+                        byte[] bytes = Files.readAllBytes(p);
+                        String mime = mimeFromExt(p);
+                        String nameKey = baseNameLower(p); // "broccoli"
+
+                        ps.setBytes(1, bytes);
+                        ps.setString(2, mime);
+                        if (withThumbnail) {
+                            // Kartlarda gösterilecek küçük boyutlu kopya
+                            Utils.ThumbnailGenerator.Thumbnail thumb = Utils.ThumbnailGenerator.createThumbnail(bytes);
+                            ps.setBytes(3, thumb != null ? thumb.getBytes() : null);
+                            ps.setString(4, thumb != null ? thumb.getMimeType() : null);
+                            ps.setString(5, nameKey);
+                        } else {
+                            ps.setString(3, nameKey);
+                        }
+
+                        int count = ps.executeUpdate();
+                        if (count == 1) updated++;
+                        else skipped++; // DB'de name eşleşmedi
+                    }
                 }
-            }
 
-            System.out.println("Updated: " + updated);
-            System.out.println("Skipped: " + skipped);
+                System.out.println("Updated: " + updated);
+                System.out.println("Skipped: " + skipped);
+            }
         }
 
         System.out.println("For Control: SELECT name, OCTET_LENGTH(image_blob) bytes FROM product_info;");
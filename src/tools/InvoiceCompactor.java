@@ -0,0 +1,98 @@
+package tools;
+
+import Utils.InvoiceCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * Rewrites invoices stored twice (invoice_text plus a raw copy in pdf_blob) into the single
+ * compressed format of Utils.InvoiceCodec. Walks the table by order_id in batches of
+ * {@link #DEFAULT_BATCH_SIZE} rows (or the first argument), one transaction per batch, so it
+ * can run next to the application and be stopped and started again at any time.
+ * Every row is decoded again and compared before it is written.
+ */
+public class InvoiceCompactor {
+
+    static final int DEFAULT_BATCH_SIZE = 200;
+
+    public static void main(String[] args) throws Exception {
+        int batchSize = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_BATCH_SIZE;
+
+        // Rows that still have a text copy, or a blob without the format header; PDF invoices
+        // (Utils.InvoicePdfRenderer) are already stored once and left alone
+        String select = "SELECT order_id, invoice_text, pdf_blob FROM group09_greengrocer.invoice " +
+                "WHERE order_id > ? AND (invoice_text IS NOT NULL OR SUBSTRING(pdf_blob, 1, 4) <> ?) " +
+                "AND (pdf_blob IS NULL OR SUBSTRING(pdf_blob, 1, 5) <> '%PDF-') " +
+                "ORDER BY order_id LIMIT ?";
+        String update = "UPDATE group09_greengrocer.invoice SET pdf_blob = ?, invoice_text = NULL WHERE order_id = ?";
+
+        long lastOrderId = 0;
+        int compacted = 0;
+        int skipped = 0;
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+
+        try (Connection conn = Database.DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement read = conn.prepareStatement(select);
+                 PreparedStatement write = conn.prepareStatement(update)) {
+                while (true) {
+                    read.setLong(1, lastOrderId);
+                    read.setBytes(2, "GGIV".getBytes(StandardCharsets.US_ASCII));
+                    read.setInt(3, batchSize);
+
+                    int rows = 0;
+                    try (ResultSet rs = read.executeQuery()) {
+                        while (rs.next()) {
+                            rows++;
+                            lastOrderId = rs.getLong("order_id");
+                            String text = rs.getString("invoice_text");
+                            byte[] blob = rs.getBytes("pdf_blob");
+                            long storedBytes = (text != null ? text.getBytes(StandardCharsets.UTF_8).length : 0)
+                                    + (blob != null ? blob.length : 0);
+                            if (text == null && blob != null) {
+                                text = new String(blob, StandardCharsets.UTF_8);
+                            }
+                            if (text == null) {
+                                skipped++;
+                                continue;
+                            }
+
+                            byte[] encoded = InvoiceCodec.encode(text);
+                            if (!text.equals(InvoiceCodec.decode(encoded))) {
+                                System.err.println("Round trip failed, left unchanged: order " + lastOrderId);
+                                skipped++;
+                                continue;
+                            }
+
+                            bytesBefore += storedBytes;
+                            bytesAfter += encoded.length;
+                            write.setBytes(1, encoded);
+                            write.setLong(2, lastOrderId);
+                            write.addBatch();
+                            compacted++;
+                        }
+                    }
+                    if (rows == 0) {
+                        break;
+                    }
+                    write.executeBatch();
+                    conn.commit();
+                    System.out.println("Compacted up to order " + lastOrderId + " (" + compacted + " rows)");
+                }
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+
+        System.out.println("Compacted: " + compacted);
+        System.out.println("Skipped: " + skipped);
+        System.out.println("Bytes before: " + bytesBefore + ", after: " + bytesAfter);
+        System.out.println("For Control: SELECT COUNT(*), SUM(OCTET_LENGTH(invoice_text)), SUM(OCTET_LENGTH(pdf_blob)) FROM invoice;");
+        Database.DatabaseConnection.closeConnection();
+    }
+}
@@ -0,0 +1,102 @@
+package tools;
+
+import Dao.InvoiceJobDAO;
+import Service.InvoiceService;
+
+import java.sql.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders PDF invoices (Utils.InvoicePdfRenderer) for historical orders whose invoice is
+ * missing or stored in an older text format. Safe to run again; orders that already have a PDF
+ * are skipped.
+ *
+ * Order ids are read in keyset pages of {@link #PAGE_SIZE} and handed to worker threads
+ * (first argument, default: processors, at most {@link #MAX_WORKERS} to leave pool connections
+ * for the application) through a small bounded queue. Each worker renders one invoice at a
+ * time while it streams into the database, so memory stays flat however many orders there are.
+ */
+public class InvoicePdfBatch {
+
+    static final int PAGE_SIZE = 500;
+    static final int MAX_WORKERS = 6;
+    private static final int END = -1;
+
+    public static void main(String[] args) throws Exception {
+        int workers = args.length > 0
+                ? Integer.parseInt(args[0])
+                : Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors());
+
+        BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(workers * 4);
+        AtomicInteger rendered = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        InvoiceJobDAO jobDAO = new InvoiceJobDAO();
+
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int orderId = queue.take(); orderId != END; orderId = queue.take()) {
+                        try {
+                            InvoiceJobDAO.InvoiceSource source = jobDAO.loadInvoiceSource(orderId);
+                            if (source != null) {
+                                jobDAO.completeJob(orderId, InvoiceService.toInvoice(source));
+                                int done = rendered.incrementAndGet();
+                                if (done % 1000 == 0) {
+                                    System.out.println("Rendered: " + done);
+                                }
+                            }
+                        } catch (SQLException | RuntimeException e) {
+                            failed.incrementAndGet();
+                            System.err.println("Order " + orderId + " failed: " + e.getMessage());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "invoice-pdf-batch-" + (i + 1));
+            threads[i].start();
+        }
+
+        long start = System.nanoTime();
+        String sql = "SELECT o.id FROM group09_greengrocer.order_info o " +
+                "LEFT JOIN group09_greengrocer.invoice i ON i.order_id = o.id " +
+                "WHERE o.id > ? AND (i.pdf_blob IS NULL OR SUBSTRING(i.pdf_blob, 1, 5) <> '%PDF-') " +
+                "ORDER BY o.id LIMIT ?";
+        int lastOrderId = 0;
+        try (Connection conn = Database.DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            while (true) {
+                ps.setInt(1, lastOrderId);
+                ps.setInt(2, PAGE_SIZE);
+                int rows = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        lastOrderId = rs.getInt(1);
+                        queue.put(lastOrderId); // Blocks while the workers are behind
+                        rows++;
+                    }
+                }
+                if (rows < PAGE_SIZE) {
+                    break;
+                }
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                queue.put(END);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        System.out.println("Rendered: " + rendered.get() + " (" + rendered.get() / seconds + "/s with " + workers + " workers)");
+        System.out.println("Failed: " + failed.get());
+        System.out.println("For Control: SELECT COUNT(*) FROM invoice WHERE SUBSTRING(pdf_blob, 1, 5) = '%PDF-';");
+        Database.DatabaseConnection.closeConnection();
+    }
+}
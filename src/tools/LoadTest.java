@@ -0,0 +1,466 @@
+package tools;
+
+import Dao.CarrierDAO;
+import Dao.DBProductDAO;
+import Database.DatabaseConnection;
+import Models.Order;
+import Models.Product;
+import Models.ShoppingCart;
+import Models.User;
+import Service.DbTaskExecutor;
+import Service.InsufficientStockException;
+import Service.InvoiceService;
+import Service.OrderService;
+import Service.OrderWriter;
+import Service.SettingsService;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless load test of checkout and carrier dispatch against a local database (point
+ * Database.DatabaseConnection at it with -Dgreengrocer.db.url=..., never at production).
+ *
+ * Simulated customers and carriers run on virtual threads for a fixed duration and call the
+ * real code: customers fill their own cart and go through {@link OrderService#placeOrder},
+ * carriers poll the available orders, all race for the same one (the oldest, or a random one of
+ * the first few) with {@link CarrierDAO#assignOrderToCarrier} and deliver what they won with
+ * {@link CarrierDAO#completeOrder}. Customers and carriers are seeded as users named
+ * {@code loadtest-customer-N} / {@code loadtest-carrier-N}; carriers only touch orders placed
+ * during the run.
+ *
+ * Options, as name=value arguments:
+ * <ul>
+ *     <li>customers (20), carriers (5): simulated users</li>
+ *     <li>duration (30): seconds of load; carriers keep delivering for up to drain (10) more</li>
+ *     <li>cartMin (1), cartMax (5): lines per cart; maxKg (3.0): kilos per line, in half kilos</li>
+ *     <li>thinkMs (200): mean pause between two checkouts of a customer and two carrier polls</li>
+ *     <li>products (0): buy only from the first N products, to make stock run out; 0 for all</li>
+ *     <li>race (oldest): which available order carriers go for, oldest or random (of the first 5)</li>
+ * </ul>
+ *
+ * The report gives throughput and latency percentiles per operation, then two checks over the
+ * orders of the run: no product ended with negative stock_kg or with a stock that does not match
+ * what was sold (oversell, lost update), and no order was won by two carriers or ended up with
+ * another carrier than the one that won it (double assignment). The exit code is 1 if a check
+ * failed or a checkout or delivery ended in an error (rejections for stock are expected).
+ */
+public class LoadTest {
+
+    static final int RACE_WINDOW = 5;
+    private static final double EPSILON = 1e-6;
+
+    private final int customers;
+    private final int carriers;
+    private final long durationMillis;
+    private final long drainMillis;
+    private final int cartMin;
+    private final int cartMax;
+    private final double maxKg;
+    private final long thinkMillis;
+    private final int productLimit;
+    private final boolean raceOldest;
+
+    private final OrderService orderService = new OrderService();
+    private final CarrierDAO carrierDAO = new CarrierDAO();
+
+    private final Recorder checkouts = new Recorder("checkout");
+    // Every assign call, won or lost
+    private final Recorder assignments = new Recorder("assign");
+    private final Recorder completions = new Recorder("complete");
+    private final AtomicLong rejectedCheckouts = new AtomicLong();
+    private final AtomicLong failedCheckouts = new AtomicLong();
+    private final AtomicLong lostRaces = new AtomicLong();
+    private final AtomicLong failedCompletions = new AtomicLong();
+    // Order id -> carrier whose assign call returned true
+    private final Map<Integer, Integer> winners = new ConcurrentHashMap<>();
+    private final List<String> doubleWins = new ArrayList<>();
+
+    private volatile boolean customersRunning = true;
+    private volatile long carriersDeadline;
+
+    LoadTest(Map<String, String> options) {
+        customers = Integer.parseInt(options.getOrDefault("customers", "20"));
+        carriers = Integer.parseInt(options.getOrDefault("carriers", "5"));
+        durationMillis = Long.parseLong(options.getOrDefault("duration", "30")) * 1000;
+        drainMillis = Long.parseLong(options.getOrDefault("drain", "10")) * 1000;
+        cartMin = Integer.parseInt(options.getOrDefault("cartMin", "1"));
+        cartMax = Integer.parseInt(options.getOrDefault("cartMax", "5"));
+        maxKg = Double.parseDouble(options.getOrDefault("maxKg", "3.0"));
+        thinkMillis = Long.parseLong(options.getOrDefault("thinkMs", "200"));
+        productLimit = Integer.parseInt(options.getOrDefault("products", "0"));
+        raceOldest = !"random".equals(options.getOrDefault("race", "oldest"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                System.err.println("Usage: LoadTest [customers=20] [carriers=5] [duration=30] [drain=10] [cartMin=1] [cartMax=5] "
+                        + "[maxKg=3.0] [thinkMs=200] [products=0] [race=oldest|random]");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+
+        boolean passed = new LoadTest(options).run();
+
+        OrderWriter.shutdown();
+        InvoiceService.shutdown();
+        SettingsService.shutdown();
+        DbTaskExecutor.shutdown();
+        DatabaseConnection.closeConnection();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs the scenario and prints the report.
+     *
+     * @return True if the checks passed and no operation failed with an error.
+     */
+    boolean run() throws Exception {
+        List<User> customerUsers = seedUsers("CUSTOMER", "loadtest-customer-", customers);
+        List<User> carrierUsers = seedUsers("CARRIER", "loadtest-carrier-", carriers);
+        List<Product> products = loadProducts();
+        if (products.isEmpty()) {
+            System.err.println("LoadTest: No active product with stock, nothing to buy.");
+            return false;
+        }
+        Map<Integer, Double> stockBefore = readStock();
+        int lastOrderId = readLastOrderId();
+
+        System.out.printf("LoadTest: %d customers, %d carriers, %d products, %d s (carts %d-%d lines, think %d ms, race %s)%n",
+                customers, carriers, products.size(), durationMillis / 1000, cartMin, cartMax, thinkMillis,
+                raceOldest ? "oldest" : "random");
+
+        long start = System.nanoTime();
+        carriersDeadline = System.currentTimeMillis() + durationMillis + drainMillis;
+        List<Thread> customerThreads = new ArrayList<>();
+        for (int i = 0; i < customers; i++) {
+            User user = customerUsers.get(i);
+            customerThreads.add(Thread.ofVirtual().name("load-customer-" + (i + 1)).start(() -> customerLoop(user, products)));
+        }
+        List<Thread> carrierThreads = new ArrayList<>();
+        for (int i = 0; i < carriers; i++) {
+            int carrierId = carrierUsers.get(i).getId();
+            carrierThreads.add(Thread.ofVirtual().name("load-carrier-" + (i + 1)).start(() -> carrierLoop(carrierId, lastOrderId)));
+        }
+
+        Thread.sleep(durationMillis);
+        customersRunning = false;
+        for (Thread thread : customerThreads) {
+            thread.join();
+        }
+        double checkoutSeconds = (System.nanoTime() - start) / 1e9;
+        for (Thread thread : carrierThreads) {
+            thread.join();
+        }
+        double totalSeconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println();
+        System.out.printf("Checkouts: %d placed (%.1f/s), %d rejected for stock, %d failed%n",
+                checkouts.count(), checkouts.count() / checkoutSeconds, rejectedCheckouts.get(), failedCheckouts.get());
+        System.out.printf("Dispatch:  %d assigned (%.1f/s), %d races lost, %d delivered, %d delivery failures%n",
+                winners.size(), winners.size() / totalSeconds, lostRaces.get(), completions.count(), failedCompletions.get());
+        System.out.println();
+        System.out.println("Latency (ms)        count      p50      p90      p99    p99.9      max");
+        checkouts.print();
+        assignments.print();
+        completions.print();
+        System.out.println();
+        System.out.println("Order writer: " + OrderWriter.getInstance().getStats());
+        System.out.println("Connection pool: " + DatabaseConnection.getPoolStats());
+        System.out.println();
+
+        boolean stockOk = checkStock(stockBefore, lastOrderId);
+        boolean dispatchOk = checkAssignments(lastOrderId);
+        List<String> errors = new ArrayList<>();
+        if (failedCheckouts.get() > 0) {
+            errors.add(failedCheckouts.get() + " checkout(s) failed with an error");
+        }
+        if (failedCompletions.get() > 0) {
+            errors.add(failedCompletions.get() + " won order(s) could not be delivered");
+        }
+        boolean errorsOk = report("Errors", errors);
+
+        boolean passed = stockOk && dispatchOk && errorsOk;
+        System.out.println(passed ? "RESULT: PASSED" : "RESULT: FAILED");
+        return passed;
+    }
+
+    private void customerLoop(User user, List<Product> products) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (customersRunning) {
+            think(random);
+            if (!customersRunning) {
+                break;
+            }
+
+            ShoppingCart cart = ShoppingCart.createDetached();
+            int lines = Math.min(products.size(), random.nextInt(cartMin, cartMax + 1));
+            for (int line = 0; line < lines; line++) {
+                // Duplicates merge into one line, as in the shop
+                Product product = products.get(random.nextInt(products.size()));
+                cart.addItem(product, 0.5 * random.nextInt(1, (int) (maxKg * 2) + 1));
+            }
+
+            long started = System.nanoTime();
+            try {
+                orderService.placeOrder(user, cart, "Load test");
+                checkouts.record(System.nanoTime() - started);
+            } catch (InsufficientStockException e) {
+                rejectedCheckouts.incrementAndGet();
+            } catch (RuntimeException e) {
+                failedCheckouts.incrementAndGet();
+                System.err.println("LoadTest: Checkout failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void carrierLoop(int carrierId, int lastOrderId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.currentTimeMillis() < carriersDeadline) {
+            List<Order> available = new ArrayList<>();
+            for (Order order : carrierDAO.getAvailableOrders()) {
+                if (order.getId() > lastOrderId) {
+                    available.add(order);
+                }
+            }
+            if (available.isEmpty()) {
+                if (!customersRunning) {
+                    break; // Drained
+                }
+                think(random);
+                continue;
+            }
+            available.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+            int orderId = available.get(raceOldest ? 0 : random.nextInt(Math.min(RACE_WINDOW, available.size()))).getId();
+
+            long started = System.nanoTime();
+            boolean won = carrierDAO.assignOrderToCarrier(orderId, carrierId);
+            assignments.record(System.nanoTime() - started);
+            if (!won) {
+                lostRaces.incrementAndGet();
+                continue;
+            }
+            Integer previous = winners.putIfAbsent(orderId, carrierId);
+            if (previous != null) {
+                synchronized (doubleWins) {
+                    doubleWins.add("order " + orderId + " won by carriers " + previous + " and " + carrierId);
+                }
+            }
+
+            started = System.nanoTime();
+            if (carrierDAO.completeOrder(orderId)) {
+                completions.record(System.nanoTime() - started);
+            } else {
+                failedCompletions.incrementAndGet();
+            }
+        }
+    }
+
+    private void think(ThreadLocalRandom random) {
+        if (thinkMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(random.nextLong(thinkMillis * 2 + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Oversell check: no negative stock, and every product's stock went down by exactly the
+     * kilos sold in the run's orders (so no concurrent update was lost).
+     */
+    private boolean checkStock(Map<Integer, Double> stockBefore, int lastOrderId) throws SQLException {
+        Map<Integer, Double> stockAfter = readStock();
+        Map<Integer, Double> sold = new HashMap<>();
+        String sql = "SELECT i.product_id, SUM(i.amount_kg) FROM group09_greengrocer.order_item i " +
+                "JOIN group09_greengrocer.order_info o ON o.id = i.order_id WHERE o.id > ? GROUP BY i.product_id";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, lastOrderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    sold.put(rs.getInt(1), rs.getDouble(2));
+                }
+            }
+        }
+
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<Integer, Double> entry : stockAfter.entrySet()) {
+            int productId = entry.getKey();
+            double after = entry.getValue();
+            double expected = stockBefore.getOrDefault(productId, after) - sold.getOrDefault(productId, 0.0);
+            if (after < -EPSILON) {
+                problems.add(String.format("product %d oversold: stock_kg %.2f", productId, after));
+            } else if (Math.abs(after - expected) > EPSILON) {
+                problems.add(String.format("product %d: stock_kg %.2f, expected %.2f after selling %.2f kg",
+                        productId, after, expected, sold.getOrDefault(productId, 0.0)));
+            }
+        }
+        return report("Stock (oversell)", problems);
+    }
+
+    /**
+     * Double-assignment check: every order was won once, and order_info names the carrier that
+     * won it; no order of the run is assigned without having been won.
+     */
+    private boolean checkAssignments(int lastOrderId) throws SQLException {
+        List<String> problems;
+        synchronized (doubleWins) {
+            problems = new ArrayList<>(doubleWins);
+        }
+        String sql = "SELECT id, carrier_id, status FROM group09_greengrocer.order_info WHERE id > ? AND carrier_id IS NOT NULL";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, lastOrderId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int orderId = rs.getInt(1);
+                    int carrierId = rs.getInt(2);
+                    Integer winner = winners.get(orderId);
+                    if (winner == null) {
+                        problems.add("order " + orderId + " assigned to carrier " + carrierId + " without a winning assign call");
+                    } else if (winner != carrierId) {
+                        problems.add("order " + orderId + " won by carrier " + winner + " but assigned to " + carrierId);
+                    }
+                }
+            }
+        }
+        return report("Dispatch (double assignment)", problems);
+    }
+
+    private static boolean report(String check, List<String> problems) {
+        System.out.println(check + ": " + (problems.isEmpty() ? "OK" : problems.size() + " problem(s)"));
+        for (String problem : problems.subList(0, Math.min(20, problems.size()))) {
+            System.out.println("  " + problem);
+        }
+        return problems.isEmpty();
+    }
+
+    /**
+     * Creates the simulated users that do not exist yet and returns {@code count} of them.
+     */
+    private static List<User> seedUsers(String role, String prefix, int count) throws SQLException {
+        String insert = "INSERT IGNORE INTO group09_greengrocer.user_info (username, password_hash, role, full_name, address_line) " +
+                "VALUES (?, ?, ?, ?, ?)";
+        String select = "SELECT id, username, full_name, address_line FROM group09_greengrocer.user_info WHERE username = ?";
+        List<User> users = new ArrayList<>(count);
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement psInsert = conn.prepareStatement(insert);
+             PreparedStatement psSelect = conn.prepareStatement(select)) {
+            for (int i = 1; i <= count; i++) {
+                psInsert.setString(1, prefix + i);
+                psInsert.setString(2, DatabaseConnection.hashPassword(prefix + i));
+                psInsert.setString(3, role);
+                psInsert.setString(4, "Load Test " + role.charAt(0) + role.substring(1).toLowerCase() + " " + i);
+                psInsert.setString(5, "Load Test Street " + i);
+                psInsert.addBatch();
+            }
+            psInsert.executeBatch();
+
+            for (int i = 1; i <= count; i++) {
+                psSelect.setString(1, prefix + i);
+                try (ResultSet rs = psSelect.executeQuery()) {
+                    if (rs.next()) {
+                        User user = new User();
+                        user.setId(rs.getInt("id"));
+                        user.setUsername(rs.getString("username"));
+                        user.setFullName(rs.getString("full_name"));
+                        user.setAddress(rs.getString("address_line"));
+                        user.setRole(role);
+                        users.add(user);
+                    }
+                }
+            }
+        }
+        return users;
+    }
+
+    private List<Product> loadProducts() {
+        List<Product> products = new ArrayList<>();
+        for (Product product : new DBProductDAO().getAllProducts()) {
+            if (product.isActive() && product.getStockKg() > 0) {
+                products.add(product);
+            }
+        }
+        products.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+        return productLimit > 0 && productLimit < products.size() ? products.subList(0, productLimit) : products;
+    }
+
+    private static Map<Integer, Double> readStock() throws SQLException {
+        Map<Integer, Double> stock = new HashMap<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT id, stock_kg FROM group09_greengrocer.product_info");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                stock.put(rs.getInt(1), rs.getDouble(2));
+            }
+        }
+        return stock;
+    }
+
+    private static int readLastOrderId() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(id), 0) FROM group09_greengrocer.order_info");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Latencies of one operation, in nanoseconds. Lock-free appends from many virtual threads
+     * into fixed segments; sorted once for the report.
+     */
+    private static final class Recorder {
+        private static final int SEGMENT = 1 << 16;
+
+        private final String name;
+        private final AtomicLong next = new AtomicLong();
+        private final Map<Integer, long[]> segments = new ConcurrentHashMap<>();
+
+        private Recorder(String name) {
+            this.name = name;
+        }
+
+        private void record(long nanos) {
+            long index = next.getAndIncrement();
+            segments.computeIfAbsent((int) (index / SEGMENT), s -> new long[SEGMENT])[(int) (index % SEGMENT)] = nanos;
+        }
+
+        private long count() {
+            return next.get();
+        }
+
+        private void print() {
+            int count = (int) count();
+            long[] all = new long[count];
+            for (int i = 0; i < count; i++) {
+                all[i] = segments.get(i / SEGMENT)[i % SEGMENT];
+            }
+            Arrays.sort(all);
+            System.out.printf("%-14s %10d %8.1f %8.1f %8.1f %8.1f %8.1f%n", name, count,
+                    percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), percentile(all, 0.999),
+                    count > 0 ? all[count - 1] / 1e6 : 0.0);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
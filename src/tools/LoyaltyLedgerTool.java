@@ -0,0 +1,45 @@
+package tools;
+
+import Dao.LoyaltyDAO;
+
+import java.util.List;
+
+/**
+ * Maintains the loyalty counters (customer_loyalty, see Dao.LoyaltyDAO).
+ * <ul>
+ *     <li>{@code check} (default): compares every counter with a count over order_info and
+ *     lists the differences; exits with status 1 if there are any.</li>
+ *     <li>{@code rebuild}: recomputes all counters. Run once after Utils.FixSchema; safe to run again.</li>
+ * </ul>
+ */
+public class LoyaltyLedgerTool {
+
+    public static void main(String[] args) throws Exception {
+        String command = args.length > 0 ? args[0] : "check";
+        LoyaltyDAO loyaltyDAO = new LoyaltyDAO();
+        int status = 0;
+
+        switch (command) {
+            case "rebuild":
+                int customers = loyaltyDAO.rebuild();
+                System.out.println("Rebuilt counters for " + customers + " customers");
+                break;
+            case "check":
+                List<LoyaltyDAO.Mismatch> mismatches = loyaltyDAO.findMismatches();
+                for (LoyaltyDAO.Mismatch mismatch : mismatches) {
+                    System.out.println("Mismatch: " + mismatch);
+                }
+                System.out.println(mismatches.isEmpty()
+                        ? "All counters are consistent"
+                        : mismatches.size() + " mismatches; fix with: LoyaltyLedgerTool rebuild");
+                status = mismatches.isEmpty() ? 0 : 1;
+                break;
+            default:
+                System.err.println("Usage: LoyaltyLedgerTool [check|rebuild]");
+                status = 2;
+        }
+
+        Database.DatabaseConnection.closeConnection();
+        System.exit(status);
+    }
+}
@@ -0,0 +1,41 @@
+package tools;
+
+import Dao.SalesAnalyticsDAO.Dimension;
+import Models.SalesReport;
+import Service.SalesAnalytics;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Prints an ad-hoc sales report (Service.SalesAnalytics).
+ * <p>
+ * Usage: {@code SalesReportTool <from yyyy-MM-dd> <to yyyy-MM-dd> <PRODUCT|PRODUCT_TYPE|CARRIER|HOUR_OF_DAY> [topN]}
+ * Both dates are included; topN 0 (the default) prints every group.
+ */
+public class SalesReportTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: SalesReportTool <from> <to> <PRODUCT|PRODUCT_TYPE|CARRIER|HOUR_OF_DAY> [topN]");
+            System.exit(2);
+        }
+        LocalDate from = LocalDate.parse(args[0]);
+        LocalDate to = LocalDate.parse(args[1]);
+        Dimension dimension = Dimension.valueOf(args[2].toUpperCase(Locale.ROOT));
+        int topN = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+        SalesReport report = SalesAnalytics.getInstance().analyze(dimension, from, to, topN);
+
+        System.out.printf("%s %s .. %s: %d lines, %.2f kg, %.2f TL in %d ms%n",
+                report.getDimension(), report.getFrom(), report.getTo(), report.getTotalLines(),
+                report.getTotalKg(), report.getTotalRevenue(), report.getElapsedMillis());
+        for (SalesReport.Row row : report.getRows()) {
+            System.out.printf("%-30s %12.2f TL %6.2f%% %10.2f kg %8d lines%n",
+                    row.getLabel(), row.getRevenue(), row.getRevenueShare() * 100, row.getKg(), row.getLines());
+        }
+
+        Database.DatabaseConnection.closeConnection();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,51 @@
+package tools;
+
+import Dao.DBProductDAO;
+import Utils.ThumbnailGenerator;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates card-sized thumbnails for products whose image was stored before
+ * thumb_blob existed. Run once after Utils.FixSchema; safe to run again.
+ */
+public class ThumbnailBackfill {
+
+    public static void main(String[] args) throws Exception {
+        String sql = "SELECT id FROM group09_greengrocer.product_info WHERE image_blob IS NOT NULL AND thumb_blob IS NULL";
+
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = Database.DatabaseConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+
+        DBProductDAO productDAO = new DBProductDAO();
+        int generated = 0;
+        int skipped = 0;
+
+        // One product at a time so only a single original image is held in memory
+        for (int id : ids) {
+            DBProductDAO.ImageBlob original = productDAO.readImage(id);
+            ThumbnailGenerator.Thumbnail thumb = original != null
+                    ? ThumbnailGenerator.createThumbnail(original.getBytes())
+                    : null;
+            if (thumb == null) {
+                skipped++; // Görsel çözümlenemedi
+                continue;
+            }
+            productDAO.saveThumbnail(id, thumb);
+            generated++;
+        }
+
+        System.out.println("Generated: " + generated);
+        System.out.println("Skipped: " + skipped);
+        System.out.println("For Control: SELECT name, OCTET_LENGTH(image_blob), OCTET_LENGTH(thumb_blob) FROM product_info;");
+        Database.DatabaseConnection.closeConnection();
+    }
+}